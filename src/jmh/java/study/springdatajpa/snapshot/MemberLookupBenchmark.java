@@ -0,0 +1,103 @@
+package study.springdatajpa.snapshot;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import study.springdatajpa.SpringdatajpaApplication;
+import study.springdatajpa.entity.Member;
+import study.springdatajpa.repository.MemberJpaRepository;
+import study.springdatajpa.repository.MemberRepository;
+import study.springdatajpa.repository.query.MemberQueryDto;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * id -> (name, age) 조회 : findById (영속성 컨텍스트 경유) / DTO 쿼리 / off-heap snapshot 비교.
+ * ./gradlew jmh 로 실행하면 gc profiler 의 gc.alloc.rate.norm 에서 op 당 할당 바이트를 볼 수 있다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class MemberLookupBenchmark {
+
+    private static final int MEMBERS = 10_000;
+
+    private ConfigurableApplicationContext context;
+    private MemberRepository memberRepository;
+    private MemberSnapshot memberSnapshot;
+    private long[] ids;
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        final MemberRecord record = new MemberRecord();
+        int next;
+
+        long nextId(long[] ids) {
+            return ids[next++ & (ids.length - 1)];
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(SpringdatajpaApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties(
+                        "member.snapshot.enabled=true",
+                        "member.team-view.enabled=false",
+                        "decorator.datasource.enabled=false",
+                        "spring.jpa.properties.hibernate.show_sql=false",
+                        "logging.level.root=warn")
+                .run();
+        memberRepository = context.getBean(MemberRepository.class);
+        memberSnapshot = context.getBean(MemberSnapshot.class);
+
+        List<Member> members = IntStream.range(0, MEMBERS)
+                .mapToObj(i -> new Member("member" + i, i % 100))
+                .toList();
+        context.getBean(MemberJpaRepository.class).saveAll(members);
+        memberSnapshot.reload();
+
+        // 2의 거듭제곱 크기로 잘라 & 연산으로 순환한다.
+        ids = members.stream().mapToLong(Member::getId).limit(Integer.highestOneBit(MEMBERS)).toArray();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Member findById(Cursor cursor) {
+        return memberRepository.findById(cursor.nextId(ids)).orElseThrow();
+    }
+
+    @Benchmark
+    public MemberQueryDto findDtoById(Cursor cursor) {
+        return memberRepository.findDtoById(cursor.nextId(ids)).orElseThrow();
+    }
+
+    // 할당 없는 경로. 같은 MemberRecord 를 재사용한다.
+    @Benchmark
+    public int snapshotRead(Cursor cursor) {
+        memberSnapshot.read(cursor.nextId(ids), cursor.record);
+        return cursor.record.getAge() + cursor.record.getNameLength();
+    }
+
+    // DTO 가 필요한 경우 (Optional, DTO, String 만 할당)
+    @Benchmark
+    public MemberQueryDto snapshotDto(Cursor cursor) {
+        return memberSnapshot.findDto(cursor.nextId(ids)).orElseThrow();
+    }
+
+}
@@ -1,17 +1,22 @@
 package study.springdatajpa;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.context.annotation.Bean;
 import org.springframework.data.domain.AuditorAware;
 import org.springframework.data.jpa.repository.config.EnableJpaAuditing;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import study.springdatajpa.auditor.AuditingClock;
 import study.springdatajpa.auditor.UserAuditorAware;
 
+import java.time.Clock;
 import java.util.Optional;
 import java.util.UUID;
 
 
-@EnableJpaAuditing
+@EnableJpaAuditing(dateTimeProviderRef = "auditingClock")
+@EnableScheduling
 @SpringBootApplication
 public class SpringdatajpaApplication {
 
@@ -25,4 +30,14 @@ public class SpringdatajpaApplication {
         return new UserAuditorAware();
     }
 
+    @Bean
+    public Clock clock() {
+        return Clock.systemDefaultZone();
+    }
+
+    @Bean
+    public AuditingClock auditingClock(Clock clock, @Value("${auditing.clock.per-transaction:true}") boolean perTransaction) {
+        return new AuditingClock(clock, perTransaction);
+    }
+
 }
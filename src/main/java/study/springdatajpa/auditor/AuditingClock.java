@@ -0,0 +1,75 @@
+package study.springdatajpa.auditor;
+
+import org.springframework.data.auditing.DateTimeProvider;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.time.temporal.TemporalAccessor;
+import java.util.Optional;
+
+/**
+ * Auditing 에서 사용하는 시계.
+ * perTransaction 이면 트랜잭션 안에서 처음 조회한 시각을 트랜잭션이 끝날 때까지 재사용하므로
+ * 대량 insert 시 엔티티마다 LocalDateTime.now() 를 호출하지 않고, 같은 트랜잭션의 row 는 같은 시각을 가진다.
+ * 벌크 JPQL update 에서도 같은 값을 updated_date 로 사용한다.
+ */
+public class AuditingClock implements DateTimeProvider {
+
+    private final Clock clock;
+    private final boolean perTransaction;
+
+    public AuditingClock(Clock clock, boolean perTransaction) {
+        this.clock = clock;
+        this.perTransaction = perTransaction;
+    }
+
+    public LocalDateTime now() {
+        if (!perTransaction || !TransactionSynchronizationManager.isSynchronizationActive()) {
+            return LocalDateTime.now(clock);
+        }
+
+        LocalDateTime now = (LocalDateTime) TransactionSynchronizationManager.getResource(this);
+        if (now == null) {
+            now = LocalDateTime.now(clock);
+            TransactionSynchronizationManager.bindResource(this, now);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionTimestampSynchronization(now));
+        }
+        return now;
+    }
+
+    @Override
+    public Optional<TemporalAccessor> getNow() {
+        return Optional.of(now());
+    }
+
+    /**
+     * 트랜잭션이 끝나면 캐싱한 시각을 해제한다.
+     * REQUIRES_NEW 로 중첩되면 바깥 트랜잭션의 시각을 잠시 내려두었다가 다시 올린다.
+     */
+    private class TransactionTimestampSynchronization implements TransactionSynchronization {
+
+        private final LocalDateTime now;
+
+        private TransactionTimestampSynchronization(LocalDateTime now) {
+            this.now = now;
+        }
+
+        @Override
+        public void suspend() {
+            TransactionSynchronizationManager.unbindResourceIfPossible(AuditingClock.this);
+        }
+
+        @Override
+        public void resume() {
+            TransactionSynchronizationManager.bindResource(AuditingClock.this, now);
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            TransactionSynchronizationManager.unbindResourceIfPossible(AuditingClock.this);
+        }
+    }
+
+}
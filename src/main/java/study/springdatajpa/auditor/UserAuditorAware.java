@@ -1,19 +1,60 @@
 package study.springdatajpa.auditor;
 
 import org.springframework.data.domain.AuditorAware;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
 
 import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
 
 public class UserAuditorAware implements AuditorAware<String> {
 
+    private static final String AUDITOR_ATTRIBUTE = UserAuditorAware.class.getName() + ".AUDITOR";
+
+    /**
+     * 요청(없으면 트랜잭션) 당 한 번만 계산하고, 그 안의 엔티티들은 같은 값을 재사용한다.
+     */
     @Override
     public Optional<String> getCurrentAuditor() {
+        RequestAttributes requestAttributes = RequestContextHolder.getRequestAttributes();
+        if (requestAttributes != null) {
+            String auditor = (String) requestAttributes.getAttribute(AUDITOR_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+            if (auditor == null) {
+                auditor = resolveAuditor();
+                requestAttributes.setAttribute(AUDITOR_ATTRIBUTE, auditor, RequestAttributes.SCOPE_REQUEST);
+            }
+            return Optional.of(auditor);
+        }
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            String auditor = (String) TransactionSynchronizationManager.getResource(AUDITOR_ATTRIBUTE);
+            if (auditor == null) {
+                auditor = resolveAuditor();
+                TransactionSynchronizationManager.bindResource(AUDITOR_ATTRIBUTE, auditor);
+                TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                    @Override
+                    public void afterCompletion(int status) {
+                        TransactionSynchronizationManager.unbindResourceIfPossible(AUDITOR_ATTRIBUTE);
+                    }
+                });
+            }
+            return Optional.of(auditor);
+        }
+
+        return Optional.of(resolveAuditor());
+    }
+
+    private String resolveAuditor() {
         // Spring Security의 SecurityContextHolder를 사용하여 현재 인증된 사용자의 세션 정보를 가져옵니다.
         // 여기서는 간단히 사용자 이름을 반환하도록 하겠습니다.
-        String username = UUID.randomUUID().toString();
+        // (보안 용도가 아니므로 SecureRandom 을 쓰는 UUID.randomUUID() 대신 ThreadLocalRandom 으로 만든다.)
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        String username = new UUID(random.nextLong(), random.nextLong()).toString();
 //                SecurityContextHolder.getContext().getAuthentication().getName();
-        return Optional.of(username);
+        return username;
     }
 
 }
@@ -0,0 +1,71 @@
+package study.springdatajpa.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableAsync;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import study.springdatajpa.tenant.TenantContext;
+
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * 조회 전용 비동기 executor.
+ * 작업 하나가 커넥션 하나를 잡으므로 스레드 수를 커넥션 풀 크기(예약분 제외)로 제한하고,
+ * 큐도 제한해서 넘치면 기다리지 않고 바로 거절한다. (호출 스레드에서 실행하면 요청 스레드가 커넥션을 또 잡게 된다.)
+ * 큐 길이 / active 스레드 수는 actuator 가 executor.queued, executor.active (name=memberQueryExecutor) 로 등록한다.
+ * 작업은 제출한 스레드의 tenant 로 실행된다.
+ */
+@Configuration
+@EnableAsync
+@Slf4j
+public class AsyncConfig {
+
+    public static final String MEMBER_QUERY_EXECUTOR = "memberQueryExecutor";
+
+    @Bean(name = MEMBER_QUERY_EXECUTOR)
+    public ThreadPoolTaskExecutor memberQueryExecutor(
+            MeterRegistry meterRegistry,
+            @Value("${spring.datasource.hikari.maximum-pool-size:10}") int connectionPoolSize,
+            @Value("${member.query.executor.reserved-connections:2}") int reservedConnections,
+            @Value("${member.query.executor.queue-capacity:100}") int queueCapacity) {
+
+        int poolSize = Math.max(1, connectionPoolSize - reservedConnections);
+        Counter rejected = Counter.builder("member.query.executor.rejected")
+                .description("memberQueryExecutor 에서 거절된 작업 수")
+                .register(meterRegistry);
+
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("member-query-");
+        executor.setRejectedExecutionHandler(new CountingAbortPolicy(rejected));
+        executor.setTaskDecorator(TenantContext::wrap);
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(10);
+        return executor;
+    }
+
+    private static class CountingAbortPolicy implements RejectedExecutionHandler {
+
+        private final Counter rejected;
+
+        private CountingAbortPolicy(Counter rejected) {
+            this.rejected = rejected;
+        }
+
+        @Override
+        public void rejectedExecution(Runnable task, ThreadPoolExecutor executor) {
+            rejected.increment();
+            log.warn("member query rejected : active={}, queued={}", executor.getActiveCount(), executor.getQueue().size());
+            throw new RejectedExecutionException("member query executor is saturated");
+        }
+    }
+
+}
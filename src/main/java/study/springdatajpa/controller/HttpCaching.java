@@ -0,0 +1,50 @@
+package study.springdatajpa.controller;
+
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import study.springdatajpa.repository.query.PageVersionDto;
+import study.springdatajpa.repository.query.VersionDto;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * 조회 API 의 ETag / Last-Modified / Cache-Control.
+ * 같은 리소스를 json / smile / gzip 으로 보낼 수 있으므로 weak ETag 를 쓴다.
+ * no-cache + public : 공유 캐시가 저장하되 매번 조건부 요청으로 재검증하므로, 바뀌지 않았으면 304 로 본문 없이 끝난다.
+ */
+final class HttpCaching {
+
+    static final CacheControl CACHE_CONTROL = CacheControl.noCache().cachePublic();
+
+    private HttpCaching() {
+    }
+
+    // bulk update 는 version 을 올리지 않으므로 updatedDate 도 같이 넣는다.
+    static String etag(VersionDto version) {
+        return "W/\"" + version.getId() + "-" + version.getVersion() + "-" + epochMillis(version.getUpdatedDate()) + "\"";
+    }
+
+    static String etag(List<PageVersionDto> versions) {
+        return versions.stream()
+                .map(version -> version.getCount() + "-" + version.getChecksum() + "-" + epochMillis(version.getLastUpdated()))
+                .collect(Collectors.joining(".", "W/\"", "\""));
+    }
+
+    static long lastModified(VersionDto version) {
+        return epochMillis(version.getUpdatedDate());
+    }
+
+    // WebRequest.checkNotModified 가 ETag / Last-Modified 헤더와 304 상태를 이미 채웠다.
+    static <T> ResponseEntity<T> notModified() {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED).cacheControl(CACHE_CONTROL).build();
+    }
+
+    private static long epochMillis(LocalDateTime dateTime) {
+        return dateTime == null ? -1 : dateTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+}
@@ -4,22 +4,42 @@ package study.springdatajpa.controller;
 import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.InvalidDataAccessApiUsageException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.web.PageableDefault;
+import org.springframework.http.ResponseEntity;
 import org.springframework.transaction.annotation.*;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import study.springdatajpa.dto.ApiResultResponse;
+import study.springdatajpa.dto.MemberDashboardDto;
+import study.springdatajpa.dto.PageResponse;
+import study.springdatajpa.dto.SyncResponse;
 import study.springdatajpa.entity.Member;
 import study.springdatajpa.entity.Team;
+import study.springdatajpa.repository.MemberProjection;
 import study.springdatajpa.repository.MemberRepository;
 import study.springdatajpa.repository.TeamRepository;
+import study.springdatajpa.repository.query.MemberAggregateRowDto;
+import study.springdatajpa.repository.query.MemberAggregation;
+import study.springdatajpa.repository.query.MemberBulkDeleteResult;
+import study.springdatajpa.repository.query.MemberChangeDto;
 import study.springdatajpa.repository.query.MemberQueryDto;
+import study.springdatajpa.repository.query.MemberTeamViewConsistency;
+import study.springdatajpa.repository.query.PageVersionDto;
+import study.springdatajpa.repository.query.VersionDto;
+import study.springdatajpa.service.MemberDashboardService;
+import study.springdatajpa.service.MemberReportService;
 import study.springdatajpa.service.MemberService;
+import study.springdatajpa.service.MemberTeamViewService;
+import study.springdatajpa.service.SyncService;
 
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
@@ -33,6 +53,10 @@ public class MemberController {
     private final MemberService memberService;
     private final MemberRepository memberRepository;
     private final TeamRepository teamRepository;
+    private final MemberTeamViewService memberTeamViewService;
+    private final MemberDashboardService memberDashboardService;
+    private final MemberReportService memberReportService;
+    private final SyncService syncService;
 
     @GetMapping("/login")
     public String login(@ModelAttribute Member member) {
@@ -45,39 +69,173 @@ public class MemberController {
         return "member/memberList";
     }
 
+    /**
+     * cursor 이후 변경/삭제된 회원만 내려준다. 응답의 cursor 를 다음 요청에 그대로 넘긴다.
+     */
+    @GetMapping("/sync")
+    public ResponseEntity<SyncResponse<MemberChangeDto>> memberSync(@RequestParam(name = "cursor", required = false) String cursor,
+                                                                    @RequestParam(name = "size", defaultValue = "500") int size) {
+        try {
+            return ResponseEntity.ok(syncService.memberChanges(cursor, size));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    /**
+     * ETag / Last-Modified 가 맞으면 version 컬럼만 조회하고 304 로 끝낸다. 본문은 엔티티가 아니라 projection 으로 조회한다.
+     */
     @GetMapping("/{id}")
-    public ApiResultResponse memberDetail(@PathVariable("id") Member member, Model model) {
-        log.info("들어옴");
-        // 스프링은 클래스 컨버터를 통해 아래 과정을 지원한다.
-//        model.addAttribute("member", memberService.findById(member.getId()));
-        return new ApiResultResponse(member.getId(), member);
+    public ResponseEntity<ApiResultResponse<MemberQueryDto>> memberDetail(@PathVariable("id") Long memberId, WebRequest request) {
+        if (memberService.isSharded()) {
+            // 샤드에는 version 컬럼이 없으므로 조건부 응답 없이 내려준다.
+            return memberService.findDtoById(memberId)
+                    .map(member -> ResponseEntity.ok(new ApiResultResponse<>(member.getId(), member)))
+                    .orElseGet(() -> ResponseEntity.notFound().build());
+        }
+        Optional<VersionDto> version = memberRepository.findVersionById(memberId);
+        if (version.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        if (request.checkNotModified(HttpCaching.etag(version.get()), HttpCaching.lastModified(version.get()))) {
+            return HttpCaching.notModified();
+        }
+        return memberService.findDtoById(memberId)
+                .map(member -> ResponseEntity.ok()
+                        .cacheControl(HttpCaching.CACHE_CONTROL)
+                        .body(new ApiResultResponse<>(member.getId(), member)))
+                .orElseGet(() -> ResponseEntity.notFound().build());
     }
 
-    @GetMapping("/memberList")
+    // soft delete. 팀원 row 수와 관계없이 쿼리 수가 일정하다.
+    @DeleteMapping("/{id}")
+    @Transactional
+    public ResponseEntity<Void> deleteMember(@PathVariable("id") Long memberId) {
+        return memberService.deleteMember(memberId)
+                ? ResponseEntity.noContent().build()
+                : ResponseEntity.notFound().build();
+    }
+
+    @PostMapping("/bulk-delete")
     @Transactional
-    public Page<Member> memberList(Pageable pageable) {
-        Page<Member> all = memberRepository.findAll(pageable);
-        return all;
+    public MemberBulkDeleteResult deleteMembers(@RequestBody List<Long> memberIds) {
+        return memberService.deleteMembers(memberIds);
+    }
+
+    /**
+     * 회원 상세 + 소속 팀 + 팀원 + 카운트를 한 번에 조회한다.
+     * 각 조회는 별도 스레드의 읽기 전용 트랜잭션에서 실행되므로 여기서는 트랜잭션을 열지 않는다.
+     */
+    @GetMapping("/{id}/dashboard")
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public ResponseEntity<MemberDashboardDto> memberDashboard(@PathVariable("id") Long memberId) {
+        return ResponseEntity.of(memberDashboardService.findDashboard(memberId));
+    }
+
+    /**
+     * 회원 group by 집계. 예: /member/stats?groupBy=team&metric=count,avgAge&having=count:ge:3&sort=count,desc
+     * groupBy : team, age, ageBucket:폭 / metric : count, avgAge, minAge, maxAge / having : metric:eq|gt|ge|lt|le:값
+     * groupBy 가 없으면 전체가 group 하나다.
+     */
+    @GetMapping("/stats")
+    public ResponseEntity<PageResponse<MemberAggregateRowDto>> memberStats(@RequestParam(name = "groupBy", required = false) List<String> groupBy,
+                                                                           @RequestParam(name = "metric", defaultValue = "count") List<String> metrics,
+                                                                           @RequestParam(name = "having", required = false) List<String> havings,
+                                                                           @PageableDefault(size = 20) Pageable pageable) {
+        try {
+            MemberAggregation.Builder builder = MemberAggregation.builder();
+            Optional.ofNullable(groupBy).orElse(List.of()).forEach(value -> builder.groupBy(MemberAggregation.Dimension.parse(value)));
+            metrics.forEach(value -> builder.metric(MemberAggregation.Metric.parse(value)));
+            Optional.ofNullable(havings).orElse(List.of()).forEach(value -> builder.having(MemberAggregation.Having.parse(value)));
+            return ResponseEntity.ok(PageResponse.of(memberRepository.aggregate(builder.build(), pageable)));
+        } catch (IllegalArgumentException | InvalidDataAccessApiUsageException e) {
+            // 정렬 속성 오류는 repository 에서 InvalidDataAccessApiUsageException 으로 바뀌어 나온다.
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    // 나이 구간별 회원 수. 병렬 scan 의 partition 이 각자 트랜잭션을 열므로 여기서는 열지 않는다.
+    @GetMapping("/age-histogram")
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public ResponseEntity<Map<Integer, Long>> ageHistogram(@RequestParam(name = "bucket", defaultValue = "10") int bucket) {
+        if (bucket < 1) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(memberReportService.ageHistogram(bucket));
+    }
+
+    // Page<Member> 를 그대로 내보내면 연관관계까지 직렬화되므로 DTO + 최소 envelope 으로 응답한다.
+    // 목록은 행이 빠질 수도 있으므로 Last-Modified 없이 ETag(count, version 합, 최종 수정 시각)로만 판단한다.
+    // includeArchived 면 보관된 회원까지 합치고, ETag 에도 보관 테이블을 넣는다.
+    @GetMapping("/memberList")
+    public ResponseEntity<PageResponse<MemberQueryDto>> memberList(@PageableDefault(size = 20, sort = "id", direction = Sort.Direction.ASC) Pageable pageable,
+                                                                   @RequestParam(name = "includeArchived", defaultValue = "false") boolean includeArchived,
+                                                                   WebRequest request) {
+        if (memberService.isSharded()) {
+            // 보관 테이블과 목록 version 은 기본 DB 에만 있다.
+            if (includeArchived) {
+                return ResponseEntity.badRequest().build();
+            }
+            return ResponseEntity.ok(PageResponse.of(memberService.findMemberDtos(pageable)));
+        }
+        List<PageVersionDto> versions = includeArchived
+                ? List.of(memberRepository.findPageVersion(), memberRepository.findArchivePageVersion())
+                : List.of(memberRepository.findPageVersion());
+        if (request.checkNotModified(HttpCaching.etag(versions))) {
+            return HttpCaching.notModified();
+        }
+        Page<MemberQueryDto> page = includeArchived
+                ? memberRepository.findMemberDtos(pageable, true)
+                : memberService.findMemberDtos(pageable);
+        return ResponseEntity.ok()
+                .cacheControl(HttpCaching.CACHE_CONTROL)
+                .body(PageResponse.of(page));
+    }
+
+    // 이름 검색. 샤드 모드에서는 모든 샤드에 같은 조건으로 묻고 정렬 순서대로 합친다.
+    @GetMapping("/search")
+    public ResponseEntity<PageResponse<MemberQueryDto>> memberSearch(@RequestParam(name = "name") String memberName,
+                                                                     @PageableDefault(size = 20, sort = "id", direction = Sort.Direction.ASC) Pageable pageable) {
+        try {
+            return ResponseEntity.ok(PageResponse.of(memberService.searchByMemberName(memberName, pageable)));
+        } catch (IllegalArgumentException e) {
+            // 샤드 목록은 허용된 정렬 속성만 받는다.
+            return ResponseEntity.badRequest().build();
+        }
     }
 
     @GetMapping("/memberDtoList")
     @Transactional
     public Page<MemberQueryDto> memberDtoList(@PageableDefault(size = 5, sort = "id", direction = Sort.Direction.ASC) Pageable pageable) {
-        Page<Member> all = memberRepository.findAll(pageable);
-        log.info("list size : {}", all.getTotalElements());
-        Page<MemberQueryDto> map = all.map(member -> new MemberQueryDto(member.getId(), member.getMemberName(), member.getAge()));
+        Page<MemberQueryDto> map = memberService.findMemberDtos(pageable);
+        log.info("list size : {}", map.getTotalElements());
         return map;
     }
 
     @GetMapping("/memberListApiResponse")
     @Transactional
     public ApiResultResponse memberListApiResponse(@PageableDefault(size = 5, sort = "id", direction = Sort.Direction.ASC) Pageable pageable) {
-        Page<Member> all = memberRepository.findAll(pageable);
-        log.info("list size : {}", all.getTotalElements());
-        Page<MemberQueryDto> map = all.map(member -> new MemberQueryDto(member.getId(), member.getMemberName(), member.getAge()));
+        Page<MemberQueryDto> map = memberService.findMemberDtos(pageable);
+        log.info("list size : {}", map.getTotalElements());
         return new ApiResultResponse((long) map.getSize(), map);
     }
 
+    @GetMapping("/memberTeamList")
+    public PageResponse<MemberProjection> memberTeamList(@PageableDefault(size = 10) Pageable pageable) {
+        return PageResponse.of(memberTeamViewService.findMemberTeamPage(pageable));
+    }
+
+    @GetMapping("/memberTeamList/check")
+    public MemberTeamViewConsistency memberTeamViewCheck() {
+        return memberTeamViewService.check();
+    }
+
+    @PostMapping("/memberTeamList/rebuild")
+    @Transactional
+    public ApiResultResponse<Void> memberTeamViewRebuild() {
+        return new ApiResultResponse<>((long) memberTeamViewService.rebuild(), null);
+    }
+
     @GetMapping("/mergeTest")
     @Transactional
     public ApiResultResponse mergeTest() {
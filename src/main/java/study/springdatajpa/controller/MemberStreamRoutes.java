@@ -0,0 +1,92 @@
+package study.springdatajpa.controller;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.MediaType;
+import org.springframework.web.servlet.function.RequestPredicates;
+import org.springframework.web.servlet.function.RouterFunction;
+import org.springframework.web.servlet.function.RouterFunctions;
+import org.springframework.web.servlet.function.ServerRequest;
+import org.springframework.web.servlet.function.ServerResponse;
+import reactor.core.publisher.Flux;
+import study.springdatajpa.repository.MemberReactiveReader;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * 회원 목록을 Accept: application/x-ndjson 으로 요청하면 MemberReactiveReader 의 Flux 를 한 줄에 한 건씩 흘려보낸다.
+ * 경로는 기존 controller 와 같고, RouterFunctionMapping 이 controller 보다 먼저 보므로 Accept 로만 갈린다.
+ * 응답은 async 로 쓰고 한 건을 쓴 뒤에 다음 한 건을 요청하므로, 느린 client 가 읽는 만큼만 DB 에서 가져온다.
+ * page / size / sort 파라미터는 controller 와 같은 의미다. size 는 member.reactive.max-page-size 까지 받는다.
+ */
+@Configuration
+public class MemberStreamRoutes {
+
+    private static final MediaType NDJSON_UTF8 = new MediaType(MediaType.APPLICATION_NDJSON, StandardCharsets.UTF_8);
+
+    private final MemberReactiveReader memberReactiveReader;
+    private final ObjectMapper objectMapper;
+    private final int maxPageSize;
+
+    public MemberStreamRoutes(MemberReactiveReader memberReactiveReader, ObjectMapper objectMapper,
+                              @Value("${member.reactive.max-page-size:10000}") int maxPageSize) {
+        this.memberReactiveReader = memberReactiveReader;
+        this.objectMapper = objectMapper;
+        this.maxPageSize = maxPageSize;
+    }
+
+    @Bean
+    public RouterFunction<ServerResponse> memberStreamRouter() {
+        return RouterFunctions.route()
+                .GET("/member/memberDtoList", RequestPredicates.accept(MediaType.APPLICATION_NDJSON),
+                        request -> ndjson(memberReactiveReader.findMemberDtos(pageable(request, 5, "id"))))
+                .GET("/member/memberTeamList", RequestPredicates.accept(MediaType.APPLICATION_NDJSON),
+                        request -> ndjson(memberReactiveReader.findMemberTeamRows(pageable(request, 10, null))))
+                .GET("/teams/{teamId}/members", RequestPredicates.accept(MediaType.APPLICATION_NDJSON),
+                        request -> ndjson(memberReactiveReader.findMembersByTeamId(
+                                Long.valueOf(request.pathVariable("teamId")), pageable(request, 20, "id"))))
+                // 잘못된 숫자 / 정렬 속성. 스트림을 시작하기 전에 던지므로 아직 응답을 쓰지 않았다.
+                .onError(IllegalArgumentException.class, (e, request) -> ServerResponse.badRequest().build())
+                .build();
+    }
+
+    private ServerResponse ndjson(Flux<?> rows) {
+        return ServerResponse.ok()
+                .contentType(NDJSON_UTF8)
+                .body(rows.map(this::line));
+    }
+
+    private String line(Object row) {
+        try {
+            return objectMapper.writeValueAsString(row) + "\n";
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // @PageableDefault 와 같은 규칙. sort 는 "property,asc|desc" 형식이고 여러 번 줄 수 있다.
+    private Pageable pageable(ServerRequest request, int defaultSize, String defaultSort) {
+        int page = request.param("page").map(Integer::parseInt).orElse(0);
+        int size = request.param("size").map(Integer::parseInt).orElse(defaultSize);
+        if (page < 0 || size < 1) {
+            throw new IllegalArgumentException("invalid page: " + page + ", size: " + size);
+        }
+        List<String> sorts = request.params().getOrDefault("sort", defaultSort == null ? List.of() : List.of(defaultSort));
+        Sort sort = Sort.by(sorts.stream().map(MemberStreamRoutes::order).toList());
+        return PageRequest.of(page, Math.min(size, maxPageSize), sort);
+    }
+
+    private static Sort.Order order(String sort) {
+        String[] parts = sort.split(",");
+        boolean descending = parts.length > 1 && parts[1].equalsIgnoreCase("desc");
+        return descending ? Sort.Order.desc(parts[0]) : Sort.Order.asc(parts[0]);
+    }
+
+}
@@ -3,16 +3,38 @@ package study.springdatajpa.controller;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.web.PageableDefault;
+import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.ui.Model;
 import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import study.springdatajpa.dto.ApiResultResponse;
+import study.springdatajpa.dto.PageResponse;
+import study.springdatajpa.dto.SyncResponse;
 import study.springdatajpa.entity.Member;
 import study.springdatajpa.entity.Team;
+import study.springdatajpa.repository.query.MemberQueryDto;
+import study.springdatajpa.repository.query.TeamAgeStatsDto;
+import study.springdatajpa.repository.query.TeamChangeDto;
+import study.springdatajpa.repository.query.TeamQueryDto;
+import study.springdatajpa.repository.query.TeamSummaryDto;
+import study.springdatajpa.repository.query.VersionDto;
+import study.springdatajpa.service.LookupService;
+import study.springdatajpa.service.MemberReportService;
 import study.springdatajpa.service.MemberService;
+import study.springdatajpa.service.SyncService;
 import study.springdatajpa.service.TeamService;
 
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
 @RestController
 @RequestMapping("/teams")
 @RequiredArgsConstructor
@@ -22,7 +44,77 @@ public class TeamController {
 
     private final TeamService teamService;
     private final MemberService memberService;
+    private final LookupService lookupService;
+    private final SyncService syncService;
+    private final MemberReportService memberReportService;
+
+
+    @GetMapping
+    @Transactional(readOnly = true)
+    public ResponseEntity<PageResponse<TeamSummaryDto>> teamList(@PageableDefault(size = 20, sort = "id", direction = Sort.Direction.ASC) Pageable pageable,
+                                                                 WebRequest request) {
+        if (request.checkNotModified(HttpCaching.etag(teamService.findDirectoryVersion()))) {
+            return HttpCaching.notModified();
+        }
+        return ResponseEntity.ok()
+                .cacheControl(HttpCaching.CACHE_CONTROL)
+                .body(PageResponse.of(teamService.findTeamDirectory(pageable)));
+    }
+
+    // cursor 이후 이름이 바뀌거나 삭제된 팀만 내려준다. 팀원 변경은 /teams/{teamId}/members 로 받는다.
+    @GetMapping("/sync")
+    @Transactional(readOnly = true)
+    public ResponseEntity<SyncResponse<TeamChangeDto>> teamSync(@RequestParam(name = "cursor", required = false) String cursor,
+                                                                @RequestParam(name = "size", defaultValue = "500") int size) {
+        try {
+            return ResponseEntity.ok(syncService.teamChanges(cursor, size));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
 
+    // 동시 조회는 LookupService 에서 하나로 합쳐지므로, 기다리는 요청이 커넥션을 잡지 않도록 트랜잭션을 열지 않는다.
+    @GetMapping("/{teamId}")
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public ResponseEntity<TeamQueryDto> teamDetail(@PathVariable("teamId") Long teamId, WebRequest request) {
+        Optional<VersionDto> version = teamService.findVersion(teamId);
+        if (version.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        if (request.checkNotModified(HttpCaching.etag(version.get()), HttpCaching.lastModified(version.get()))) {
+            return HttpCaching.notModified();
+        }
+        return lookupService.findTeam(teamId)
+                .map(team -> ResponseEntity.ok().cacheControl(HttpCaching.CACHE_CONTROL).body(team))
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    @DeleteMapping("/{teamId}")
+    public ResponseEntity<Void> deleteTeam(@PathVariable("teamId") Long teamId) {
+        return teamService.deleteTeam(teamId)
+                ? ResponseEntity.noContent().build()
+                : ResponseEntity.notFound().build();
+    }
+
+    @GetMapping("/{teamId}/members")
+    @Transactional(readOnly = true)
+    public PageResponse<MemberQueryDto> teamRoster(@PathVariable("teamId") Long teamId,
+                                                   @PageableDefault(size = 20, sort = "id", direction = Sort.Direction.ASC) Pageable pageable) {
+        return PageResponse.of(teamService.findRoster(teamId, pageable));
+    }
+
+    @GetMapping("/age-stats")
+    @Transactional(readOnly = true)
+    public List<TeamAgeStatsDto> teamAgeStats() {
+        return teamService.findAgeStats();
+    }
+
+    // 팀원 수 -> 그 인원인 팀 수. 병렬 scan 이 partition 마다 트랜잭션을 연다.
+    @GetMapping("/size-distribution")
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public Map<Long, Long> teamSizeDistribution() {
+        return memberReportService.teamSizeDistribution();
+    }
 
 //    @GetMapping("/add")
 //    public String createTeam() {
@@ -47,6 +139,18 @@ public class TeamController {
         return "redirect:/team/list";
     }
 
+    @PutMapping("/{teamId}/members/{memberId}")
+    public ApiResultResponse<Long> ensureMembership(@PathVariable("teamId") Long teamId, @PathVariable("memberId") Long memberId) {
+        boolean inserted = memberService.ensureMembership(memberId, teamId);
+        return new ApiResultResponse<>(inserted ? 1L : 0L, teamId);
+    }
+
+    @PutMapping("/{teamId}/members")
+    public ApiResultResponse<Long> ensureMembers(@PathVariable("teamId") Long teamId, @RequestBody List<Long> memberIds) {
+        int inserted = teamService.ensureMembers(teamId, memberIds);
+        return new ApiResultResponse<>((long) inserted, teamId);
+    }
+
     @PostMapping("/{memberId}")
     public String findByIdWithTeams(@PathVariable Long memberId, Model model) {
 //        Member member1 = memberService.findByIdWithTeams(memberId).get();
@@ -0,0 +1,31 @@
+package study.springdatajpa.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import study.springdatajpa.repository.query.MemberCountsDto;
+import study.springdatajpa.repository.query.MemberQueryDto;
+import study.springdatajpa.repository.query.TeamQueryDto;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 회원 화면 한 번에 필요한 데이터.
+ * 시간 안에 끝나지 않았거나 실패한 section 은 null(roster 는 해당 팀 누락)이고 incompleteSections 에 이름이 남는다.
+ */
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class MemberDashboardDto {
+
+    private MemberQueryDto member;
+    private List<TeamQueryDto> teams;
+    // teamId -> 팀원 목록
+    private Map<Long, List<MemberQueryDto>> rosters;
+    private MemberCountsDto counts;
+    private List<String> incompleteSections;
+
+}
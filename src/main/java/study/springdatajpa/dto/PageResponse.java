@@ -0,0 +1,31 @@
+package study.springdatajpa.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.springframework.data.domain.Page;
+
+import java.util.List;
+
+/**
+ * 페이징 응답. PageImpl 을 그대로 직렬화하면 pageable/sort 정보가 중복으로 들어가고
+ * 구현 클래스 구조가 그대로 API 가 되므로, 클라이언트가 쓰는 값만 담는다.
+ */
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class PageResponse<T> {
+
+    private List<T> content;
+    private int page;
+    private int size;
+    private long totalElements;
+    private boolean hasNext;
+
+    public static <T> PageResponse<T> of(Page<T> page) {
+        return new PageResponse<>(page.getContent(), page.getNumber(), page.getSize(), page.getTotalElements(), page.hasNext());
+    }
+
+}
@@ -0,0 +1,31 @@
+package study.springdatajpa.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.List;
+
+/**
+ * 변경분 동기화 응답. changes 는 upsert, deletedIds 는 삭제할 id.
+ * 다음 요청에는 cursor 를 그대로 넘기고, hasMore 면 바로 이어서 요청한다.
+ * resetRequired 면 cursor 가 tombstone 보관 기간보다 오래되어 삭제를 놓쳤을 수 있으므로 cursor 없이 처음부터 받는다.
+ */
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class SyncResponse<T> {
+
+    private List<T> changes;
+    private List<Long> deletedIds;
+    private String cursor;
+    private boolean hasMore;
+    private boolean resetRequired;
+
+    public static <T> SyncResponse<T> reset() {
+        return new SyncResponse<>(List.of(), List.of(), null, false, true);
+    }
+
+}
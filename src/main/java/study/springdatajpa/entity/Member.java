@@ -5,13 +5,32 @@ import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
-
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+import org.hibernate.annotations.SQLRestriction;
+import org.hibernate.annotations.TenantId;
+import study.springdatajpa.entity.id.ConfigurableIdGenerator;
+import study.springdatajpa.entity.listener.MemberSnapshotListener;
+import study.springdatajpa.entity.listener.MemberTeamViewListener;
+import study.springdatajpa.entity.listener.TombstoneListener;
+
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 
 @Entity
 @NoArgsConstructor(access = AccessLevel.PROTECTED)
 @Getter
+@EntityListeners({MemberTeamViewListener.class, MemberSnapshotListener.class, TombstoneListener.class})
+@Table(indexes = {
+        @Index(name = "idx_member_tenant_updated_date_id", columnList = "tenant_id, updated_date, member_id"),
+        @Index(name = "idx_member_updated_date_id", columnList = "updated_date, member_id"),
+        @Index(name = "idx_member_deleted_at", columnList = "deleted_at")})
+// soft delete. softDelete() 로 deleted_at 만 채우고, 실제 삭제는 SoftDeletePurgeJob 이 모아서 한다.
+// deleted_at 은 DB 시계(CURRENT_TIMESTAMP)가 아니라 AuditingClock 으로 채운다. purge cutoff / tombstone 과 같은 시계여야 한다.
+// remove() 는 실제 delete 이므로 서비스 코드에서는 쓰지 않는다.
+// 조회(JPQL/derived query)에는 deleted_at IS NULL 이 자동으로 붙지만 native SQL 에는 직접 넣어야 한다.
+@SQLRestriction("deleted_at IS NULL")
 @NamedQuery(
         name = "Member.findByMemberName",
         query = "select m from Member m where m.memberName = :memberName")
@@ -20,23 +39,56 @@ import java.util.List;
 public class Member extends BaseTimeEntity {
 
     @Id
-    @GeneratedValue
+    @GeneratedValue(generator = "member_id_generator")
+    @GenericGenerator(name = "member_id_generator", type = ConfigurableIdGenerator.class,
+            parameters = @Parameter(name = "sequence_name", value = "member_seq"))
     @Column(name = "member_id")
     private Long id;
 
+    // tenant 구분 컬럼. session 의 tenant 로 채워지고, JPQL / derived query 에는 tenant_id 조건이 자동으로 붙는다.
+    @TenantId
+    @Setter(AccessLevel.NONE)
+    @Column(name = "tenant_id", nullable = false, updatable = false, length = 50)
+    private String tenantId;
+
     @Column(name = "member_name")
     private String memberName;
 
     @Column(name = "member_age")
     private int age;
 
+    // 낙관적 락. primitive 타입이어야 Spring Data 의 isNew() 판단이 version 이 아닌 id 기준으로 유지된다.
+    @Version
+    @Setter(AccessLevel.NONE)
+    private long version;
+
+
+
+    @Setter(AccessLevel.NONE)
+    @Column(name = "deleted_at")
+    private LocalDateTime deletedAt;
 
 
 
-    @OneToMany(mappedBy = "member", fetch = FetchType.LAZY, cascade = CascadeType.ALL)
+    @OneToMany(mappedBy = "member", fetch = FetchType.LAZY, cascade = {CascadeType.PERSIST, CascadeType.MERGE})
+    @OrderBy("id")
     // cascade 옵션의 대상은 teamMember table
+    // REMOVE 는 cascade 하지 않는다. 삭제 시 팀원 row 는 MembershipRemover 가 건마다가 아니라 한 번에 지운다.
+    // inverse bag 이므로 로딩 전 add() 는 컬렉션을 초기화하지 않고 flush 시점까지 큐에 쌓인다.
     private List<TeamMember> teamMembers = new ArrayList<>();
 
+    /**
+     * dirty checking 으로 deleted_at 을 채운다. version 과 updated_date 도 함께 갱신되고,
+     * listener 는 deleted_at 이 채워진 @PostUpdate 를 삭제로 처리한다.
+     */
+    public void softDelete(LocalDateTime deletedAt) {
+        this.deletedAt = deletedAt;
+    }
+
+    public boolean isDeleted() {
+        return deletedAt != null;
+    }
+
     public Member(String memberName, int age) {
         this.memberName = memberName;
         this.age = age;
@@ -48,16 +100,15 @@ public class Member extends BaseTimeEntity {
         // 2. 연관관계 편의를 위해서 양방향 매핑을 위해 memberTeam 조인테이블로
         // member 와 team 을 에서도 저장.
         teamMembers.add(memberTeam);
-        team.getTeamMembers().add(memberTeam);
+        team.appendMember(memberTeam);
         // 3. member 를 save() 하면, cascade 속성으로 모두 저장됨.
     }
 
     // === 연관관계 메서드 ===
     // 해당 객체 뿐 아니라, 상대 객체의 값도 업데이트해주어야 한다.
+    // (member, team) 은 unique 하므로 TeamMember 는 한 번만 만든다.
     public void changeTeam(Team team) {
-        this.getTeamMembers().add(new TeamMember(this, team));
-        team.addMember(this);
-
+        addTeam(team);
     }
 
 
@@ -0,0 +1,57 @@
+package study.springdatajpa.entity;
+
+
+import jakarta.persistence.*;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Immutable;
+import org.hibernate.annotations.TenantId;
+
+import java.time.LocalDateTime;
+
+/**
+ * 오래 수정되지 않은 member 를 옮겨 두는 보관 테이블. MemberArchiveRepository 가 JDBC 로 채운다.
+ * partition_month(updated_date 의 yyyyMM) 는 RANGE 파티션 키로 쓰고, 오래된 달은 파티션 단위로 정리한다.
+ * id 는 원본 member_id 를 그대로 쓴다.
+ */
+@Entity
+@Immutable
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@Table(name = "member_archive", indexes = {
+        @Index(name = "idx_member_archive_partition", columnList = "partition_month"),
+        @Index(name = "idx_member_archive_tenant_age", columnList = "tenant_id, member_age")})
+public class MemberArchive {
+
+    @Id
+    @Column(name = "member_id")
+    private Long id;
+
+    // 원본 member 의 tenant 를 그대로 옮긴다.
+    @TenantId
+    @Column(name = "tenant_id", nullable = false, length = 50)
+    private String tenantId;
+
+    @Column(name = "member_name")
+    private String memberName;
+
+    @Column(name = "member_age")
+    private int age;
+
+    @Column(name = "version", nullable = false)
+    private long version;
+
+    @Column(name = "created_date", nullable = false)
+    private LocalDateTime createdDate;
+
+    @Column(name = "updated_date", nullable = false)
+    private LocalDateTime updatedDate;
+
+    @Column(name = "partition_month", nullable = false)
+    private int partitionMonth;
+
+    @Column(name = "archived_at", nullable = false)
+    private LocalDateTime archivedAt;
+
+}
@@ -0,0 +1,46 @@
+package study.springdatajpa.entity;
+
+
+import jakarta.persistence.*;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.TenantId;
+
+/**
+ * member ⟶ team_member ⟶ team 조인 결과를 미리 펼쳐 둔 조회 전용 테이블.
+ * 팀이 없는 회원은 team_id 가 null 인 row 하나로 표현된다 (left join 과 같은 결과).
+ * 쓰기는 MemberTeamViewWriter 가 entity 이벤트/벌크 연산 시점에 JDBC 로 직접 반영한다.
+ */
+@Entity
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@Table(name = "member_team_view", indexes = {
+        @Index(name = "idx_member_team_view_member_team", columnList = "member_id, team_id"),
+        @Index(name = "idx_member_team_view_team", columnList = "team_id")})
+public class MemberTeamView {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @TenantId
+    @Column(name = "tenant_id", nullable = false, updatable = false, length = 50)
+    private String tenantId;
+
+    @Column(name = "member_id", nullable = false)
+    private Long memberId;
+
+    @Column(name = "member_name")
+    private String memberName;
+
+    @Column(name = "member_age")
+    private int memberAge;
+
+    @Column(name = "team_id")
+    private Long teamId;
+
+    @Column(name = "team_name")
+    private String teamName;
+
+}
@@ -0,0 +1,62 @@
+package study.springdatajpa.entity;
+
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * transactional outbox. 변경과 같은 트랜잭션에서 저장되고, OutboxRelay 가 발행한 뒤 지운다.
+ * id 는 insert 순서대로 증가해야 같은 aggregate 의 이벤트 순서가 유지되므로 IDENTITY 를 쓴다.
+ * commit 순서와는 다를 수 있으므로 OutboxRelay 는 safety-lag 가 지난 id 까지만 전달한다.
+ */
+@Entity
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@Table(name = "outbox", indexes = @Index(name = "idx_outbox_aggregate", columnList = "aggregate_type, aggregate_id"))
+public class OutboxEvent {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "aggregate_type", nullable = false, length = 50)
+    private String aggregateType;
+
+    // 여러 aggregate 에 걸친 이벤트(벌크 update)는 null
+    @Column(name = "aggregate_id")
+    private Long aggregateId;
+
+    @Column(name = "event_type", nullable = false, length = 100)
+    private String eventType;
+
+    @Column(name = "payload", nullable = false, length = 4000)
+    private String payload;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    // 이벤트를 만든 요청의 tenant. 보관 작업처럼 tenant 구분 없이 실행된 작업의 이벤트는 null
+    @Column(name = "tenant_id", length = 50)
+    private String tenantId;
+
+    public OutboxEvent(String aggregateType, Long aggregateId, String eventType, String payload, LocalDateTime createdAt,
+                       String tenantId) {
+        this.aggregateType = aggregateType;
+        this.aggregateId = aggregateId;
+        this.eventType = eventType;
+        this.payload = payload;
+        this.createdAt = createdAt;
+        this.tenantId = tenantId;
+    }
+
+}
@@ -5,32 +5,86 @@ import jakarta.persistence.*;
 import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
+import org.hibernate.Hibernate;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+import org.hibernate.annotations.SQLRestriction;
+import org.hibernate.annotations.TenantId;
+import study.springdatajpa.entity.id.ConfigurableIdGenerator;
+import study.springdatajpa.entity.listener.MemberTeamViewListener;
+import study.springdatajpa.entity.listener.TeamMemberCountSeedListener;
+import study.springdatajpa.entity.listener.TombstoneListener;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.time.LocalDateTime;
+import java.util.LinkedHashSet;
+import java.util.Set;
 
 @Entity
 @Getter
 @NoArgsConstructor(access = AccessLevel.PROTECTED)
+@EntityListeners({MemberTeamViewListener.class, TombstoneListener.class, TeamMemberCountSeedListener.class})
+@Table(indexes = {
+        @Index(name = "idx_team_tenant_updated_date_id", columnList = "tenant_id, updated_date, team_id"),
+        @Index(name = "idx_team_deleted_at", columnList = "deleted_at")})
+// soft delete. Member 와 같다. (softDelete() 로 AuditingClock 시각을 채운다)
+@SQLRestriction("deleted_at IS NULL")
 public class Team extends BaseTimeEntity {
 
     @Id
-    @GeneratedValue
+    @GeneratedValue(generator = "team_id_generator")
+    @GenericGenerator(name = "team_id_generator", type = ConfigurableIdGenerator.class,
+            parameters = @Parameter(name = "sequence_name", value = "team_seq"))
     @Column(name = "team_id")
     private Long id;
 
+    // Member 와 같다.
+    @TenantId
+    @Column(name = "tenant_id", nullable = false, updatable = false, length = 50)
+    private String tenantId;
+
     @Column(name = "team_name")
     private String name;
 
+    // 낙관적 락. 팀원 추가(컬렉션 변경)시에도 version 이 증가한다.
+    // 팀 쪽 컬렉션은 로딩하지 않으므로, 팀원을 추가하는 서비스는 TeamRepository.findForMembershipChangeById (OPTIMISTIC_FORCE_INCREMENT) 로 팀을 읽는다.
+    @Version
+    private long version;
+
+    @Column(name = "deleted_at")
+    private LocalDateTime deletedAt;
+
 
-    @OneToMany(mappedBy = "team", fetch = FetchType.LAZY, cascade = CascadeType.ALL)
-    private List<TeamMember> teamMembers = new ArrayList<>();
+    // 팀원 수는 제한이 없으므로 이 컬렉션은 되도록 로딩하지 않는다.
+    // size() / contains() 도 전체를 로딩하므로 TeamService.countMembers / hasMember (count / exists 쿼리) 를 쓴다.
+    // bag 이 아니므로 Member.teamMembers 와 함께 fetch join 해도 MultipleBagFetchException 이 나지 않는다.
+    @OneToMany(mappedBy = "team", fetch = FetchType.LAZY, cascade = {CascadeType.PERSIST, CascadeType.MERGE})
+    @OrderBy("id")
+    private Set<TeamMember> teamMembers = new LinkedHashSet<>();
 
 
     public void addMember(Member member) {
         TeamMember teamMember = new TeamMember(member, this);
-        teamMembers.add(teamMember);
         member.getTeamMembers().add(teamMember);
+        appendMember(teamMember);
+    }
+
+    /**
+     * 팀 쪽 컬렉션이 아직 로딩되지 않았으면 건드리지 않는다.
+     * 저장은 Member.teamMembers 의 cascade 로 이루어지므로, 10만명 팀에 1명을 추가해도 10만 row 를 읽지 않는다.
+     */
+    void appendMember(TeamMember teamMember) {
+        if (Hibernate.isInitialized(teamMembers)) {
+            teamMembers.add(teamMember);
+        }
+    }
+
+    // Member.softDelete 와 같다.
+    public void softDelete(LocalDateTime deletedAt) {
+        this.deletedAt = deletedAt;
+    }
+
+    public boolean isDeleted() {
+        return deletedAt != null;
     }
 
     public Team(String name) {
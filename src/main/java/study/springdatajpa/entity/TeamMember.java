@@ -5,15 +5,33 @@ import jakarta.persistence.*;
 import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+import org.hibernate.annotations.TenantId;
+import study.springdatajpa.entity.id.ConfigurableIdGenerator;
+import study.springdatajpa.entity.listener.MemberTeamViewListener;
+import study.springdatajpa.entity.listener.TeamMemberCountListener;
 
 @Entity
 @Getter
 @NoArgsConstructor(access = AccessLevel.PROTECTED)
+@EntityListeners({TeamMemberCountListener.class, MemberTeamViewListener.class})
+@Table(uniqueConstraints = @UniqueConstraint(name = TeamMember.UNIQUE_MEMBER_TEAM, columnNames = {"member_id", "team_id"}))
 public class TeamMember {
 
-    @Id @GeneratedValue
+    public static final String UNIQUE_MEMBER_TEAM = "uk_team_member_member_team";
+
+    @Id
+    @GeneratedValue(generator = "team_member_id_generator")
+    @GenericGenerator(name = "team_member_id_generator", type = ConfigurableIdGenerator.class,
+            parameters = @Parameter(name = "sequence_name", value = "team_member_seq"))
     private Long id;
 
+    // member / team 과 같은 tenant. native insert(MERGE) 는 member 의 값을 복사한다.
+    @TenantId
+    @Column(name = "tenant_id", nullable = false, updatable = false, length = 50)
+    private String tenantId;
+
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "team_id")
     private Team team;
@@ -0,0 +1,46 @@
+package study.springdatajpa.entity;
+
+
+import jakarta.persistence.*;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Immutable;
+import org.hibernate.annotations.TenantId;
+
+import java.time.LocalDateTime;
+
+/**
+ * 보관된 member 의 team_member row. member_archive 와 같은 partition_month 로 나눈다.
+ * team 은 보관하지 않으므로 FK 를 두지 않는다.
+ */
+@Entity
+@Immutable
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@Table(name = "team_member_archive", indexes = {
+        @Index(name = "idx_team_member_archive_member", columnList = "member_id"),
+        @Index(name = "idx_team_member_archive_team", columnList = "team_id"),
+        @Index(name = "idx_team_member_archive_partition", columnList = "partition_month")})
+public class TeamMemberArchive {
+
+    @Id
+    private Long id;
+
+    @TenantId
+    @Column(name = "tenant_id", nullable = false, length = 50)
+    private String tenantId;
+
+    @Column(name = "member_id", nullable = false)
+    private Long memberId;
+
+    @Column(name = "team_id", nullable = false)
+    private Long teamId;
+
+    @Column(name = "partition_month", nullable = false)
+    private int partitionMonth;
+
+    @Column(name = "archived_at", nullable = false)
+    private LocalDateTime archivedAt;
+
+}
@@ -0,0 +1,29 @@
+package study.springdatajpa.entity;
+
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+/**
+ * 팀별 팀원 수 집계 테이블 (team.member-count.enabled=true 일 때만 갱신된다).
+ * TeamMember insert/delete 와 같은 트랜잭션에서 증감되므로 팀 목록 조회가 team_member 를 읽지 않는다.
+ */
+@Entity
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@Table(name = "team_member_count")
+public class TeamMemberCount {
+
+    @Id
+    @Column(name = "team_id")
+    private Long teamId;
+
+    @Column(name = "member_count", nullable = false)
+    private long memberCount;
+
+}
@@ -0,0 +1,47 @@
+package study.springdatajpa.entity;
+
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * 삭제된 Member / Team 의 id. 변경분 동기화(SyncService)에서 클라이언트가 지울 대상을 알려준다.
+ * 삭제와 같은 트랜잭션에서 TombstoneWriter 가 JDBC 로 쓰고, 보관 기간이 지나면 지운다.
+ */
+@Entity
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@Table(name = "tombstone", indexes = @Index(name = "idx_tombstone_tenant_type_deleted_at", columnList = "tenant_id, entity_type, deleted_at, id"))
+public class Tombstone {
+
+    public static final String MEMBER = "MEMBER";
+    public static final String TEAM = "TEAM";
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // 조회는 tenant 별로, 보관 기간 정리는 tenant 구분 없이 하므로 @TenantId 대신 조건을 직접 넣는다.
+    @Column(name = "tenant_id", nullable = false, length = 50)
+    private String tenantId;
+
+    @Column(name = "entity_type", nullable = false, length = 50)
+    private String entityType;
+
+    @Column(name = "entity_id", nullable = false)
+    private Long entityId;
+
+    @Column(name = "deleted_at", nullable = false)
+    private LocalDateTime deletedAt;
+
+}
@@ -0,0 +1,95 @@
+package study.springdatajpa.entity.id;
+
+import org.hibernate.boot.model.relational.Database;
+import org.hibernate.boot.model.relational.SqlStringGenerationContext;
+import org.hibernate.engine.config.spi.ConfigurationService;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.id.IdentifierGenerator;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+import org.hibernate.id.enhanced.StandardOptimizerDescriptor;
+import org.hibernate.service.ServiceRegistry;
+import org.hibernate.type.Type;
+
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 엔티티 id 생성 전략을 설정으로 고른다. (spring.jpa.properties 아래 값을 읽는다.)
+ * <ul>
+ *     <li>app.id.strategy = sequence (기본) : pooled-lo 시퀀스. 시퀀스 한 번 호출로 allocation-size 개의 id 를 메모리에서 나눠준다.</li>
+ *     <li>app.id.strategy = snowflake : DB 왕복 없는 시간 순 64bit id. 노드 번호는 app.id.node-id</li>
+ * </ul>
+ * allocation-size 는 app.id.allocation-size.{sequence_name} 이 있으면 그 값을, 없으면 app.id.allocation-size.default 를 쓴다.
+ * hibernate.jdbc.batch_size 이상으로 잡아야 batch insert 중간에 시퀀스를 다시 호출하지 않는다.
+ */
+public class ConfigurableIdGenerator implements IdentifierGenerator {
+
+    public static final String STRATEGY = "app.id.strategy";
+    public static final String NODE_ID = "app.id.node-id";
+    public static final String ALLOCATION_SIZE_PREFIX = "app.id.allocation-size.";
+
+    private static final int DEFAULT_ALLOCATION_SIZE = 50;
+
+    // snowflake 는 노드 번호마다 하나만 두어, 엔티티가 달라도 id 가 겹치지 않게 한다.
+    private static final Map<Long, SnowflakeIdGenerator> SNOWFLAKES = new ConcurrentHashMap<>();
+
+    private SequenceStyleGenerator sequenceGenerator;
+    private SnowflakeIdGenerator snowflakeGenerator;
+
+    @Override
+    public void configure(Type type, Properties params, ServiceRegistry serviceRegistry) {
+        Map<String, Object> settings = serviceRegistry.getService(ConfigurationService.class).getSettings();
+        String strategy = String.valueOf(settings.getOrDefault(STRATEGY, "sequence"));
+
+        switch (strategy) {
+            case "sequence" -> configureSequence(type, params, serviceRegistry, settings);
+            case "snowflake" -> snowflakeGenerator = snowflake(Long.parseLong(String.valueOf(settings.getOrDefault(NODE_ID, 0))));
+            default -> throw new IllegalArgumentException("unknown " + STRATEGY + " : " + strategy);
+        }
+    }
+
+    /**
+     * JPA 밖에서 id 를 만드는 곳(샤드 저장소)도 같은 노드의 generator 를 써야 id 가 겹치지 않는다.
+     */
+    public static SnowflakeIdGenerator snowflake(long nodeId) {
+        return SNOWFLAKES.computeIfAbsent(nodeId, SnowflakeIdGenerator::new);
+    }
+
+    private void configureSequence(Type type, Properties params, ServiceRegistry serviceRegistry, Map<String, Object> settings) {
+        String sequenceName = params.getProperty(SequenceStyleGenerator.SEQUENCE_PARAM);
+        Object allocationSize = settings.getOrDefault(ALLOCATION_SIZE_PREFIX + sequenceName,
+                settings.getOrDefault(ALLOCATION_SIZE_PREFIX + "default", DEFAULT_ALLOCATION_SIZE));
+
+        Properties sequenceParams = new Properties();
+        sequenceParams.putAll(params);
+        sequenceParams.setProperty(SequenceStyleGenerator.INCREMENT_PARAM, String.valueOf(allocationSize));
+        sequenceParams.setProperty(SequenceStyleGenerator.OPT_PARAM, StandardOptimizerDescriptor.POOLED_LO.getExternalName());
+
+        sequenceGenerator = new SequenceStyleGenerator();
+        sequenceGenerator.configure(type, sequenceParams, serviceRegistry);
+    }
+
+    @Override
+    public void registerExportables(Database database) {
+        if (sequenceGenerator != null) {
+            sequenceGenerator.registerExportables(database);
+        }
+    }
+
+    @Override
+    public void initialize(SqlStringGenerationContext context) {
+        if (sequenceGenerator != null) {
+            sequenceGenerator.initialize(context);
+        }
+    }
+
+    @Override
+    public Object generate(SharedSessionContractImplementor session, Object object) {
+        if (snowflakeGenerator != null) {
+            return snowflakeGenerator.nextId();
+        }
+        return sequenceGenerator.generate(session, object);
+    }
+
+}
@@ -0,0 +1,37 @@
+package study.springdatajpa.entity.listener;
+
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+import study.springdatajpa.entity.Member;
+import study.springdatajpa.snapshot.MemberSnapshot;
+
+/**
+ * Member 변경을 커밋 후 MemberSnapshot 에 반영한다. 롤백된 변경은 반영되지 않는다.
+ */
+@Component
+@RequiredArgsConstructor
+public class MemberSnapshotListener {
+
+    private final ObjectProvider<MemberSnapshot> memberSnapshot;
+
+    @PostPersist
+    @PostUpdate
+    public void onSave(Member member) {
+        // soft delete 도 update 로 들어온다.
+        if (member.isDeleted()) {
+            onRemove(member);
+            return;
+        }
+        memberSnapshot.getObject().memberSaved(member.getTenantId(), member.getId(), member.getMemberName(), member.getAge());
+    }
+
+    @PostRemove
+    public void onRemove(Member member) {
+        memberSnapshot.getObject().memberRemoved(member.getId());
+    }
+
+}
@@ -0,0 +1,61 @@
+package study.springdatajpa.entity.listener;
+
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+import study.springdatajpa.entity.Member;
+import study.springdatajpa.entity.Team;
+import study.springdatajpa.entity.TeamMember;
+import study.springdatajpa.repository.MemberTeamViewWriter;
+
+/**
+ * Member / Team / TeamMember 변경을 member_team_view 에 같은 트랜잭션으로 반영한다.
+ * soft delete(deleted_at 이 채워진 update)는 삭제로 반영한다.
+ */
+@Component
+@RequiredArgsConstructor
+public class MemberTeamViewListener {
+
+    private final ObjectProvider<MemberTeamViewWriter> memberTeamViewWriter;
+
+    @PostPersist
+    public void onPersist(Object entity) {
+        MemberTeamViewWriter writer = memberTeamViewWriter.getObject();
+        if (entity instanceof Member member) {
+            writer.memberCreated(member.getId(), member.getMemberName(), member.getAge());
+        } else if (entity instanceof TeamMember teamMember) {
+            Member member = teamMember.getMember();
+            Team team = teamMember.getTeam();
+            writer.membershipAdded(member.getId(), member.getMemberName(), member.getAge(), team.getId(), team.getName());
+        }
+    }
+
+    @PostUpdate
+    public void onUpdate(Object entity) {
+        MemberTeamViewWriter writer = memberTeamViewWriter.getObject();
+        if (entity instanceof Member member) {
+            if (member.isDeleted()) {
+                writer.memberRemoved(member.getId());
+            } else {
+                writer.memberUpdated(member.getId(), member.getMemberName(), member.getAge());
+            }
+        } else if (entity instanceof Team team && !team.isDeleted()) {
+            writer.teamUpdated(team.getId(), team.getName());
+        }
+    }
+
+    @PostRemove
+    public void onRemove(Object entity) {
+        MemberTeamViewWriter writer = memberTeamViewWriter.getObject();
+        if (entity instanceof Member member) {
+            writer.memberRemoved(member.getId());
+        } else if (entity instanceof TeamMember teamMember) {
+            Member member = teamMember.getMember();
+            writer.membershipRemoved(member.getId(), member.getMemberName(), member.getAge(), teamMember.getTeam().getId());
+        }
+    }
+
+}
@@ -0,0 +1,31 @@
+package study.springdatajpa.entity.listener;
+
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+import study.springdatajpa.entity.TeamMember;
+import study.springdatajpa.repository.TeamMemberCounter;
+
+/**
+ * TeamMember insert/delete 시 team_member_count 를 같은 트랜잭션 안에서 증감한다.
+ * hibernate 가 SpringBeanContainer 를 통해 생성하므로 빈 주입이 가능하다.
+ */
+@Component
+@RequiredArgsConstructor
+public class TeamMemberCountListener {
+
+    private final ObjectProvider<TeamMemberCounter> teamMemberCounter;
+
+    @PostPersist
+    public void onPersist(TeamMember teamMember) {
+        teamMemberCounter.getObject().increment(teamMember.getTeam().getId(), 1);
+    }
+
+    @PostRemove
+    public void onRemove(TeamMember teamMember) {
+        teamMemberCounter.getObject().increment(teamMember.getTeam().getId(), -1);
+    }
+
+}
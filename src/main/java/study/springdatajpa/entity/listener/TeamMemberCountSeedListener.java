@@ -0,0 +1,25 @@
+package study.springdatajpa.entity.listener;
+
+import jakarta.persistence.PostPersist;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+import study.springdatajpa.entity.Team;
+import study.springdatajpa.repository.TeamMemberCounter;
+
+/**
+ * Team insert 시 team_member_count 에 0 인 row 를 같은 트랜잭션 안에서 만든다.
+ * TeamMemberCountListener 는 TeamMember 용이라 PostPersist 를 또 둘 수 없으므로 따로 둔다.
+ */
+@Component
+@RequiredArgsConstructor
+public class TeamMemberCountSeedListener {
+
+    private final ObjectProvider<TeamMemberCounter> teamMemberCounter;
+
+    @PostPersist
+    public void onPersist(Team team) {
+        teamMemberCounter.getObject().teamCreated(team.getId());
+    }
+
+}
@@ -0,0 +1,42 @@
+package study.springdatajpa.entity.listener;
+
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+import study.springdatajpa.entity.Member;
+import study.springdatajpa.entity.Team;
+import study.springdatajpa.entity.Tombstone;
+import study.springdatajpa.repository.TombstoneWriter;
+
+/**
+ * Member / Team 삭제를 tombstone 으로 남긴다. JPQL 벌크 delete 는 listener 를 거치지 않으므로 직접 기록해야 한다.
+ * soft delete 는 deleted_at 을 채우는 update 이므로 @PostUpdate 에서 삭제 여부를 본다.
+ */
+@Component
+@RequiredArgsConstructor
+public class TombstoneListener {
+
+    private final ObjectProvider<TombstoneWriter> tombstoneWriter;
+
+    @PostUpdate
+    public void onUpdate(Object entity) {
+        // 삭제된 row 는 @SQLRestriction 으로 다시 로딩되지 않으므로, deleted_at 이 채워진 update 는 softDelete() 한 번뿐이다.
+        if (entity instanceof Member member && member.isDeleted()) {
+            onRemove(member);
+        } else if (entity instanceof Team team && team.isDeleted()) {
+            onRemove(team);
+        }
+    }
+
+    @PostRemove
+    public void onRemove(Object entity) {
+        if (entity instanceof Member member) {
+            tombstoneWriter.getObject().deleted(Tombstone.MEMBER, member.getId());
+        } else if (entity instanceof Team team) {
+            tombstoneWriter.getObject().deleted(Tombstone.TEAM, team.getId());
+        }
+    }
+
+}
@@ -0,0 +1,12 @@
+package study.springdatajpa.outbox;
+
+/**
+ * in-process 구독자. 같은 aggregate 의 이벤트는 저장 순서대로 한 번에 하나씩 전달된다.
+ * 예외를 던지면 그 이벤트와 같은 aggregate 의 뒤 이벤트는 다음 relay 주기에 다시 전달된다. (at-least-once)
+ */
+@FunctionalInterface
+public interface OutboxConsumer {
+
+    void onEvent(OutboxMessage message) throws Exception;
+
+}
@@ -0,0 +1,19 @@
+package study.springdatajpa.outbox;
+
+import study.springdatajpa.entity.OutboxEvent;
+
+import java.time.LocalDateTime;
+
+/**
+ * consumer 에게 전달되는 변경 이벤트. aggregateId 가 null 이면 여러 aggregate 에 걸친 이벤트다.
+ * tenantId 가 null 이면 tenant 구분 없이 실행된 작업(보관 등)의 이벤트다.
+ */
+public record OutboxMessage(long id, String aggregateType, Long aggregateId, String eventType, String payload,
+                            LocalDateTime createdAt, String tenantId) {
+
+    static OutboxMessage of(OutboxEvent event) {
+        return new OutboxMessage(event.getId(), event.getAggregateType(), event.getAggregateId(),
+                event.getEventType(), event.getPayload(), event.getCreatedAt(), event.getTenantId());
+    }
+
+}
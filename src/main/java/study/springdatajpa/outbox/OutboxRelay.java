@@ -0,0 +1,224 @@
+package study.springdatajpa.outbox;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import study.springdatajpa.entity.OutboxEvent;
+import study.springdatajpa.repository.OutboxEventRepository;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * outbox 테이블을 주기적으로 읽어 구독자에게 전달하고, 전달된 이벤트를 지운다.
+ * <ul>
+ *     <li>batch-size 개씩 id 순서로 읽고, 전달된 id 를 deleteAllByIdInBatch 한 번으로 지운다.</li>
+ *     <li>aggregate 마다 고정된 lane(단일 스레드)에서 전달하므로 같은 aggregate 는 순서대로, 다른 aggregate 는 병렬로 처리된다.</li>
+ *     <li>aggregateId 가 없는 이벤트(벌크 update)는 앞의 이벤트가 모두 끝난 뒤 단독으로 전달한다.</li>
+ *     <li>구독자가 실패하면 그 aggregate 의 남은 이벤트는 지우지 않고 다음 주기에 다시 전달한다. (at-least-once)</li>
+ *     <li>구독자가 하나도 없으면 이벤트는 outbox 테이블에 그대로 쌓인다.</li>
+ * </ul>
+ * IDENTITY id 는 commit 이 아니라 insert 때 정해진다. 낮은 id 를 가진 트랜잭션이 늦게 commit 하면, 높은 id 를 먼저 전달하고 지운 뒤에
+ * 낮은 id 가 나타나 같은 aggregate 의 순서가 뒤집힌다. 그래서 safety-lag 전에 보인 최대 id 까지만 전달한다.
+ * 그 id 이하는 모두 그 시점 이전에 insert 되었으므로, 가장 긴 쓰기 트랜잭션보다 lag 가 길면 이미 commit 또는 rollback 되었다.
+ * 트랜잭션은 조회와 삭제에만 짧게 쓰고, 전달하는 동안에는 커넥션을 잡지 않는다.
+ * 인스턴스마다 relay 가 돌기 때문에 여러 인스턴스로 띄울 때는 한 곳에서만 outbox.relay.enabled=true 로 둔다.
+ */
+@Component
+@Slf4j
+public class OutboxRelay {
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final boolean enabled;
+    private final int batchSize;
+    private final long safetyLagNanos;
+    private final ExecutorService[] lanes;
+    private final List<OutboxConsumer> consumers = new CopyOnWriteArrayList<>();
+
+    private final Counter published;
+    private final Counter failed;
+
+    // relay 마다 본 최대 id. safety-lag 가 지난 것부터 safeId 로 옮긴다.
+    private final Deque<Watermark> watermarks = new ArrayDeque<>();
+    // 이 id 이하는 모두 commit 또는 rollback 되었다.
+    private long safeId;
+
+    public OutboxRelay(OutboxEventRepository outboxEventRepository,
+                       MeterRegistry meterRegistry,
+                       @Value("${outbox.relay.enabled:true}") boolean enabled,
+                       @Value("${outbox.relay.batch-size:500}") int batchSize,
+                       @Value("${outbox.relay.lanes:4}") int lanes,
+                       @Value("${outbox.relay.safety-lag-ms:1000}") long safetyLagMillis) {
+        this.outboxEventRepository = outboxEventRepository;
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+        this.safetyLagNanos = Duration.ofMillis(safetyLagMillis).toNanos();
+        this.lanes = new ExecutorService[lanes];
+        for (int i = 0; i < lanes; i++) {
+            String name = "outbox-lane-" + i;
+            this.lanes[i] = Executors.newSingleThreadExecutor(runnable -> {
+                Thread thread = new Thread(runnable, name);
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        this.published = Counter.builder("outbox.published").register(meterRegistry);
+        this.failed = Counter.builder("outbox.failed").register(meterRegistry);
+    }
+
+    /**
+     * @return 구독 해제
+     */
+    public Runnable subscribe(OutboxConsumer consumer) {
+        consumers.add(consumer);
+        return () -> consumers.remove(consumer);
+    }
+
+    @Scheduled(fixedDelayString = "${outbox.relay.interval-ms:200}")
+    public void relayScheduled() {
+        if (enabled) {
+            relay();
+        }
+    }
+
+    /**
+     * 쌓인 이벤트를 더 이상 없거나 실패가 날 때까지 전달한다.
+     * 구독자가 없으면 아무에게도 전달되지 않은 채 지워지므로, 구독자가 생길 때까지 읽지도 지우지도 않는다.
+     * @return 전달하고 지운 이벤트 수
+     */
+    public synchronized int relay() {
+        if (consumers.isEmpty()) {
+            return 0;
+        }
+        long maxId = advanceSafeId();
+        int total = 0;
+        while (true) {
+            List<OutboxEvent> events = outboxEventRepository.findAllByIdLessThanEqualOrderByIdAsc(maxId, Limit.of(batchSize));
+            if (events.isEmpty()) {
+                return total;
+            }
+            List<Long> delivered = publish(events);
+            if (!delivered.isEmpty()) {
+                outboxEventRepository.deleteAllByIdInBatch(delivered);
+            }
+            total += delivered.size();
+            published.increment(delivered.size());
+            if (delivered.size() < events.size() || events.size() < batchSize) {
+                return total;
+            }
+        }
+    }
+
+    private long advanceSafeId() {
+        long now = System.nanoTime();
+        Long maxId = outboxEventRepository.findMaxId();
+        if (maxId != null) {
+            watermarks.addLast(new Watermark(now, maxId));
+        }
+        while (!watermarks.isEmpty() && now - watermarks.peekFirst().observedAt() >= safetyLagNanos) {
+            safeId = Math.max(safeId, watermarks.pollFirst().maxId());
+        }
+        return safeId;
+    }
+
+    private List<Long> publish(List<OutboxEvent> events) {
+        List<Long> delivered = new ArrayList<>(events.size());
+        List<OutboxMessage> segment = new ArrayList<>();
+        for (OutboxEvent event : events) {
+            OutboxMessage message = OutboxMessage.of(event);
+            if (message.aggregateId() != null) {
+                segment.add(message);
+                continue;
+            }
+            // barrier : 앞의 이벤트를 모두 전달한 뒤 단독으로 전달한다. 실패하면 뒤는 다음 주기로 미룬다.
+            List<Long> segmentDelivered = publishByLane(segment);
+            delivered.addAll(segmentDelivered);
+            if (segmentDelivered.size() < segment.size() || !deliver(message)) {
+                return delivered;
+            }
+            delivered.add(message.id());
+            segment.clear();
+        }
+        delivered.addAll(publishByLane(segment));
+        return delivered;
+    }
+
+    private List<Long> publishByLane(List<OutboxMessage> messages) {
+        if (messages.isEmpty()) {
+            return List.of();
+        }
+        Map<Integer, List<OutboxMessage>> byLane = new TreeMap<>();
+        for (OutboxMessage message : messages) {
+            int lane = Math.floorMod(Objects.hash(message.aggregateType(), message.aggregateId()), lanes.length);
+            byLane.computeIfAbsent(lane, k -> new ArrayList<>()).add(message);
+        }
+
+        List<CompletableFuture<List<Long>>> futures = new ArrayList<>();
+        byLane.forEach((lane, laneMessages) ->
+                futures.add(CompletableFuture.supplyAsync(() -> deliverInOrder(laneMessages), lanes[lane])));
+
+        List<Long> delivered = new ArrayList<>(messages.size());
+        futures.forEach(future -> delivered.addAll(future.join()));
+        return delivered;
+    }
+
+    // 한 lane 안에서 순서대로 전달한다. 실패한 aggregate 의 뒤 이벤트는 건너뛴다.
+    private List<Long> deliverInOrder(List<OutboxMessage> messages) {
+        List<Long> delivered = new ArrayList<>(messages.size());
+        Set<String> failedAggregates = new HashSet<>();
+        for (OutboxMessage message : messages) {
+            String aggregate = message.aggregateType() + ":" + message.aggregateId();
+            if (failedAggregates.contains(aggregate)) {
+                continue;
+            }
+            if (deliver(message)) {
+                delivered.add(message.id());
+            } else {
+                failedAggregates.add(aggregate);
+            }
+        }
+        return delivered;
+    }
+
+    private boolean deliver(OutboxMessage message) {
+        for (OutboxConsumer consumer : consumers) {
+            try {
+                consumer.onEvent(message);
+            } catch (Exception e) {
+                failed.increment();
+                log.warn("outbox delivery failed : id={}, {} {}:{}", message.id(), message.eventType(),
+                        message.aggregateType(), message.aggregateId(), e);
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @PreDestroy
+    public void close() {
+        for (ExecutorService lane : lanes) {
+            lane.shutdown();
+        }
+    }
+
+    private record Watermark(long observedAt, long maxId) {
+    }
+
+}
@@ -0,0 +1,42 @@
+package study.springdatajpa.outbox;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import study.springdatajpa.auditor.AuditingClock;
+import study.springdatajpa.entity.OutboxEvent;
+import study.springdatajpa.tenant.TenantContext;
+
+/**
+ * 변경 이벤트를 outbox 테이블에 쓴다. 반드시 변경과 같은 트랜잭션 안에서 호출해야 한다.
+ */
+@Component
+@RequiredArgsConstructor
+@Transactional(propagation = Propagation.MANDATORY)
+public class OutboxWriter {
+
+    public static final String MEMBER = "Member";
+    public static final String TEAM = "Team";
+
+    private final EntityManager em;
+    private final ObjectMapper objectMapper;
+    private final AuditingClock auditingClock;
+
+    public void append(String aggregateType, Long aggregateId, String eventType, Object payload) {
+        String tenantId = TenantContext.isSet() ? TenantContext.currentTenant() : null;
+        em.persist(new OutboxEvent(aggregateType, aggregateId, eventType, toJson(payload), auditingClock.now(), tenantId));
+    }
+
+    private String toJson(Object payload) {
+        try {
+            return objectMapper.writeValueAsString(payload);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("outbox payload is not serializable : " + payload.getClass(), e);
+        }
+    }
+
+}
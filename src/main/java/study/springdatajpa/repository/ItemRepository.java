@@ -5,5 +5,5 @@ import org.springframework.stereotype.Repository;
 import study.springdatajpa.entity.Item;
 
 @Repository
-public interface ItemRepository extends JpaRepository<Item, Long> {
+public interface ItemRepository extends JpaRepository<Item, Long>, ItemRepositoryCustom {
 }
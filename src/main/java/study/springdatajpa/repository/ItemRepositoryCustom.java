@@ -0,0 +1,14 @@
+package study.springdatajpa.repository;
+
+import study.springdatajpa.entity.Item;
+import study.springdatajpa.repository.query.ItemBulkResult;
+
+import java.util.List;
+
+public interface ItemRepositoryCustom {
+
+    ItemBulkResult insertAll(List<Item> items);
+
+    ItemBulkResult upsertAll(List<Item> items);
+
+}
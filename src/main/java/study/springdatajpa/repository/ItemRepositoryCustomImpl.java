@@ -0,0 +1,113 @@
+package study.springdatajpa.repository;
+
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import study.springdatajpa.auditor.AuditingClock;
+import study.springdatajpa.entity.Item;
+import study.springdatajpa.repository.query.ItemBulkResult;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 외부 시스템의 id 를 그대로 쓰는 Item 대량 적재.
+ * save() 는 id 가 있으면 merge 로 판단해 건마다 SELECT 후 INSERT 하므로,
+ * 엔티티 상태 판단 없이 JDBC batch 로 바로 쓴다.
+ * 영속성 컨텍스트를 거치지 않으므로 이미 로딩된 Item 에는 반영되지 않는다.
+ */
+@Repository
+@RequiredArgsConstructor
+@Transactional
+public class ItemRepositoryCustomImpl implements ItemRepositoryCustom {
+
+    private static final int CHUNK_SIZE = 1000;
+
+    private static final String INSERT_ITEM =
+            "INSERT INTO item (id, item_name, created_at) VALUES (?, ?, ?)";
+
+    // 이미 있으면 이름만 바꾸고 created_at 은 유지한다.
+    private static final String MERGE_ITEM =
+            "MERGE INTO item t " +
+            "USING (SELECT CAST(? AS BIGINT) AS id, CAST(? AS VARCHAR) AS item_name, CAST(? AS TIMESTAMP) AS created_at) s " +
+            "ON t.id = s.id " +
+            "WHEN MATCHED THEN UPDATE SET t.item_name = s.item_name " +
+            "WHEN NOT MATCHED THEN INSERT (id, item_name, created_at) VALUES (s.id, s.item_name, s.created_at)";
+
+    private final EntityManager em;
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+    private final AuditingClock auditingClock;
+
+    /**
+     * 모두 새로운 id 라고 가정한다. 이미 있는 id 가 섞여 있으면 DuplicateKeyException 으로 실패한다.
+     */
+    @Override
+    public ItemBulkResult insertAll(List<Item> items) {
+        em.flush();
+        LocalDateTime now = auditingClock.now();
+        int inserted = 0;
+        for (List<Item> chunk : chunks(distinctById(items))) {
+            for (int count : jdbcTemplate.batchUpdate(INSERT_ITEM, toArgs(chunk, now))) {
+                inserted += Math.max(count, 0);
+            }
+        }
+        return new ItemBulkResult(inserted, 0);
+    }
+
+    /**
+     * chunk 마다 존재하는 id 를 IN 쿼리 한 번으로 확인하고(건당 SELECT 없음), MERGE batch 로 반영한다.
+     */
+    @Override
+    public ItemBulkResult upsertAll(List<Item> items) {
+        em.flush();
+        LocalDateTime now = auditingClock.now();
+        int inserted = 0;
+        int updated = 0;
+        for (List<Item> chunk : chunks(distinctById(items))) {
+            Set<Long> existing = findExistingIds(chunk);
+            jdbcTemplate.batchUpdate(MERGE_ITEM, toArgs(chunk, now));
+            updated += existing.size();
+            inserted += chunk.size() - existing.size();
+        }
+        return new ItemBulkResult(inserted, updated);
+    }
+
+    private Set<Long> findExistingIds(List<Item> chunk) {
+        List<Long> ids = chunk.stream().map(Item::getId).toList();
+        return new HashSet<>(namedParameterJdbcTemplate.queryForList(
+                "SELECT id FROM item WHERE id IN (:ids)", Map.of("ids", ids), Long.class));
+    }
+
+    private List<Object[]> toArgs(List<Item> chunk, LocalDateTime now) {
+        List<Object[]> args = new ArrayList<>(chunk.size());
+        for (Item item : chunk) {
+            args.add(new Object[]{item.getId(), item.getName(), now});
+        }
+        return args;
+    }
+
+    // 같은 id 가 여러 번 오면 마지막 값을 쓴다.
+    private List<Item> distinctById(List<Item> items) {
+        Map<Long, Item> byId = new LinkedHashMap<>();
+        items.forEach(item -> byId.put(item.getId(), item));
+        return new ArrayList<>(byId.values());
+    }
+
+    private List<List<Item>> chunks(List<Item> items) {
+        List<List<Item>> chunks = new ArrayList<>();
+        for (int from = 0; from < items.size(); from += CHUNK_SIZE) {
+            chunks.add(items.subList(from, Math.min(from + CHUNK_SIZE, items.size())));
+        }
+        return chunks;
+    }
+
+}
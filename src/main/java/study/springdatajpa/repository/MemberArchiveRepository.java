@@ -0,0 +1,69 @@
+package study.springdatajpa.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import study.springdatajpa.auditor.AuditingClock;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * member / team_member 를 보관 테이블로 옮긴다. chunk 하나가 트랜잭션 하나다.
+ * insert ... select 와 delete 를 id 목록으로 묶어 보내므로 row 를 애플리케이션으로 읽어오지 않는다.
+ * 모든 tenant 를 한 번에 다루고, tenant_id 는 원본 row 의 값을 그대로 옮긴다.
+ */
+@Repository
+@RequiredArgsConstructor
+@Transactional(propagation = Propagation.MANDATORY)
+public class MemberArchiveRepository {
+
+    private static final String ARCHIVE_MEMBERS =
+            "INSERT INTO member_archive (tenant_id, member_id, member_name, member_age, version, created_date, updated_date, partition_month, archived_at) " +
+            "SELECT tenant_id, member_id, member_name, member_age, version, created_date, updated_date, " +
+            "YEAR(updated_date) * 100 + MONTH(updated_date), :archivedAt " +
+            "FROM member WHERE member_id IN (:memberIds)";
+
+    private static final String ARCHIVE_MEMBERSHIPS =
+            "INSERT INTO team_member_archive (tenant_id, id, member_id, team_id, partition_month, archived_at) " +
+            "SELECT tm.tenant_id, tm.id, tm.member_id, tm.team_id, YEAR(m.updated_date) * 100 + MONTH(m.updated_date), :archivedAt " +
+            "FROM team_member tm JOIN member m ON m.member_id = tm.member_id " +
+            "WHERE tm.member_id IN (:memberIds)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+    private final TeamMemberCounter teamMemberCounter;
+    private final MemberTeamViewWriter memberTeamViewWriter;
+    private final AuditingClock auditingClock;
+
+    /**
+     * cutoff 이전부터 수정되지 않은 회원을 잠그고 id 를 가져온다. idx_member_updated_date_id 로 찾는다.
+     * 잠근 뒤에 수정하려는 트랜잭션은 이 chunk 가 끝날 때까지 기다리고, 옮겨진 뒤에는 낙관적 락 충돌로 실패한다.
+     */
+    public List<Long> lockColdMemberIds(LocalDateTime cutoff, int limit) {
+        return jdbcTemplate.queryForList("SELECT member_id FROM member " +
+                "WHERE updated_date < ? AND deleted_at IS NULL " +
+                "ORDER BY updated_date, member_id FETCH FIRST ? ROWS ONLY FOR UPDATE", Long.class, cutoff, limit);
+    }
+
+    /**
+     * @return 옮긴 member 수
+     */
+    public int archive(List<Long> memberIds) {
+        Map<String, Object> params = Map.of("memberIds", memberIds, "archivedAt", auditingClock.now());
+        int members = namedParameterJdbcTemplate.update(ARCHIVE_MEMBERS, params);
+        namedParameterJdbcTemplate.update(ARCHIVE_MEMBERSHIPS, params);
+
+        // 운영 테이블 기준 집계/read model 에서도 빠진다.
+        teamMemberCounter.membersRemoved(memberIds);
+        memberTeamViewWriter.membersRemoved(memberIds);
+        namedParameterJdbcTemplate.update("DELETE FROM team_member WHERE member_id IN (:memberIds)", params);
+        namedParameterJdbcTemplate.update("DELETE FROM member WHERE member_id IN (:memberIds)", params);
+        return members;
+    }
+
+}
@@ -7,9 +7,15 @@ import jdk.jfr.Registered;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
+import study.springdatajpa.auditor.AuditingClock;
 import study.springdatajpa.entity.Member;
+import study.springdatajpa.outbox.OutboxWriter;
+import study.springdatajpa.snapshot.MemberSnapshot;
+import study.springdatajpa.tenant.TenantContext;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 @Repository
@@ -18,6 +24,11 @@ import java.util.Optional;
 public class MemberJpaRepository {
 
     private final EntityManager em;
+    private final MemberTeamViewWriter memberTeamViewWriter;
+    private final MembershipRemover membershipRemover;
+    private final AuditingClock auditingClock;
+    private final MemberSnapshot memberSnapshot;
+    private final OutboxWriter outboxWriter;
 
     public Optional<Member> findById(Long id) {
         return Optional.ofNullable(em.find(Member.class, id));
@@ -33,8 +44,13 @@ public class MemberJpaRepository {
         member.forEach(this::save);
     }
 
+    /**
+     * soft delete. 팀원 row 는 cascade 대신 MembershipRemover 가 벌크로 지운다.
+     */
+    @Transactional
     public void delete(Member member) {
-        em.remove(member);
+        membershipRemover.removeByMemberId(member.getId());
+        member.softDelete(auditingClock.now());
     }
 
     public List<Member> findAll() {
@@ -64,10 +80,16 @@ public class MemberJpaRepository {
      * JPA Bulk Update
      */
     public int bulkUpdateAgePlus(int age) {
-        String jpql = "update Member m set m.age = m.age + 1 where m.age = :age";
+        String jpql = "update Member m set m.age = m.age + 1, m.updatedDate = :updatedDate where m.age = :age and m.tenantId = :tenantId";
+        LocalDateTime now = auditingClock.now();
         int i = em.createQuery(jpql)
                 .setParameter("age", age)
+                .setParameter("tenantId", TenantContext.currentTenant())
+                .setParameter("updatedDate", now)
                 .executeUpdate();
+        outboxWriter.append(OutboxWriter.MEMBER, null, "MemberAgeIncremented", Map.of("age", age, "updatedDate", now.toString()));
+        memberTeamViewWriter.memberAgeIncremented(age);
+        memberSnapshot.reloadAfterCommit();
 
         // 영속성 컨텍스트와의 동기화를 위해서, flush() 와 clear()　코드 필요.
         em.flush();
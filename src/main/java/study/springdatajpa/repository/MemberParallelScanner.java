@@ -0,0 +1,155 @@
+package study.springdatajpa.repository;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.springdatajpa.config.AsyncConfig;
+import study.springdatajpa.tenant.TenantConnectionLimiter;
+import study.springdatajpa.tenant.TenantContext;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.BiConsumer;
+import java.util.stream.Collector;
+
+/**
+ * 전체 회원을 훑는 집계용 병렬 scan. member_id 범위를 partition 으로 나누고, partition 마다 memberQueryExecutor 스레드에서
+ * 자기 읽기 전용 트랜잭션(커넥션 하나)으로 projection 컬럼만 읽는다.
+ * row 는 목록에 모으지 않고 바로 Collector 의 accumulator 에 넣고, partition 결과는 combiner 로 partition 순서대로 합친다.
+ * 그래서 메모리는 전체 row 수가 아니라 partition 수 x Collector 컨테이너 크기로 정해진다.
+ * 동시에 실행하는 partition 은 executor 스레드 수(풀 크기 - 예약분)와 scan 시작 시점에 tenant 에 남은 커넥션 몫 중 작은 쪽이다.
+ * 나머지 partition 은 앞선 partition 이 끝난 lane 에서 이어서 실행하므로 tenant 몫(TenantConnectionLimiter)을 넘겨 429 가 나지 않는다.
+ * partition 마다 스냅샷이 다르므로, scan 중에 바뀐 row 는 반영될 수도 안 될 수도 있다. (보고서 용도)
+ */
+@Repository
+public class MemberParallelScanner {
+
+    private static final String MEMBER_ID_RANGE =
+            "SELECT MIN(member_id), MAX(member_id) FROM member WHERE deleted_at IS NULL AND tenant_id = ?";
+
+    // member_id 범위 조건은 PK 범위 scan 이 된다. 파라미터 순서 : tenant, from, to (양 끝 포함)
+    private static final String MEMBER_AGES =
+            "SELECT member_age FROM member WHERE deleted_at IS NULL AND tenant_id = ? AND member_id BETWEEN ? AND ?";
+
+    private static final String MEMBERSHIP_TEAM_IDS =
+            "SELECT tm.team_id FROM team_member tm " +
+            "JOIN member m ON m.member_id = tm.member_id " +
+            "JOIN team t ON t.team_id = tm.team_id AND t.deleted_at IS NULL " +
+            "WHERE m.deleted_at IS NULL AND m.tenant_id = ? AND m.member_id BETWEEN ? AND ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate readOnlyTransaction;
+    private final ThreadPoolTaskExecutor executor;
+    private final TenantConnectionLimiter tenantConnectionLimiter;
+    private final int partitions;
+
+    public MemberParallelScanner(DataSource dataSource,
+                                 PlatformTransactionManager transactionManager,
+                                 @Qualifier(AsyncConfig.MEMBER_QUERY_EXECUTOR) ThreadPoolTaskExecutor executor,
+                                 TenantConnectionLimiter tenantConnectionLimiter,
+                                 @Value("${member.scan.partitions:0}") int partitions,
+                                 @Value("${member.scan.fetch-size:1000}") int fetchSize) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setFetchSize(fetchSize);
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.executor = executor;
+        this.tenantConnectionLimiter = tenantConnectionLimiter;
+        // 스레드 수보다 잘게 나눠야 id 가 몰린 구간(예: snowflake 의 최근 시각)이 있어도 스레드가 고르게 일한다.
+        this.partitions = partitions > 0 ? partitions : executor.getMaxPoolSize() * 4;
+    }
+
+    /**
+     * 현재 tenant 의 회원 나이를 모두 collector 에 넣는다.
+     */
+    public <A, R> R scanAges(Collector<Integer, A, R> collector) {
+        return scan(MEMBER_AGES, (rs, rowNum) -> rs.getInt(1), collector);
+    }
+
+    /**
+     * 현재 tenant 회원의 팀원 row 마다 team_id 를 collector 에 넣는다. 삭제된 팀은 빠진다.
+     */
+    public <A, R> R scanMembershipTeamIds(Collector<Long, A, R> collector) {
+        return scan(MEMBERSHIP_TEAM_IDS, (rs, rowNum) -> rs.getLong(1), collector);
+    }
+
+    private <T, A, R> R scan(String sql, RowMapper<T> rowMapper, Collector<T, A, R> collector) {
+        String tenantId = TenantContext.currentTenant();
+        List<IdRange> ranges = jdbcTemplate.queryForObject(MEMBER_ID_RANGE, (rs, rowNum) -> {
+            long from = rs.getLong(1);
+            return rs.wasNull() ? List.<IdRange>of() : IdRange.split(from, rs.getLong(2), partitions);
+        }, tenantId);
+
+        // partition i 는 lane (i % parallelism) 에서 partition i - parallelism 다음에 실행된다.
+        // executor 가 포화되면 제출 시점에 TaskRejectedException
+        int parallelism = parallelism();
+        List<CompletableFuture<A>> futures = new ArrayList<>(ranges.size());
+        for (int i = 0; i < ranges.size(); i++) {
+            IdRange range = ranges.get(i);
+            futures.add(i < parallelism
+                    ? CompletableFuture.supplyAsync(() -> scanPartition(sql, rowMapper, collector, tenantId, range), executor)
+                    : futures.get(i - parallelism).thenApplyAsync(previous -> scanPartition(sql, rowMapper, collector, tenantId, range), executor));
+        }
+
+        A result = collector.supplier().get();
+        try {
+            for (CompletableFuture<A> future : futures) {
+                result = collector.combiner().apply(result, future.join());
+            }
+        } catch (CompletionException e) {
+            futures.forEach(future -> future.cancel(true));
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+        return collector.finisher().apply(result);
+    }
+
+    // tenant 가 정해지지 않은 스레드(배치)는 커넥션 몫 제한을 받지 않는다.
+    private int parallelism() {
+        int threads = executor.getMaxPoolSize();
+        if (!TenantContext.isSet()) {
+            return threads;
+        }
+        return Math.max(1, Math.min(threads, tenantConnectionLimiter.availableConnections(TenantContext.currentTenant())));
+    }
+
+    private <T, A> A scanPartition(String sql, RowMapper<T> rowMapper, Collector<T, A, ?> collector,
+                                   String tenantId, IdRange range) {
+        A container = collector.supplier().get();
+        BiConsumer<A, T> accumulator = collector.accumulator();
+        readOnlyTransaction.executeWithoutResult(status -> jdbcTemplate.query(sql,
+                (RowCallbackHandler) rs -> accumulator.accept(container, rowMapper.mapRow(rs, 0)),
+                tenantId, range.from(), range.to()));
+        return container;
+    }
+
+    record IdRange(long from, long to) {
+
+        // [min, max] 를 최대 partitions 개의 같은 폭 구간으로 나눈다.
+        static List<IdRange> split(long min, long max, int partitions) {
+            long width = (max - min) / partitions + 1;
+            List<IdRange> ranges = new ArrayList<>(partitions);
+            long from = min;
+            while (true) {
+                long to = max - from < width ? max : from + width - 1;
+                ranges.add(new IdRange(from, to));
+                if (to == max) {
+                    return ranges;
+                }
+                from = to + 1;
+            }
+        }
+    }
+
+}
@@ -0,0 +1,101 @@
+package study.springdatajpa.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import study.springdatajpa.repository.query.MemberQueryDto;
+import study.springdatajpa.repository.query.MembershipRowDto;
+import study.springdatajpa.tenant.TenantContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 회원 목록을 R2DBC 로 읽는 읽기 전용 경로. 쓰기는 계속 JPA 가 하고, 같은 테이블을 SQL 로 직접 읽는다.
+ * row 는 구독자가 요청한 만큼만 흘려보내므로 큰 목록도 한 번에 메모리에 올리지 않는다.
+ * native SQL 이므로 soft delete / tenant 조건을 직접 넣는다. tenant 는 구독 스레드가 아니라 호출 스레드에서 정한다.
+ */
+@Repository
+@RequiredArgsConstructor
+public class MemberReactiveReader {
+
+    // 정렬 속성은 SQL 에 그대로 들어가므로 허용 목록만 받는다.
+    private static final Map<String, String> SORTABLE = Map.of(
+            "id", "m.member_id",
+            "memberName", "m.member_name",
+            "age", "m.member_age");
+
+    private final DatabaseClient databaseClient;
+
+    // /member/memberDtoList
+    public Flux<MemberQueryDto> findMemberDtos(Pageable pageable) {
+        String sql = "SELECT m.member_id, m.member_name, m.member_age FROM member m " +
+                "WHERE m.deleted_at IS NULL AND m.tenant_id = :tenantId " +
+                "ORDER BY " + orderBy(pageable.getSort(), "m.member_id") + page(pageable);
+        return bindPage(databaseClient.sql(sql), pageable)
+                .bind("tenantId", TenantContext.currentTenant())
+                .map((row, metadata) -> new MemberQueryDto(row.get("member_id", Long.class),
+                        row.get("member_name", String.class), row.get("member_age", Integer.class)))
+                .all();
+    }
+
+    // MemberRepository.findMembersByTeamId 와 같은 결과. 삭제된 팀의 팀원은 나오지 않는다.
+    public Flux<MemberQueryDto> findMembersByTeamId(Long teamId, Pageable pageable) {
+        String sql = "SELECT m.member_id, m.member_name, m.member_age FROM team_member tm " +
+                "JOIN member m ON m.member_id = tm.member_id AND m.deleted_at IS NULL " +
+                "JOIN team t ON t.team_id = tm.team_id AND t.deleted_at IS NULL " +
+                "WHERE tm.team_id = :teamId AND m.tenant_id = :tenantId " +
+                "ORDER BY " + orderBy(pageable.getSort(), "m.member_id") + page(pageable);
+        return bindPage(databaseClient.sql(sql), pageable)
+                .bind("teamId", teamId)
+                .bind("tenantId", TenantContext.currentTenant())
+                .map((row, metadata) -> new MemberQueryDto(row.get("member_id", Long.class),
+                        row.get("member_name", String.class), row.get("member_age", Integer.class)))
+                .all();
+    }
+
+    // MemberRepository.findByPagingNativeProjection 과 같은 join. 팀이 없는 회원은 team 값이 null 인 row 하나.
+    public Flux<MembershipRowDto> findMemberTeamRows(Pageable pageable) {
+        String sql = "SELECT m.member_id, m.member_name, m.member_age, t.team_id, t.team_name FROM member m " +
+                "LEFT JOIN team_member tm ON m.member_id = tm.member_id " +
+                "LEFT JOIN team t ON tm.team_id = t.team_id AND t.deleted_at IS NULL " +
+                "WHERE m.deleted_at IS NULL AND m.tenant_id = :tenantId " +
+                "ORDER BY " + orderBy(pageable.getSort(), "m.member_id, t.team_id") + page(pageable);
+        return bindPage(databaseClient.sql(sql), pageable)
+                .bind("tenantId", TenantContext.currentTenant())
+                .map((row, metadata) -> new MembershipRowDto(row.get("member_id", Long.class),
+                        row.get("member_name", String.class), row.get("member_age", Integer.class),
+                        row.get("team_id", Long.class), row.get("team_name", String.class)))
+                .all();
+    }
+
+    // 요청한 정렬 뒤에 고유한 컬럼을 붙여 페이지 사이의 순서를 고정한다.
+    private static String orderBy(Sort sort, String tieBreaker) {
+        List<String> orders = new ArrayList<>();
+        for (Sort.Order order : sort) {
+            String column = SORTABLE.get(order.getProperty());
+            if (column == null) {
+                throw new IllegalArgumentException("unsupported sort property: " + order.getProperty());
+            }
+            orders.add(column + (order.isAscending() ? " ASC" : " DESC"));
+        }
+        orders.add(tieBreaker);
+        return String.join(", ", orders);
+    }
+
+    private static String page(Pageable pageable) {
+        return pageable.isPaged() ? " OFFSET :offset ROWS FETCH NEXT :size ROWS ONLY" : "";
+    }
+
+    private static DatabaseClient.GenericExecuteSpec bindPage(DatabaseClient.GenericExecuteSpec spec, Pageable pageable) {
+        if (pageable.isUnpaged()) {
+            return spec;
+        }
+        return spec.bind("offset", pageable.getOffset()).bind("size", pageable.getPageSize());
+    }
+
+}
@@ -1,7 +1,9 @@
 package study.springdatajpa.repository;
 
 
+import jakarta.persistence.LockModeType;
 import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.*;
@@ -9,8 +11,12 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import study.springdatajpa.entity.Member;
 import study.springdatajpa.entity.Team;
+import study.springdatajpa.repository.query.MemberChangeDto;
 import study.springdatajpa.repository.query.MemberQueryDto;
+import study.springdatajpa.repository.query.PageVersionDto;
+import study.springdatajpa.repository.query.VersionDto;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -48,12 +54,21 @@ public interface MemberRepository extends JpaRepository<Member, Long>, MemberRep
     @Query("SELECT new study.springdatajpa.repository.query.MemberQueryDto(m.id, m.memberName, m.age) FROM Member m JOIN m.teamMembers tm JOIN tm.team t WHERE t.id = :teamId")
     public List<MemberQueryDto> findMembersByTeamId(@Param("teamId") Long teamId);
 
+    //특정 팀에 속한 멤버 페이징 조회. count 는 team_member 만 센다.
+    @Query(value = "select new study.springdatajpa.repository.query.MemberQueryDto(m.id, m.memberName, m.age)" +
+            " from Member m join m.teamMembers tm" +
+            " where tm.team.id = :teamId",
+            countQuery = "select count(tm) from TeamMember tm where tm.team.id = :teamId")
+    Page<MemberQueryDto> findMembersByTeamId(@Param("teamId") Long teamId, Pageable pageable);
+
     @Query("select m from Member m where m.age in :ages")
     public List<Member> findByMemberAge(@Param("ages") List<Integer> ages);
 
 
     public List<Member> findAllByAge(@Param("age") Integer age);
 
+    long countByAge(@Param("age") Integer age);
+
 //    public Member findByMemberName(String memberName);
 
     public Optional<List<Member>> findByAge(@Param("age") Integer age);
@@ -65,9 +80,51 @@ public interface MemberRepository extends JpaRepository<Member, Long>, MemberRep
             countQuery = "select count(m) from Member m")
     Page<Member> findAll(Pageable pageable);
 
+    // ETag 용 메타데이터 조회. 엔티티를 로딩하지 않는다.
+    @Query("select new study.springdatajpa.repository.query.VersionDto(m.id, m.version, m.updatedDate) from Member m where m.id = :memberId")
+    Optional<VersionDto> findVersionById(@Param("memberId") Long memberId);
+
+    // 목록 ETag 용. 수정은 version/updatedDate 로, 삭제는 count 로 드러난다.
+    @Query("select new study.springdatajpa.repository.query.PageVersionDto(count(m), coalesce(sum(m.version), 0L), max(m.updatedDate)) from Member m")
+    PageVersionDto findPageVersion();
+
+    // 보관 테이블은 row 가 들어오기만 하므로 count 와 마지막 보관 시각으로 충분하다.
+    @Query("select new study.springdatajpa.repository.query.PageVersionDto(count(a), 0L, max(a.archivedAt)) from MemberArchive a")
+    PageVersionDto findArchivePageVersion();
+
+    @Query("select new study.springdatajpa.repository.query.MemberQueryDto(m.id, m.memberName, m.age) from Member m where m.id = :memberId")
+    Optional<MemberQueryDto> findDtoById(@Param("memberId") Long memberId);
+
+    @Query("select new study.springdatajpa.repository.query.MemberQueryDto(m.id, m.memberName, m.age) from Member m where m.memberName = :memberName")
+    List<MemberQueryDto> findDtosByMemberName(@Param("memberName") String memberName);
+
+    // 목록 API 용. 엔티티/연관관계를 로딩하지 않고 필요한 컬럼만 조회한다.
+    @Query(value = "select new study.springdatajpa.repository.query.MemberQueryDto(m.id, m.memberName, m.age) from Member m",
+            countQuery = "select count(m) from Member m")
+    Page<MemberQueryDto> findMemberDtos(Pageable pageable);
+
+    // 이름 검색 목록. 입력의 % / _ 는 escape 해서 문자 그대로 찾는다.
+    @Query(value = "select new study.springdatajpa.repository.query.MemberQueryDto(m.id, m.memberName, m.age) from Member m" +
+            " where m.memberName like %?#{escape([0])}% escape ?#{escapeCharacter()}",
+            countQuery = "select count(m) from Member m where m.memberName like %?#{escape([0])}% escape ?#{escapeCharacter()}")
+    Page<MemberQueryDto> findDtosByMemberNameContaining(String memberName, Pageable pageable);
+
+    // 변경분 동기화. (updated_date, id) keyset 으로 idx_member_tenant_updated_date_id 를 순서대로 읽는다.
+    @Query("select new study.springdatajpa.repository.query.MemberChangeDto(m.id, m.memberName, m.age, m.updatedDate) from Member m" +
+            " where (m.updatedDate > :since or (m.updatedDate = :since and m.id > :afterId))" +
+            " and m.updatedDate <= :until" +
+            " order by m.updatedDate, m.id")
+    List<MemberChangeDto> findChangedAfter(@Param("since") LocalDateTime since,
+                                           @Param("afterId") Long afterId,
+                                           @Param("until") LocalDateTime until,
+                                           Limit limit);
+
+    // 벌크 연산은 auditing listener 를 거치지 않으므로 updated_date 를 직접 갱신한다.
+    // 동기화 cursor 와 같은 시계를 쓰도록 updatedDate 는 호출하는 쪽에서 auditingClock.now() 로 넘긴다.
+    // 벌크 DML 에는 tenant 조건을 직접 넣는다.
     @Modifying(clearAutomatically = true)
-    @Query("update Member m set m.age = m.age + 1 where m.age >= :age")
-    public int bulkUpdateAgePlus(@Param("age") int age);
+    @Query("update Member m set m.age = m.age + 1, m.updatedDate = :updatedDate where m.age >= :age and m.tenantId = :#{tenantId}")
+    public int bulkUpdateAgePlus(@Param("age") int age, @Param("updatedDate") LocalDateTime updatedDate);
 
 
     @Query(value = "select m from Member m" +
@@ -90,6 +147,11 @@ public interface MemberRepository extends JpaRepository<Member, Long>, MemberRep
 //    @Lock(LockModeType.PESSIMISTIC_WRITE)
 //    List<Member> findAllByMemberName(String name);
 
+    // 비관적 락 (select ... for update). 낙관적 락 재시도와의 처리량 비교용
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select m from Member m where m.id = :memberId")
+    Optional<Member> findWithLockById(@Param("memberId") Long memberId);
+
 
     List<MemberNameOnlyDtoInterface> findProjectionsByMemberNameContaining(@Param("memberName") String memberName);
 
@@ -100,7 +162,10 @@ public interface MemberRepository extends JpaRepository<Member, Long>, MemberRep
     <T> List<T> findNestedProjectionByMemberNameContaining(@Param("memberName") String memberName, Class<T> clazz);
 
 
-    @Query(value = "SELECT * FROM member as m WHERE m.member_name LIKE ?", nativeQuery = true)
+    // native 쿼리에는 @SQLRestriction 이 붙지 않으므로 soft delete 조건을 직접 넣는다.
+    // native query 에는 soft delete / tenant 조건이 자동으로 붙지 않는다.
+    @Query(value = "SELECT * FROM member as m WHERE m.member_name LIKE :member_name AND m.deleted_at IS NULL" +
+            " AND m.tenant_id = :#{tenantId}", nativeQuery = true)
     List<Member> findMemberByNativeQuery(@Param("member_name") String nativeQuery);
 
     //    @Query(value = "SELECT m.member_id as id, m.member_name as memberName, t.team_name as teamName " +
@@ -112,8 +177,9 @@ public interface MemberRepository extends JpaRepository<Member, Long>, MemberRep
     @Query(value = "SELECT m.member_id as id, m.member_name as memberName, t.team_name as teamName " +
             "FROM member m " +
             "LEFT JOIN team_member tm ON m.member_id = tm.member_id " +
-            "LEFT JOIN team t ON tm.team_id = t.team_id",
-            countQuery = "SELECT count(*) FROM member",
+            "LEFT JOIN team t ON tm.team_id = t.team_id " +
+            "WHERE m.deleted_at IS NULL AND m.tenant_id = :#{tenantId}",
+            countQuery = "SELECT count(*) FROM member WHERE deleted_at IS NULL AND tenant_id = :#{tenantId}",
             nativeQuery = true)
     Page<MemberProjection> findByPagingNativeProjection(Pageable pageable);
 
@@ -1,11 +1,33 @@
 package study.springdatajpa.repository;
 
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import study.springdatajpa.entity.Member;
+import study.springdatajpa.repository.query.MemberAggregateRowDto;
+import study.springdatajpa.repository.query.MemberAggregation;
+import study.springdatajpa.repository.query.MemberBulkDeleteResult;
+import study.springdatajpa.repository.query.MemberQueryDto;
 
+import java.util.Collection;
 import java.util.List;
 
 public interface MemberRepositoryCustom {
 
     List<Member> findAllByMemberName(String memberName);
 
+    MemberBulkDeleteResult deleteAllInBulk(Collection<Long> memberIds);
+
+    /**
+     * includeArchived 면 member_archive 로 옮겨진 회원까지 합쳐서 조회한다. 정렬은 id, memberName, age 만 지원한다.
+     */
+    Page<MemberQueryDto> findMemberDtos(Pageable pageable, boolean includeArchived);
+
+    List<MemberQueryDto> findDtosByAge(int age, boolean includeArchived);
+
+    /**
+     * group by 집계를 쿼리 하나로 실행하고 group 단위로 페이징한다. 정렬은 선택한 dimension / metric 이름만 지원하고,
+     * 정렬하지 않은 dimension 이 뒤에 붙어 페이지 경계를 고정한다.
+     */
+    Page<MemberAggregateRowDto> aggregate(MemberAggregation aggregation, Pageable pageable);
+
 }
@@ -1,17 +1,70 @@
 package study.springdatajpa.repository;
 
+import jakarta.persistence.Cache;
 import jakarta.persistence.EntityManager;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.TypedQuery;
 import lombok.RequiredArgsConstructor;
+import org.hibernate.engine.spi.EntityEntry;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import study.springdatajpa.auditor.AuditingClock;
 import study.springdatajpa.entity.Member;
+import study.springdatajpa.entity.Team;
+import study.springdatajpa.entity.TeamMember;
+import study.springdatajpa.repository.query.MemberAggregateRowDto;
+import study.springdatajpa.repository.query.MemberAggregation;
+import study.springdatajpa.repository.query.MemberBulkDeleteResult;
+import study.springdatajpa.repository.query.MemberQueryDto;
+import study.springdatajpa.tenant.TenantContext;
 
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 @Repository
 @RequiredArgsConstructor
 public class MemberRepositoryCustomImpl implements MemberRepositoryCustom {
 
+    private static final int CHUNK_SIZE = 1000;
+
+    // 운영 + 보관 테이블. 보관 테이블에는 soft delete 된 row 가 없다. native SQL 이므로 tenant 조건을 직접 넣는다.
+    private static final String MEMBERS_WITH_ARCHIVE =
+            "SELECT member_id, member_name, member_age FROM member WHERE deleted_at IS NULL AND tenant_id = :tenantId%1$s " +
+            "UNION ALL " +
+            "SELECT member_id, member_name, member_age FROM member_archive WHERE tenant_id = :tenantId%2$s";
+
+    private static final String COUNT_WITH_ARCHIVE =
+            "SELECT (SELECT COUNT(*) FROM member WHERE deleted_at IS NULL AND tenant_id = :tenantId) " +
+            "+ (SELECT COUNT(*) FROM member_archive WHERE tenant_id = :tenantId)";
+
+    // 정렬 가능한 속성 -> (JPQL 경로, SQL 컬럼)
+    private static final Map<String, String[]> SORTABLE = Map.of(
+            "id", new String[]{"m.id", "member_id"},
+            "memberName", new String[]{"m.memberName", "member_name"},
+            "age", new String[]{"m.age", "member_age"});
+
+    private static final RowMapper<MemberQueryDto> MEMBER_QUERY_DTO =
+            (rs, rowNum) -> new MemberQueryDto(rs.getLong(1), rs.getString(2), rs.getInt(3));
+
     private final EntityManager em;
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+    private final MembershipRemover membershipRemover;
+    private final MemberTeamViewWriter memberTeamViewWriter;
+    private final AuditingClock auditingClock;
 
     @Override
     public List<Member> findAllByMemberName(String memberName) {
@@ -20,4 +73,209 @@ public class MemberRepositoryCustomImpl implements MemberRepositoryCustom {
                 .setParameter("memberName", memberName)
                 .getResultList();
     }
+
+    /**
+     * 여러 회원을 엔티티 로딩 없이 삭제(soft delete)한다.
+     * team_member 는 member_id IN 벌크 delete, member 는 벌크 update 한 문장씩이므로 회원/팀원 수와 관계없이 chunk 당 문장 수가 일정하다.
+     * entity listener 를 거치지 않으므로 read model 은 여기서 같이 반영하고, 영속성 컨텍스트와 2차 캐시에 남은 해당 엔티티는 제거한다.
+     * tombstone / snapshot / outbox 는 deleteMember 와 마찬가지로 MemberService.deleteMembers 가 결과의 deletedIds 로 남긴다.
+     */
+    @Override
+    @Transactional
+    public MemberBulkDeleteResult deleteAllInBulk(Collection<Long> memberIds) {
+        if (memberIds.isEmpty()) {
+            return new MemberBulkDeleteResult(0, 0, List.of());
+        }
+        // 쓰기 지연 저장소의 insert 가 벌크 delete 뒤에 나가지 않도록 먼저 내보낸다.
+        em.flush();
+        LocalDateTime now = auditingClock.now();
+
+        List<Long> ids = new ArrayList<>(new LinkedHashSet<>(memberIds));
+        Set<Long> deletedIds = new LinkedHashSet<>();
+        for (int from = 0; from < ids.size(); from += CHUNK_SIZE) {
+            // 이미 삭제됐거나 없는 id 는 @SQLRestriction 으로 빠진다.
+            deletedIds.addAll(em.createQuery("select m.id from Member m where m.id in :memberIds", Long.class)
+                    .setParameter("memberIds", ids.subList(from, Math.min(from + CHUNK_SIZE, ids.size())))
+                    .getResultList());
+        }
+        if (deletedIds.isEmpty()) {
+            return new MemberBulkDeleteResult(0, 0, List.of());
+        }
+
+        int memberships = membershipRemover.removeByMemberIds(deletedIds);
+        List<Long> targets = List.copyOf(deletedIds);
+        int members = 0;
+        for (int from = 0; from < targets.size(); from += CHUNK_SIZE) {
+            members += em.createQuery("update Member m set m.deletedAt = :deletedAt, m.version = m.version + 1" +
+                            " where m.id in :memberIds and m.deletedAt is null")
+                    .setParameter("deletedAt", now)
+                    .setParameter("memberIds", targets.subList(from, Math.min(from + CHUNK_SIZE, targets.size())))
+                    .executeUpdate();
+        }
+
+        for (int from = 0; from < targets.size(); from += CHUNK_SIZE) {
+            memberTeamViewWriter.membersRemoved(targets.subList(from, Math.min(from + CHUNK_SIZE, targets.size())));
+        }
+        evict(deletedIds);
+        return new MemberBulkDeleteResult(members, memberships, targets);
+    }
+
+    @Override
+    public Page<MemberQueryDto> findMemberDtos(Pageable pageable, boolean includeArchived) {
+        if (!includeArchived) {
+            TypedQuery<MemberQueryDto> query = em.createQuery("select new study.springdatajpa.repository.query.MemberQueryDto(m.id, m.memberName, m.age)" +
+                    " from Member m order by " + orderBy(pageable.getSort(), 0), MemberQueryDto.class);
+            if (pageable.isPaged()) {
+                query.setFirstResult((int) pageable.getOffset()).setMaxResults(pageable.getPageSize());
+            }
+            return PageableExecutionUtils.getPage(query.getResultList(), pageable,
+                    () -> em.createQuery("select count(m) from Member m", Long.class).getSingleResult());
+        }
+
+        String sql = "SELECT member_id, member_name, member_age FROM (" + MEMBERS_WITH_ARCHIVE.formatted("", "") + ") m" +
+                " ORDER BY " + orderBy(pageable.getSort(), 1);
+        MapSqlParameterSource params = new MapSqlParameterSource("tenantId", TenantContext.currentTenant());
+        if (pageable.isPaged()) {
+            sql += " OFFSET :offset ROWS FETCH NEXT :size ROWS ONLY";
+            params.addValue("offset", pageable.getOffset()).addValue("size", pageable.getPageSize());
+        }
+        List<MemberQueryDto> content = namedParameterJdbcTemplate.query(sql, params, MEMBER_QUERY_DTO);
+        return PageableExecutionUtils.getPage(content, pageable,
+                () -> namedParameterJdbcTemplate.queryForObject(COUNT_WITH_ARCHIVE, params, Long.class));
+    }
+
+    @Override
+    public List<MemberQueryDto> findDtosByAge(int age, boolean includeArchived) {
+        if (!includeArchived) {
+            return em.createQuery("select new study.springdatajpa.repository.query.MemberQueryDto(m.id, m.memberName, m.age)" +
+                            " from Member m where m.age = :age order by m.id", MemberQueryDto.class)
+                    .setParameter("age", age)
+                    .getResultList();
+        }
+        String sql = "SELECT member_id, member_name, member_age FROM (" +
+                MEMBERS_WITH_ARCHIVE.formatted(" AND member_age = :age", " AND member_age = :age") + ") m ORDER BY member_id";
+        return namedParameterJdbcTemplate.query(sql, Map.of("age", age, "tenantId", TenantContext.currentTenant()), MEMBER_QUERY_DTO);
+    }
+
+    /**
+     * select / group by / having 은 MemberAggregation 의 허용된 식으로만 만든다. tenant / soft delete 조건은 엔티티에서 붙는다.
+     * 전체 group 수는 같은 group by 를 derived table 로 감싸 센다.
+     */
+    @Override
+    public Page<MemberAggregateRowDto> aggregate(MemberAggregation aggregation, Pageable pageable) {
+        List<MemberAggregation.Dimension> dimensions = aggregation.getDimensions();
+        List<MemberAggregation.Metric> metrics = aggregation.getMetrics();
+
+        List<String> select = new ArrayList<>();
+        Map<String, String> sortable = new HashMap<>();
+        for (int i = 0; i < dimensions.size(); i++) {
+            select.add(dimensions.get(i).getExpression() + " as d" + i);
+            sortable.put(dimensions.get(i).getName(), dimensions.get(i).getExpression());
+        }
+        for (int i = 0; i < metrics.size(); i++) {
+            select.add(metrics.get(i).getExpression() + " as m" + i);
+            sortable.put(metrics.get(i).getName(), metrics.get(i).getExpression());
+        }
+
+        StringBuilder body = new StringBuilder(" from Member m");
+        if (aggregation.joinsTeam()) {
+            body.append(" join m.teamMembers tm join tm.team t");
+        }
+        if (!dimensions.isEmpty()) {
+            body.append(" group by ").append(String.join(", ", dimensions.stream().map(MemberAggregation.Dimension::getExpression).toList()));
+        }
+        List<MemberAggregation.Having> havings = aggregation.getHavings();
+        for (int i = 0; i < havings.size(); i++) {
+            MemberAggregation.Having having = havings.get(i);
+            body.append(i == 0 ? " having " : " and ")
+                    .append(having.getMetric().getExpression()).append(' ')
+                    .append(having.getComparison().getOperator()).append(" :having").append(i);
+        }
+
+        String selectClause = "select " + String.join(", ", select);
+        TypedQuery<Tuple> query = em.createQuery(selectClause + body + aggregateOrderBy(pageable.getSort(), sortable, dimensions), Tuple.class);
+        bindHavings(query, havings);
+        if (pageable.isPaged()) {
+            query.setFirstResult((int) pageable.getOffset()).setMaxResults(pageable.getPageSize());
+        }
+        List<MemberAggregateRowDto> content = query.getResultList().stream()
+                .map(tuple -> {
+                    List<Object> keys = new ArrayList<>(dimensions.size());
+                    List<Number> values = new ArrayList<>(metrics.size());
+                    for (int i = 0; i < dimensions.size(); i++) {
+                        keys.add(tuple.get(i));
+                    }
+                    for (int i = 0; i < metrics.size(); i++) {
+                        values.add((Number) tuple.get(dimensions.size() + i));
+                    }
+                    return new MemberAggregateRowDto(keys, values);
+                })
+                .toList();
+
+        return PageableExecutionUtils.getPage(content, pageable, () -> {
+            TypedQuery<Long> count = em.createQuery("select count(*) from (" + selectClause + body + ") g", Long.class);
+            bindHavings(count, havings);
+            return count.getSingleResult();
+        });
+    }
+
+    private static String aggregateOrderBy(Sort sort, Map<String, String> sortable, List<MemberAggregation.Dimension> dimensions) {
+        List<String> orders = new ArrayList<>();
+        List<String> sorted = new ArrayList<>();
+        for (Sort.Order order : sort) {
+            String expression = sortable.get(order.getProperty());
+            if (expression == null) {
+                throw new IllegalArgumentException("unsupported sort property: " + order.getProperty());
+            }
+            orders.add(expression + (order.isAscending() ? " asc" : " desc"));
+            sorted.add(expression);
+        }
+        for (MemberAggregation.Dimension dimension : dimensions) {
+            if (!sorted.contains(dimension.getExpression())) {
+                orders.add(dimension.getExpression() + " asc");
+            }
+        }
+        return orders.isEmpty() ? "" : " order by " + String.join(", ", orders);
+    }
+
+    private static void bindHavings(TypedQuery<?> query, List<MemberAggregation.Having> havings) {
+        for (int i = 0; i < havings.size(); i++) {
+            query.setParameter("having" + i, havings.get(i).getValue());
+        }
+    }
+
+    // 정렬 속성은 SQL 에 그대로 들어가므로 허용 목록만 받는다. id 를 마지막에 붙여 페이지 경계를 고정한다.
+    private String orderBy(Sort sort, int column) {
+        List<String> orders = new ArrayList<>();
+        for (Sort.Order order : sort) {
+            String[] paths = SORTABLE.get(order.getProperty());
+            if (paths == null) {
+                throw new IllegalArgumentException("unsupported sort property: " + order.getProperty());
+            }
+            orders.add(paths[column] + (order.isAscending() ? " asc" : " desc"));
+        }
+        orders.add(SORTABLE.get("id")[column] + " asc");
+        return String.join(", ", orders);
+    }
+
+    private void evict(Set<Long> memberIds) {
+        Cache cache = em.getEntityManagerFactory().getCache();
+        memberIds.forEach(memberId -> cache.evict(Member.class, memberId));
+        cache.evict(TeamMember.class);
+        org.hibernate.Cache hibernateCache = cache.unwrap(org.hibernate.Cache.class);
+        hibernateCache.evictCollectionData(Member.class.getName() + ".teamMembers");
+        hibernateCache.evictCollectionData(Team.class.getName() + ".teamMembers");
+
+        // 이미 로딩된 Member / TeamMember 가 이후 flush 되거나 조회 결과로 재사용되지 않게 분리한다.
+        List<Object> stale = new ArrayList<>();
+        for (Map.Entry<Object, EntityEntry> entry : em.unwrap(SessionImplementor.class).getPersistenceContextInternal().reentrantSafeEntityEntries()) {
+            Object entity = entry.getKey();
+            if (entity instanceof Member member && memberIds.contains(member.getId())
+                    || entity instanceof TeamMember teamMember && memberIds.contains(teamMember.getMember().getId())) {
+                stale.add(entity);
+            }
+        }
+        stale.forEach(em::detach);
+    }
+
 }
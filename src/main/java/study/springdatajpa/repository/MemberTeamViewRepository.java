@@ -0,0 +1,30 @@
+package study.springdatajpa.repository;
+
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import study.springdatajpa.entity.MemberTeamView;
+
+import java.util.List;
+
+@Repository
+public interface MemberTeamViewRepository extends JpaRepository<MemberTeamView, Long> {
+
+    // findByPagingNativeProjection 과 같은 결과를 조인 없이 단일 테이블에서 읽는다.
+    @Query(value = "select v.memberId as id, v.memberName as memberName, v.teamName as teamName" +
+            " from MemberTeamView v" +
+            " order by v.memberId, v.teamId",
+            countQuery = "select count(v) from MemberTeamView v")
+    Page<MemberProjection> findMemberTeamPage(Pageable pageable);
+
+    @Query("select v.memberId as id, v.memberName as memberName, v.teamName as teamName" +
+            " from MemberTeamView v" +
+            " where v.teamId = :teamId" +
+            " order by v.memberId")
+    List<MemberProjection> findByTeamId(@Param("teamId") Long teamId);
+
+}
@@ -0,0 +1,185 @@
+package study.springdatajpa.repository;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import study.springdatajpa.repository.query.MemberTeamViewConsistency;
+import study.springdatajpa.tenant.TenantContext;
+
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * member_team_view 증분 갱신.
+ * entity listener(flush 도중)에서 호출되므로 EntityManager 대신 JdbcTemplate 으로 같은 트랜잭션에 쓰고,
+ * 아직 flush 되지 않았을 수 있는 원본 테이블은 읽지 않고 넘겨받은 값만 사용한다.
+ * 새 row 의 tenant_id 는 현재 tenant 로 채운다. id 로 찾는 update/delete 는 id 가 tenant 를 넘어 겹치지 않으므로 조건을 넣지 않는다.
+ */
+@Repository
+@Slf4j
+public class MemberTeamViewWriter {
+
+    private static final String SOURCE_JOIN =
+            "SELECT m.tenant_id, m.member_id, m.member_name, m.member_age, t.team_id, t.team_name " +
+            "FROM member m " +
+            "LEFT JOIN team_member tm ON m.member_id = tm.member_id " +
+            "LEFT JOIN team t ON tm.team_id = t.team_id " +
+            "WHERE m.deleted_at IS NULL";
+
+    private static final String VIEW_ROWS =
+            "SELECT tenant_id, member_id, member_name, member_age, team_id, team_name FROM member_team_view";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+    private final boolean enabled;
+
+    public MemberTeamViewWriter(JdbcTemplate jdbcTemplate, @Value("${member.team-view.enabled:false}") boolean enabled) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.namedParameterJdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+        this.enabled = enabled;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void memberCreated(Long memberId, String memberName, int age) {
+        if (!enabled) {
+            return;
+        }
+        jdbcTemplate.update("INSERT INTO member_team_view (tenant_id, member_id, member_name, member_age) VALUES (?, ?, ?, ?)",
+                TenantContext.currentTenant(), memberId, memberName, age);
+    }
+
+    public void memberUpdated(Long memberId, String memberName, int age) {
+        if (!enabled) {
+            return;
+        }
+        jdbcTemplate.update("UPDATE member_team_view SET member_name = ?, member_age = ? WHERE member_id = ?",
+                memberName, age, memberId);
+    }
+
+    public void memberRemoved(Long memberId) {
+        if (!enabled) {
+            return;
+        }
+        jdbcTemplate.update("DELETE FROM member_team_view WHERE member_id = ?", memberId);
+    }
+
+    public void membersRemoved(Collection<Long> memberIds) {
+        if (!enabled || memberIds.isEmpty()) {
+            return;
+        }
+        namedParameterJdbcTemplate.update("DELETE FROM member_team_view WHERE member_id IN (:memberIds)", Map.of("memberIds", memberIds));
+    }
+
+    public void teamUpdated(Long teamId, String teamName) {
+        if (!enabled) {
+            return;
+        }
+        jdbcTemplate.update("UPDATE member_team_view SET team_name = ? WHERE team_id = ?", teamName, teamId);
+    }
+
+    /**
+     * 팀 삭제로 팀원 row 를 벌크로 지운 경우. 다른 팀이 남은 회원은 row 를 지우고, 이 팀뿐이던 회원은 팀 없는 row 로 바꾼다.
+     */
+    public void teamRemoved(Long teamId) {
+        if (!enabled) {
+            return;
+        }
+        jdbcTemplate.update("DELETE FROM member_team_view v WHERE v.team_id = ? " +
+                "AND EXISTS (SELECT 1 FROM member_team_view o WHERE o.member_id = v.member_id AND o.team_id <> ?)", teamId, teamId);
+        jdbcTemplate.update("UPDATE member_team_view SET team_id = NULL, team_name = NULL WHERE team_id = ?", teamId);
+    }
+
+    public void membershipAdded(Long memberId, String memberName, int age, Long teamId, String teamName) {
+        if (!enabled) {
+            return;
+        }
+        // 팀이 없던 회원이면 placeholder row 를 채우고, 아니면 row 를 하나 더 만든다.
+        int updated = jdbcTemplate.update("UPDATE member_team_view SET team_id = ?, team_name = ? " +
+                "WHERE member_id = ? AND team_id IS NULL", teamId, teamName, memberId);
+        if (updated == 0) {
+            jdbcTemplate.update("INSERT INTO member_team_view (tenant_id, member_id, member_name, member_age, team_id, team_name) " +
+                    "VALUES (?, ?, ?, ?, ?, ?)", TenantContext.currentTenant(), memberId, memberName, age, teamId, teamName);
+        }
+    }
+
+    /**
+     * native upsert 경로용. 이 시점에는 member/team 이 이미 flush 되어 있으므로 원본 테이블에서 값을 읽는다.
+     */
+    public void membershipAdded(Long memberId, Long teamId) {
+        if (!enabled) {
+            return;
+        }
+        int updated = jdbcTemplate.update("UPDATE member_team_view SET team_id = ?, " +
+                "team_name = (SELECT t.team_name FROM team t WHERE t.team_id = ?) " +
+                "WHERE member_id = ? AND team_id IS NULL", teamId, teamId, memberId);
+        if (updated == 0) {
+            jdbcTemplate.update("INSERT INTO member_team_view (tenant_id, member_id, member_name, member_age, team_id, team_name) " +
+                    "SELECT m.tenant_id, m.member_id, m.member_name, m.member_age, t.team_id, t.team_name " +
+                    "FROM member m, team t WHERE m.member_id = ? AND t.team_id = ?", memberId, teamId);
+        }
+    }
+
+    public void membershipRemoved(Long memberId, String memberName, int age, Long teamId) {
+        if (!enabled) {
+            return;
+        }
+        jdbcTemplate.update("DELETE FROM member_team_view WHERE member_id = ? AND team_id = ?", memberId, teamId);
+        // 마지막 팀에서 빠지면 left join 결과처럼 팀 없는 row 를 남긴다.
+        jdbcTemplate.update("INSERT INTO member_team_view (tenant_id, member_id, member_name, member_age) " +
+                "SELECT CAST(? AS VARCHAR), CAST(? AS BIGINT), CAST(? AS VARCHAR), CAST(? AS INTEGER) FROM DUAL " +
+                "WHERE NOT EXISTS (SELECT 1 FROM member_team_view WHERE member_id = ?)",
+                TenantContext.currentTenant(), memberId, memberName, age, memberId);
+    }
+
+    /**
+     * MemberRepository.bulkUpdateAgePlus 와 같은 조건으로 view 도 set-based 로 갱신한다.
+     */
+    public void memberAgesIncremented(int fromAge) {
+        if (!enabled) {
+            return;
+        }
+        jdbcTemplate.update("UPDATE member_team_view SET member_age = member_age + 1 WHERE member_age >= ? AND tenant_id = ?",
+                fromAge, TenantContext.currentTenant());
+    }
+
+    /**
+     * MemberJpaRepository.bulkUpdateAgePlus (age = :age 조건) 용.
+     */
+    public void memberAgeIncremented(int age) {
+        if (!enabled) {
+            return;
+        }
+        jdbcTemplate.update("UPDATE member_team_view SET member_age = member_age + 1 WHERE member_age = ? AND tenant_id = ?",
+                age, TenantContext.currentTenant());
+    }
+
+    public MemberTeamViewConsistency check() {
+        Long missing = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM (" + SOURCE_JOIN + " EXCEPT " + VIEW_ROWS + ")", Long.class);
+        Long stale = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM (" + VIEW_ROWS + " EXCEPT " + SOURCE_JOIN + ")", Long.class);
+        return new MemberTeamViewConsistency(missing, stale);
+    }
+
+    @Transactional
+    public int rebuild() {
+        jdbcTemplate.update("DELETE FROM member_team_view");
+        int rows = jdbcTemplate.update("INSERT INTO member_team_view (tenant_id, member_id, member_name, member_age, team_id, team_name) " + SOURCE_JOIN);
+        log.info("member_team_view rebuilt : {} rows", rows);
+        return rows;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildOnStartup() {
+        if (enabled) {
+            rebuild();
+        }
+    }
+
+}
@@ -0,0 +1,75 @@
+package study.springdatajpa.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import study.springdatajpa.repository.query.MembershipIdDto;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * 회원/팀 삭제 시 team_member row 를 정리한다.
+ * cascade remove 는 row 마다 로딩 + delete 를 하므로, id 만 조회해 deleteAllByIdInBatch 로 chunk 단위 delete 를 보낸다.
+ * 벌크 delete 는 entity listener 를 거치지 않으므로 집계/read model 은 여기서 set-based 로 맞춘다.
+ */
+@Repository
+@RequiredArgsConstructor
+@Transactional(propagation = Propagation.MANDATORY)
+public class MembershipRemover {
+
+    private static final int CHUNK_SIZE = 1000;
+
+    private final TeamMemberRepository teamMemberRepository;
+    private final TeamMemberCounter teamMemberCounter;
+    private final MemberTeamViewWriter memberTeamViewWriter;
+
+    /**
+     * member_team_view 의 회원 row 는 Member 의 remove 이벤트(MemberTeamViewListener)에서 지워진다.
+     */
+    public int removeByMemberId(Long memberId) {
+        return removeByMemberIds(List.of(memberId));
+    }
+
+    public int removeByTeamId(Long teamId) {
+        int removed = remove(teamMemberRepository.findMembershipIdsByTeamId(teamId));
+        if (removed > 0) {
+            memberTeamViewWriter.teamRemoved(teamId);
+        }
+        return removed;
+    }
+
+    /**
+     * 여러 회원의 팀원 row 를 member_id IN 조건의 벌크 delete 로 지운다.
+     * id 를 읽어오지 않으므로 팀원 수와 관계없이 chunk(회원 1000명) 당 문장 수가 일정하다.
+     * 회원 삭제용이므로 member_team_view 의 회원 row 는 호출하는 쪽에서 지운다.
+     */
+    public int removeByMemberIds(Collection<Long> memberIds) {
+        List<Long> ids = List.copyOf(memberIds);
+        int removed = 0;
+        for (int from = 0; from < ids.size(); from += CHUNK_SIZE) {
+            List<Long> chunk = ids.subList(from, Math.min(from + CHUNK_SIZE, ids.size()));
+            teamMemberCounter.membersRemoved(chunk);
+            removed += teamMemberRepository.deleteAllByMemberIdIn(chunk);
+        }
+        return removed;
+    }
+
+    private int remove(List<MembershipIdDto> memberships) {
+        if (memberships.isEmpty()) {
+            return 0;
+        }
+        List<Long> ids = memberships.stream().map(MembershipIdDto::getId).toList();
+        for (int from = 0; from < ids.size(); from += CHUNK_SIZE) {
+            teamMemberRepository.deleteAllByIdInBatch(ids.subList(from, Math.min(from + CHUNK_SIZE, ids.size())));
+        }
+        Map<Long, Long> deltaByTeamId = memberships.stream()
+                .collect(Collectors.groupingBy(MembershipIdDto::getTeamId, Collectors.reducing(0L, membership -> -1L, Long::sum)));
+        teamMemberCounter.incrementAll(deltaByTeamId);
+        return memberships.size();
+    }
+
+}
@@ -0,0 +1,22 @@
+package study.springdatajpa.repository;
+
+
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import study.springdatajpa.entity.OutboxEvent;
+
+import java.util.List;
+
+@Repository
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+
+    // 발행 대기 이벤트 중 id 가 maxId 이하인 것을 저장 순서대로 limit 개 읽는다.
+    List<OutboxEvent> findAllByIdLessThanEqualOrderByIdAsc(Long maxId, Limit limit);
+
+    // 지금 보이는(commit 된) 가장 큰 id. 없으면 null
+    @Query("select max(e.id) from OutboxEvent e")
+    Long findMaxId();
+
+}
@@ -0,0 +1,50 @@
+package study.springdatajpa.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * soft delete 된 row 의 실제 삭제.
+ * JPQL 에는 @SQLRestriction(deleted_at IS NULL) 이 붙어 삭제된 row 가 보이지 않으므로 JDBC 로 직접 지운다.
+ * 팀원 row 는 삭제 시점에 MembershipRemover 가 이미 지웠지만, 그 경로를 거치지 않은 삭제가 남긴 row 도 함께 지운다.
+ */
+@Repository
+@RequiredArgsConstructor
+@Transactional(propagation = Propagation.MANDATORY)
+public class SoftDeletePurgeRepository {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+    public List<Long> findDeletedMemberIds(LocalDateTime before, int limit) {
+        return jdbcTemplate.queryForList("SELECT member_id FROM member WHERE deleted_at < ? " +
+                "ORDER BY member_id FETCH FIRST ? ROWS ONLY", Long.class, before, limit);
+    }
+
+    public List<Long> findDeletedTeamIds(LocalDateTime before, int limit) {
+        return jdbcTemplate.queryForList("SELECT team_id FROM team WHERE deleted_at < ? " +
+                "ORDER BY team_id FETCH FIRST ? ROWS ONLY", Long.class, before, limit);
+    }
+
+    public int purgeMembers(List<Long> memberIds) {
+        Map<String, List<Long>> params = Map.of("ids", memberIds);
+        namedParameterJdbcTemplate.update("DELETE FROM team_member WHERE member_id IN (:ids)", params);
+        return namedParameterJdbcTemplate.update("DELETE FROM member WHERE member_id IN (:ids) AND deleted_at IS NOT NULL", params);
+    }
+
+    public int purgeTeams(List<Long> teamIds) {
+        Map<String, List<Long>> params = Map.of("ids", teamIds);
+        namedParameterJdbcTemplate.update("DELETE FROM team_member WHERE team_id IN (:ids)", params);
+        namedParameterJdbcTemplate.update("DELETE FROM team_member_count WHERE team_id IN (:ids)", params);
+        return namedParameterJdbcTemplate.update("DELETE FROM team WHERE team_id IN (:ids) AND deleted_at IS NOT NULL", params);
+    }
+
+}
@@ -0,0 +1,115 @@
+package study.springdatajpa.repository;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * team_member_count 테이블 갱신.
+ * entity listener(flush 도중)에서도 호출되므로 EntityManager 가 아닌 JdbcTemplate 으로 같은 커넥션/트랜잭션에 직접 쓴다.
+ */
+@Repository
+@Slf4j
+public class TeamMemberCounter {
+
+    // 팀이 생길 때 0 으로 만들어 둔다.
+    private static final String SEED = "INSERT INTO team_member_count (team_id, member_count) VALUES (?, 0)";
+
+    // 보통은 seed 된 row 의 UPDATE 다. INSERT 쪽은 seed 되지 않은 팀(기능을 켜기 전에 만든 팀, rebuild 전) 용이다.
+    private static final String INCREMENT =
+            "MERGE INTO team_member_count c " +
+            "USING (SELECT CAST(? AS BIGINT) AS team_id) s " +
+            "ON c.team_id = s.team_id " +
+            "WHEN MATCHED THEN UPDATE SET c.member_count = c.member_count + ? " +
+            "WHEN NOT MATCHED THEN INSERT (team_id, member_count) VALUES (s.team_id, ?)";
+
+    // team_member 를 지우기 전에 호출한다. 지워질 row 수를 팀별로 세서 한 문장으로 뺀다.
+    private static final String DECREMENT_FOR_MEMBERS =
+            "UPDATE team_member_count c SET member_count = member_count - " +
+            "(SELECT COUNT(*) FROM team_member tm WHERE tm.team_id = c.team_id AND tm.member_id IN (:memberIds)) " +
+            "WHERE c.team_id IN (SELECT team_id FROM team_member WHERE member_id IN (:memberIds))";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+    private final boolean enabled;
+
+    public TeamMemberCounter(JdbcTemplate jdbcTemplate, @Value("${team.member-count.enabled:false}") boolean enabled) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.namedParameterJdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+        this.enabled = enabled;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Team insert 와 같은 트랜잭션에서 호출한다. 첫 팀원 추가도 이미 있는 row 의 UPDATE(row lock) 가 되므로,
+     * 동시에 첫 팀원을 추가하는 두 트랜잭션이 둘 다 MERGE 의 INSERT 로 가서 한쪽이 duplicate key 로 실패하지 않는다.
+     */
+    public void teamCreated(Long teamId) {
+        if (!enabled || teamId == null) {
+            return;
+        }
+        jdbcTemplate.update(SEED, teamId);
+    }
+
+    public void increment(Long teamId, long delta) {
+        if (!enabled || teamId == null || delta == 0) {
+            return;
+        }
+        jdbcTemplate.update(INCREMENT, teamId, delta, delta);
+    }
+
+    /**
+     * 팀별 증감을 JDBC batch 한 번으로 반영한다. 벌크 delete 처럼 listener 를 거치지 않는 경로용.
+     */
+    public void incrementAll(Map<Long, Long> deltaByTeamId) {
+        if (!enabled || deltaByTeamId.isEmpty()) {
+            return;
+        }
+        List<Object[]> args = new ArrayList<>(deltaByTeamId.size());
+        deltaByTeamId.forEach((teamId, delta) -> args.add(new Object[]{teamId, delta, delta}));
+        jdbcTemplate.batchUpdate(INCREMENT, args);
+    }
+
+    /**
+     * 회원들의 팀원 row 를 벌크로 지우기 직전에 호출한다.
+     */
+    public void membersRemoved(Collection<Long> memberIds) {
+        if (!enabled || memberIds.isEmpty()) {
+            return;
+        }
+        namedParameterJdbcTemplate.update(DECREMENT_FOR_MEMBERS, Map.of("memberIds", memberIds));
+    }
+
+    /**
+     * team_member 기준으로 전체를 다시 계산한다. 기능을 중간에 켰거나 값이 어긋났을 때 사용.
+     * 팀원이 없는 팀도 0 으로 seed 한다.
+     */
+    @Transactional
+    public void rebuild() {
+        jdbcTemplate.update("DELETE FROM team_member_count");
+        int teams = jdbcTemplate.update("INSERT INTO team_member_count (team_id, member_count) " +
+                "SELECT t.team_id, COUNT(tm.id) FROM team t LEFT JOIN team_member tm ON tm.team_id = t.team_id GROUP BY t.team_id");
+        log.info("team_member_count rebuilt : {} teams", teams);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildOnStartup() {
+        if (enabled) {
+            rebuild();
+        }
+    }
+
+}
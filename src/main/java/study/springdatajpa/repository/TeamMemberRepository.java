@@ -2,9 +2,50 @@ package study.springdatajpa.repository;
 
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import study.springdatajpa.entity.TeamMember;
+import study.springdatajpa.repository.query.MembershipIdDto;
+import study.springdatajpa.repository.query.MembershipRowDto;
+
+import java.util.Collection;
+import java.util.List;
 
 @Repository
-public interface TeamMemberRepository extends JpaRepository<TeamMember, Long> {
+public interface TeamMemberRepository extends JpaRepository<TeamMember, Long>, TeamMemberRepositoryCustom {
+
+    long countByMemberId(@Param("memberId") Long memberId);
+
+    // Team.teamMembers 의 size() / contains() 대신 쓴다. 컬렉션을 로딩하지 않는다.
+    long countByTeamId(Long teamId);
+
+    boolean existsByTeamIdAndMemberId(Long teamId, Long memberId);
+
+    // 같은 팀에 속한 다른 회원 수. 여러 팀에 같이 있어도 한 번만 센다.
+    @Query("select count(distinct other.member.id) from TeamMember mine" +
+            " join TeamMember other on other.team = mine.team" +
+            " where mine.member.id = :memberId and other.member.id <> :memberId")
+    long countTeammates(@Param("memberId") Long memberId);
+
+    @Query("select new study.springdatajpa.repository.query.MembershipRowDto(m.id, m.memberName, m.age, t.id, t.name)" +
+            " from TeamMember tm join tm.member m join tm.team t" +
+            " where m.id in :memberIds order by t.id")
+    List<MembershipRowDto> findMembershipsByMemberIds(@Param("memberIds") Collection<Long> memberIds);
+
+    @Query("select new study.springdatajpa.repository.query.MembershipRowDto(m.id, m.memberName, m.age, t.id, t.name)" +
+            " from TeamMember tm join tm.member m join tm.team t" +
+            " where t.id in :teamIds order by m.id")
+    List<MembershipRowDto> findMembershipsByTeamIds(@Param("teamIds") Collection<Long> teamIds);
+
+    // 삭제 대상 row 의 id 만 조회한다. 엔티티를 로딩하지 않는다.
+    @Query("select new study.springdatajpa.repository.query.MembershipIdDto(tm.id, tm.member.id, tm.team.id)" +
+            " from TeamMember tm where tm.team.id = :teamId")
+    List<MembershipIdDto> findMembershipIdsByTeamId(@Param("teamId") Long teamId);
+
+    // 회원들의 팀원 row 를 한 문장으로 지운다. entity listener 를 거치지 않는다.
+    @Modifying
+    @Query("delete from TeamMember tm where tm.member.id in :memberIds")
+    int deleteAllByMemberIdIn(@Param("memberIds") Collection<Long> memberIds);
 }
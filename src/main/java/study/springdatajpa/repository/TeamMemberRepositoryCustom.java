@@ -0,0 +1,11 @@
+package study.springdatajpa.repository;
+
+import java.util.Collection;
+
+public interface TeamMemberRepositoryCustom {
+
+    boolean ensureMembership(Long memberId, Long teamId);
+
+    int ensureMemberships(Long teamId, Collection<Long> memberIds);
+
+}
@@ -0,0 +1,176 @@
+package study.springdatajpa.repository;
+
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.Session;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.generator.BeforeExecutionGenerator;
+import org.hibernate.generator.EventType;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import study.springdatajpa.entity.TeamMember;
+import study.springdatajpa.tenant.TenantContext;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+@Repository
+@RequiredArgsConstructor
+@Transactional
+public class TeamMemberRepositoryCustomImpl implements TeamMemberRepositoryCustom {
+
+    /**
+     * (member_id, team_id) unique key 기준으로 없을 때만 insert 한다.
+     * 이미 있으면 아무것도 하지 않으므로 엔티티 조회나 락 없이 재시도해도 안전하다.
+     * soft delete 된 member/team 과 현재 tenant 가 아닌 member/team 은 source 에서 빠지므로 insert 되지 않는다.
+     */
+    private static final String MERGE_MEMBERSHIP =
+            "MERGE INTO team_member t " +
+            "USING (SELECT m.member_id, tt.team_id, m.tenant_id FROM member m, team tt " +
+            "WHERE m.member_id = ? AND tt.team_id = ? AND m.deleted_at IS NULL AND tt.deleted_at IS NULL " +
+            "AND m.tenant_id = ? AND tt.tenant_id = m.tenant_id) s " +
+            "ON t.member_id = s.member_id AND t.team_id = s.team_id " +
+            "WHEN NOT MATCHED THEN INSERT (id, member_id, team_id, tenant_id) VALUES (?, s.member_id, s.team_id, s.tenant_id)";
+
+    private static final String UNIQUE_VIOLATION = "23505";
+
+    private final EntityManager em;
+    private final TeamMemberCounter teamMemberCounter;
+    private final MemberTeamViewWriter memberTeamViewWriter;
+
+    /**
+     * native 쿼리로 바로 insert 하므로, 이미 영속성 컨텍스트에 로딩된 Member/Team 의 teamMembers 컬렉션에는 반영되지 않는다.
+     * 존재하지 않거나 삭제된 member/team id 면 insert 하지 않고 false 를 반환한다.
+     */
+    @Override
+    public boolean ensureMembership(Long memberId, Long teamId) {
+        em.flush();
+        String tenantId = TenantContext.currentTenant();
+        Long id = nextId();
+        int inserted = em.unwrap(Session.class).doReturningWork(connection -> merge(connection, memberId, teamId, tenantId, id));
+        // native insert 는 entity listener 를 거치지 않으므로 집계를 직접 반영한다.
+        teamMemberCounter.increment(teamId, inserted);
+        if (inserted > 0) {
+            memberTeamViewWriter.membershipAdded(memberId, teamId);
+        }
+        return inserted > 0;
+    }
+
+    /**
+     * JDBC batch 로 한 번에 전송한다. 새로 insert 된 row 수를 반환한다.
+     * 동시에 같은 팀원을 넣는 요청과 겹쳐 batch 가 unique key 에 걸리면, batch 를 되돌리고 한 건씩 다시 넣는다.
+     */
+    @Override
+    public int ensureMemberships(Long teamId, Collection<Long> memberIds) {
+        Set<Long> distinctMemberIds = new LinkedHashSet<>(memberIds);
+        if (distinctMemberIds.isEmpty()) {
+            return 0;
+        }
+
+        // 쓰기 지연 저장소에 쌓인 insert 를 먼저 내보내야 FK 가 맞는다.
+        em.flush();
+
+        Map<Long, Long> idByMemberId = new LinkedHashMap<>();
+        distinctMemberIds.forEach(memberId -> idByMemberId.put(memberId, nextId()));
+
+        String tenantId = TenantContext.currentTenant();
+        List<Long> batchMemberIds = new ArrayList<>(idByMemberId.keySet());
+        int[] counts = em.unwrap(Session.class).doReturningWork(connection -> {
+            Savepoint savepoint = connection.setSavepoint();
+            try (PreparedStatement ps = connection.prepareStatement(MERGE_MEMBERSHIP)) {
+                for (Long memberId : batchMemberIds) {
+                    bind(ps, memberId, teamId, tenantId, idByMemberId.get(memberId));
+                    ps.addBatch();
+                }
+                int[] batchCounts = ps.executeBatch();
+                connection.releaseSavepoint(savepoint);
+                return batchCounts;
+            } catch (SQLException e) {
+                if (!isDuplicateMembership(e)) {
+                    throw e;
+                }
+                connection.rollback(savepoint);
+            }
+            int[] rowCounts = new int[batchMemberIds.size()];
+            for (int i = 0; i < rowCounts.length; i++) {
+                Long memberId = batchMemberIds.get(i);
+                rowCounts[i] = merge(connection, memberId, teamId, tenantId, idByMemberId.get(memberId));
+            }
+            return rowCounts;
+        });
+
+        int inserted = 0;
+        List<Long> insertedMemberIds = new ArrayList<>();
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] > 0) {
+                inserted += counts[i];
+                insertedMemberIds.add(batchMemberIds.get(i));
+            }
+        }
+        teamMemberCounter.increment(teamId, inserted);
+        insertedMemberIds.forEach(memberId -> memberTeamViewWriter.membershipAdded(memberId, teamId));
+        return inserted;
+    }
+
+    /**
+     * MERGE 는 동시에 들어온 같은 (member, team) insert 와 원자적이지 않아서, 늦은 쪽이 unique key 위반으로 실패할 수 있다.
+     * 그 경우는 이미 팀원인 것과 같으므로 savepoint 까지만 되돌리고 0 을 반환한다. (트랜잭션은 계속 쓸 수 있다)
+     */
+    private int merge(Connection connection, Long memberId, Long teamId, String tenantId, Long id) throws SQLException {
+        Savepoint savepoint = connection.setSavepoint();
+        try (PreparedStatement ps = connection.prepareStatement(MERGE_MEMBERSHIP)) {
+            bind(ps, memberId, teamId, tenantId, id);
+            int inserted = ps.executeUpdate();
+            connection.releaseSavepoint(savepoint);
+            return inserted;
+        } catch (SQLException e) {
+            if (!isDuplicateMembership(e)) {
+                throw e;
+            }
+            connection.rollback(savepoint);
+            return 0;
+        }
+    }
+
+    private static void bind(PreparedStatement ps, Long memberId, Long teamId, String tenantId, Long id) throws SQLException {
+        ps.setLong(1, memberId);
+        ps.setLong(2, teamId);
+        ps.setString(3, tenantId);
+        ps.setLong(4, id);
+    }
+
+    // SQLSTATE 23505 (unique violation) 이면서 (member_id, team_id) unique key 인 경우만. FK 위반 등은 그대로 던진다.
+    private static boolean isDuplicateMembership(SQLException e) {
+        for (SQLException current = e; current != null; current = current.getNextException()) {
+            if (UNIQUE_VIOLATION.equals(current.getSQLState()) && current.getMessage() != null
+                    && current.getMessage().toLowerCase(Locale.ROOT).contains(TeamMember.UNIQUE_MEMBER_TEAM)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * TeamMember 에 설정된 hibernate id generator 를 그대로 사용해야
+     * native insert 로 할당한 id 가 엔티티 persist 로 할당되는 id 와 겹치지 않는다.
+     */
+    private Long nextId() {
+        SharedSessionContractImplementor session = em.unwrap(SharedSessionContractImplementor.class);
+        BeforeExecutionGenerator generator = (BeforeExecutionGenerator) session.getFactory()
+                .getMappingMetamodel()
+                .getEntityDescriptor(TeamMember.class)
+                .getGenerator();
+        return (Long) generator.generate(session, null, null, EventType.INSERT);
+    }
+
+}
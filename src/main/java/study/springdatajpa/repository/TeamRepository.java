@@ -1,10 +1,92 @@
 package study.springdatajpa.repository;
 
 
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import study.springdatajpa.entity.Team;
+import study.springdatajpa.repository.query.PageVersionDto;
+import study.springdatajpa.repository.query.TeamAgeStatsDto;
+import study.springdatajpa.repository.query.TeamChangeDto;
+import study.springdatajpa.repository.query.TeamQueryDto;
+import study.springdatajpa.repository.query.TeamSummaryDto;
+import study.springdatajpa.repository.query.VersionDto;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface TeamRepository extends JpaRepository<Team, Long> {
+
+    // 팀원 추가용. 팀 쪽 컬렉션을 로딩하지 않아도 commit 시점에 version 을 올려, 같은 팀의 동시 변경을 충돌로 잡는다.
+    @Lock(LockModeType.OPTIMISTIC_FORCE_INCREMENT)
+    @Query("select t from Team t where t.id = :teamId")
+    Optional<Team> findForMembershipChangeById(@Param("teamId") Long teamId);
+
+    // 비관적 락 버전도 팀원 추가시 version 을 올린다.
+    @Lock(LockModeType.PESSIMISTIC_FORCE_INCREMENT)
+    @Query("select t from Team t where t.id = :teamId")
+    Optional<Team> findWithLockById(@Param("teamId") Long teamId);
+
+    @Query("select new study.springdatajpa.repository.query.TeamQueryDto(t.id, t.name) from Team t where t.id = :teamId")
+    Optional<TeamQueryDto> findDtoById(@Param("teamId") Long teamId);
+
+    // ETag 용 메타데이터 조회. 엔티티를 로딩하지 않는다.
+    @Query("select new study.springdatajpa.repository.query.VersionDto(t.id, t.version, t.updatedDate) from Team t where t.id = :teamId")
+    Optional<VersionDto> findVersionById(@Param("teamId") Long teamId);
+
+    @Query("select new study.springdatajpa.repository.query.PageVersionDto(count(t), coalesce(sum(t.version), 0L), max(t.updatedDate)) from Team t")
+    PageVersionDto findPageVersion();
+
+    // 팀원 추가/삭제는 team 의 version 을 바꾸지 않으므로 팀원 수가 들어가는 목록은 team_member 도 본다.
+    @Query("select new study.springdatajpa.repository.query.PageVersionDto(count(tm), coalesce(max(tm.id), 0L)) from TeamMember tm")
+    PageVersionDto findMembershipVersion();
+
+    // 변경분 동기화. 팀원 추가/삭제는 team 의 updated_date 를 바꾸지 않으므로 팀 자체의 속성만 대상이다.
+    @Query("select new study.springdatajpa.repository.query.TeamChangeDto(t.id, t.name, t.updatedDate) from Team t" +
+            " where (t.updatedDate > :since or (t.updatedDate = :since and t.id > :afterId))" +
+            " and t.updatedDate <= :until" +
+            " order by t.updatedDate, t.id")
+    List<TeamChangeDto> findChangedAfter(@Param("since") LocalDateTime since,
+                                         @Param("afterId") Long afterId,
+                                         @Param("until") LocalDateTime until,
+                                         Limit limit);
+
+    // 회원이 속한 팀 목록
+    @Query("select new study.springdatajpa.repository.query.TeamQueryDto(t.id, t.name)" +
+            " from TeamMember tm join tm.team t" +
+            " where tm.member.id = :memberId order by t.id")
+    List<TeamQueryDto> findTeamDtosByMemberId(@Param("memberId") Long memberId);
+
+    // 팀 목록 + 팀원 수. 컬렉션을 로딩하지 않고 DB 에서 group by 로 센다.
+    @Query(value = "select new study.springdatajpa.repository.query.TeamSummaryDto(t.id, t.name, count(tm))" +
+            " from Team t left join t.teamMembers tm" +
+            " group by t.id, t.name",
+            countQuery = "select count(t) from Team t")
+    Page<TeamSummaryDto> findTeamSummaries(Pageable pageable);
+
+    // team_member_count 집계 테이블 사용 (team.member-count.enabled=true). 팀 수 만큼만 읽는다.
+    @Query(value = "select new study.springdatajpa.repository.query.TeamSummaryDto(t.id, t.name, coalesce(c.memberCount, 0L))" +
+            " from Team t left join TeamMemberCount c on c.teamId = t.id",
+            countQuery = "select count(t) from Team t")
+    Page<TeamSummaryDto> findTeamSummariesFromCounter(Pageable pageable);
+
+    @Query("select new study.springdatajpa.repository.query.TeamAgeStatsDto(tm.team.id, count(m), avg(m.age), min(m.age), max(m.age))" +
+            " from TeamMember tm join tm.member m" +
+            " group by tm.team.id")
+    List<TeamAgeStatsDto> findAgeStatsPerTeam();
+
+    @Query("select new study.springdatajpa.repository.query.TeamAgeStatsDto(tm.team.id, count(m), avg(m.age), min(m.age), max(m.age))" +
+            " from TeamMember tm join tm.member m" +
+            " where tm.team.id = :teamId" +
+            " group by tm.team.id")
+    Optional<TeamAgeStatsDto> findAgeStatsByTeamId(@Param("teamId") Long teamId);
+
 }
@@ -0,0 +1,36 @@
+package study.springdatajpa.repository;
+
+
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import study.springdatajpa.entity.Tombstone;
+import study.springdatajpa.repository.query.TombstoneDto;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface TombstoneRepository extends JpaRepository<Tombstone, Long> {
+
+    // (deleted_at, id) keyset. idx_tombstone_tenant_type_deleted_at 을 순서대로 읽는다.
+    // Tombstone 은 @TenantId 가 아니므로 현재 tenant 조건을 직접 넣는다.
+    @Query("select new study.springdatajpa.repository.query.TombstoneDto(t.id, t.entityId, t.deletedAt) from Tombstone t" +
+            " where t.tenantId = :#{tenantId} and t.entityType = :entityType" +
+            " and (t.deletedAt > :since or (t.deletedAt = :since and t.id > :afterId))" +
+            " and t.deletedAt <= :until" +
+            " order by t.deletedAt, t.id")
+    List<TombstoneDto> findDeletedAfter(@Param("entityType") String entityType,
+                                        @Param("since") LocalDateTime since,
+                                        @Param("afterId") Long afterId,
+                                        @Param("until") LocalDateTime until,
+                                        Limit limit);
+
+    @Modifying
+    @Query("delete from Tombstone t where t.deletedAt < :before")
+    int deleteAllDeletedBefore(@Param("before") LocalDateTime before);
+
+}
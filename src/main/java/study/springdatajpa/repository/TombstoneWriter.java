@@ -0,0 +1,42 @@
+package study.springdatajpa.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import study.springdatajpa.auditor.AuditingClock;
+import study.springdatajpa.tenant.TenantContext;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * tombstone 기록.
+ * entity listener(flush 도중)에서 호출되므로 EntityManager 대신 JdbcTemplate 으로 같은 트랜잭션에 쓴다.
+ * deleted_at 은 updated_date 와 같은 시계를 써야 동기화 cursor 의 시각 비교가 맞는다.
+ * 삭제한 요청의 tenant 로 기록한다.
+ */
+@Repository
+@RequiredArgsConstructor
+public class TombstoneWriter {
+
+    private static final String INSERT_TOMBSTONE = "INSERT INTO tombstone (tenant_id, entity_type, entity_id, deleted_at) VALUES (?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final AuditingClock auditingClock;
+
+    public void deleted(String entityType, Long entityId) {
+        jdbcTemplate.update(INSERT_TOMBSTONE, TenantContext.currentTenant(), entityType, entityId, auditingClock.now());
+    }
+
+    // 벌크 delete 용. JDBC batch 한 번으로 쓴다.
+    public void deletedAll(String entityType, Collection<Long> entityIds) {
+        String tenantId = TenantContext.currentTenant();
+        LocalDateTime now = auditingClock.now();
+        List<Object[]> args = new ArrayList<>(entityIds.size());
+        entityIds.forEach(entityId -> args.add(new Object[]{tenantId, entityType, entityId, now}));
+        jdbcTemplate.batchUpdate(INSERT_TOMBSTONE, args);
+    }
+
+}
@@ -0,0 +1,16 @@
+package study.springdatajpa.repository.query;
+
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+@Getter
+@AllArgsConstructor
+@ToString
+public class ItemBulkResult {
+
+    private int inserted;
+    private int updated;
+
+}
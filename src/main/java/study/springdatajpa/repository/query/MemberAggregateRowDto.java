@@ -0,0 +1,24 @@
+package study.springdatajpa.repository.query;
+
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.List;
+
+/**
+ * 집계 결과 group 하나. keys 는 MemberAggregation 의 dimension 순서, values 는 metric 순서다.
+ * 이름을 row 마다 반복하지 않으려고 배열 형태로 둔다. 예: {"keys":[3,20],"values":[5,24.2]}
+ */
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class MemberAggregateRowDto {
+
+    private List<Object> keys;
+    private List<Number> values;
+
+}
@@ -0,0 +1,209 @@
+package study.springdatajpa.repository.query;
+
+import lombok.Getter;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * MemberRepositoryCustom.aggregate 에 넘기는 group by 집계 조건. 허용된 dimension / metric 만 조합하므로
+ * 만들어지는 쿼리의 모양이 정해져 있고, 사용자 입력은 having 값(파라미터)과 age bucket 폭(정수)만 들어간다.
+ * <pre>
+ * MemberAggregation.builder()
+ *         .groupBy(Dimension.TEAM)
+ *         .metric(Metric.COUNT).metric(Metric.AVG_AGE)
+ *         .having(Metric.COUNT, Comparison.GE, 3)
+ *         .build();
+ * </pre>
+ */
+@Getter
+public class MemberAggregation {
+
+    private final List<Dimension> dimensions;
+    private final List<Metric> metrics;
+    private final List<Having> havings;
+
+    private MemberAggregation(List<Dimension> dimensions, List<Metric> metrics, List<Having> havings) {
+        this.dimensions = List.copyOf(dimensions);
+        this.metrics = List.copyOf(metrics);
+        this.havings = List.copyOf(havings);
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    // TEAM 으로 묶을 때만 TeamMember / Team 을 join 한다. 팀이 없는 회원은 그때 빠진다.
+    public boolean joinsTeam() {
+        return dimensions.stream().anyMatch(Dimension::isJoinsTeam);
+    }
+
+    /**
+     * group by 기준. 이름은 정렬 / API 파라미터에 쓴다.
+     */
+    @Getter
+    public static final class Dimension {
+
+        public static final Dimension TEAM = new Dimension("team", "t.id", true);
+        public static final Dimension AGE = new Dimension("age", "m.age", false);
+
+        private final String name;
+        private final String expression;
+        private final boolean joinsTeam;
+
+        private Dimension(String name, String expression, boolean joinsTeam) {
+            this.name = name;
+            this.expression = expression;
+            this.joinsTeam = joinsTeam;
+        }
+
+        // 나이를 width 단위 구간의 시작값으로 묶는다. 예: width 10 이면 0, 10, 20 ...
+        public static Dimension ageBucket(int width) {
+            if (width < 1) {
+                throw new IllegalArgumentException("age bucket width must be positive: " + width);
+            }
+            return new Dimension("ageBucket", "(m.age - mod(m.age, " + width + "))", false);
+        }
+
+        // "team", "age", "ageBucket:10"
+        public static Dimension parse(String value) {
+            String[] parts = value.split(":");
+            return switch (parts[0]) {
+                case "team" -> TEAM;
+                case "age" -> AGE;
+                case "ageBucket" -> ageBucket(parts.length > 1 ? Integer.parseInt(parts[1]) : 10);
+                default -> throw new IllegalArgumentException("unsupported dimension: " + value);
+            };
+        }
+    }
+
+    public enum Metric {
+
+        COUNT("count", "count(m)", Long.class),
+        AVG_AGE("avgAge", "avg(m.age)", Double.class),
+        MIN_AGE("minAge", "min(m.age)", Integer.class),
+        MAX_AGE("maxAge", "max(m.age)", Integer.class);
+
+        @Getter
+        private final String name;
+        @Getter
+        private final String expression;
+        private final Class<? extends Number> type;
+
+        Metric(String name, String expression, Class<? extends Number> type) {
+            this.name = name;
+            this.expression = expression;
+            this.type = type;
+        }
+
+        public static Metric parse(String value) {
+            return Arrays.stream(values())
+                    .filter(metric -> metric.name.equals(value))
+                    .findFirst()
+                    .orElseThrow(() -> new IllegalArgumentException("unsupported metric: " + value));
+        }
+
+        // having 파라미터는 집계 결과와 같은 타입이어야 바인딩된다.
+        Number convert(Number value) {
+            BigDecimal decimal = new BigDecimal(value.toString());
+            try {
+                if (type == Long.class) {
+                    return decimal.longValueExact();
+                }
+                if (type == Integer.class) {
+                    return decimal.intValueExact();
+                }
+                return decimal.doubleValue();
+            } catch (ArithmeticException e) {
+                throw new IllegalArgumentException(name + " needs an integer value: " + value);
+            }
+        }
+    }
+
+    public enum Comparison {
+
+        EQ("="), GT(">"), GE(">="), LT("<"), LE("<=");
+
+        @Getter
+        private final String operator;
+
+        Comparison(String operator) {
+            this.operator = operator;
+        }
+
+        public static Comparison parse(String value) {
+            return valueOf(value.toUpperCase());
+        }
+    }
+
+    /**
+     * having metric operator value. value 는 metric 타입으로 바꿔 파라미터로 바인딩한다.
+     */
+    @Getter
+    public static final class Having {
+
+        private final Metric metric;
+        private final Comparison comparison;
+        private final Number value;
+
+        private Having(Metric metric, Comparison comparison, Number value) {
+            this.metric = metric;
+            this.comparison = comparison;
+            this.value = metric.convert(value);
+        }
+
+        // "count:ge:3" (쉼표는 요청 파라미터 목록 구분자로 쓰인다)
+        public static Having parse(String value) {
+            String[] parts = value.split(":");
+            if (parts.length != 3) {
+                throw new IllegalArgumentException("having must be metric:operator:value: " + value);
+            }
+            return new Having(Metric.parse(parts[0]), Comparison.parse(parts[1]), new BigDecimal(parts[2]));
+        }
+    }
+
+    public static class Builder {
+
+        private final List<Dimension> dimensions = new ArrayList<>();
+        private final List<Metric> metrics = new ArrayList<>();
+        private final List<Having> havings = new ArrayList<>();
+
+        private Builder() {
+        }
+
+        public Builder groupBy(Dimension dimension) {
+            if (dimensions.stream().anyMatch(d -> d.getName().equals(dimension.getName()))) {
+                throw new IllegalArgumentException("duplicate dimension: " + dimension.getName());
+            }
+            dimensions.add(dimension);
+            return this;
+        }
+
+        public Builder metric(Metric metric) {
+            if (!metrics.contains(metric)) {
+                metrics.add(metric);
+            }
+            return this;
+        }
+
+        public Builder having(Metric metric, Comparison comparison, Number value) {
+            havings.add(new Having(metric, comparison, value));
+            return this;
+        }
+
+        public Builder having(Having having) {
+            havings.add(having);
+            return this;
+        }
+
+        public MemberAggregation build() {
+            if (metrics.isEmpty()) {
+                throw new IllegalArgumentException("at least one metric is required");
+            }
+            return new MemberAggregation(dimensions, metrics, havings);
+        }
+    }
+
+}
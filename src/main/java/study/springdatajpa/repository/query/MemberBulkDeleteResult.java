@@ -0,0 +1,20 @@
+package study.springdatajpa.repository.query;
+
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.util.List;
+
+@Getter
+@AllArgsConstructor
+@ToString
+public class MemberBulkDeleteResult {
+
+    private int members;
+    private int memberships;
+    // 실제로 삭제된 회원 id. 없는 id / 이미 삭제된 id 는 빠진다.
+    private List<Long> deletedIds;
+
+}
@@ -0,0 +1,22 @@
+package study.springdatajpa.repository.query;
+
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class MemberChangeDto {
+
+    private Long id;
+    private String memberName;
+    private int age;
+    private LocalDateTime updatedDate;
+
+}
@@ -0,0 +1,20 @@
+package study.springdatajpa.repository.query;
+
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class MemberCountsDto {
+
+    // 소속 팀 수
+    private long teamCount;
+    // 같은 팀에 속한 다른 회원 수 (중복 제외)
+    private long teammateCount;
+
+}
@@ -0,0 +1,20 @@
+package study.springdatajpa.repository.query;
+
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public class MemberTeamViewConsistency {
+
+    // 원본 조인에는 있는데 view 에 없거나 값이 다른 row 수
+    private long missingRows;
+    // view 에만 있는 (삭제되었거나 값이 바뀐) row 수
+    private long staleRows;
+
+    public boolean isConsistent() {
+        return missingRows == 0 && staleRows == 0;
+    }
+
+}
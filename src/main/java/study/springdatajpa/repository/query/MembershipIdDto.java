@@ -0,0 +1,19 @@
+package study.springdatajpa.repository.query;
+
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class MembershipIdDto {
+
+    private Long id;
+    private Long memberId;
+    private Long teamId;
+
+}
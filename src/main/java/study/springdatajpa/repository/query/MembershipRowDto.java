@@ -0,0 +1,24 @@
+package study.springdatajpa.repository.query;
+
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * team_member 한 row 를 member / team 값과 함께 읽은 결과. 여러 key 를 IN 으로 한 번에 조회한 뒤 key 별로 나눌 때 쓴다.
+ */
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class MembershipRowDto {
+
+    private Long memberId;
+    private String memberName;
+    private int age;
+    private Long teamId;
+    private String teamName;
+
+}
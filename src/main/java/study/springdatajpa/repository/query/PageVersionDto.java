@@ -0,0 +1,28 @@
+package study.springdatajpa.repository.query;
+
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/**
+ * 목록 응답의 ETag 재료. 행 수, 체크섬(version 합 또는 최대 id), 최종 수정 시각 중 하나라도 바뀌면 목록이 바뀐 것으로 본다.
+ */
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class PageVersionDto {
+
+    private Long count;
+    private Long checksum;
+    private LocalDateTime lastUpdated;
+
+    public PageVersionDto(Long count, Long checksum) {
+        this(count, checksum, null);
+    }
+
+}
@@ -0,0 +1,21 @@
+package study.springdatajpa.repository.query;
+
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class TeamAgeStatsDto {
+
+    private Long teamId;
+    private Long memberCount;
+    private Double averageAge;
+    private Integer minAge;
+    private Integer maxAge;
+
+}
@@ -0,0 +1,21 @@
+package study.springdatajpa.repository.query;
+
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class TombstoneDto {
+
+    private Long id;
+    private Long entityId;
+    private LocalDateTime deletedAt;
+
+}
@@ -0,0 +1,24 @@
+package study.springdatajpa.repository.query;
+
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/**
+ * 조건부 요청(ETag/Last-Modified) 판단용. 엔티티를 로딩하지 않고 version 컬럼만 읽는다.
+ */
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class VersionDto {
+
+    private Long id;
+    private long version;
+    private LocalDateTime updatedDate;
+
+}
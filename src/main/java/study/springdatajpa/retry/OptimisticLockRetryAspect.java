@@ -0,0 +1,59 @@
+package study.springdatajpa.retry;
+
+import jakarta.persistence.OptimisticLockException;
+import lombok.extern.slf4j.Slf4j;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * {@link RetryOnConflict} 처리 aspect.
+ * 트랜잭션 advisor 보다 바깥에서 실행되어야 매 시도마다 새 트랜잭션(새 영속성 컨텍스트)으로 다시 읽는다.
+ */
+@Aspect
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@Slf4j
+public class OptimisticLockRetryAspect {
+
+    @Around("@annotation(retryOnConflict)")
+    public Object retry(ProceedingJoinPoint joinPoint, RetryOnConflict retryOnConflict) throws Throwable {
+
+        // 바깥 트랜잭션에 참여 중이면 다시 실행해도 같은 (이미 rollback-only 인) 트랜잭션이므로 그대로 던진다.
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            return joinPoint.proceed();
+        }
+
+        long backoff = retryOnConflict.backoffMillis();
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return joinPoint.proceed();
+            } catch (OptimisticLockingFailureException | OptimisticLockException e) {
+                if (attempt >= retryOnConflict.maxAttempts()) {
+                    log.warn("optimistic lock conflict, giving up after {} attempts : {}", attempt, joinPoint.getSignature().toShortString());
+                    throw e;
+                }
+                log.debug("optimistic lock conflict, attempt {} : {}", attempt, joinPoint.getSignature().toShortString());
+                sleepWithJitter(backoff);
+                backoff = Math.min((long) (backoff * retryOnConflict.multiplier()), retryOnConflict.maxBackoffMillis());
+            }
+        }
+    }
+
+    private void sleepWithJitter(long backoff) throws InterruptedException {
+        if (backoff <= 0) {
+            return;
+        }
+        // 동시에 충돌한 writer 들이 같은 시점에 다시 부딪히지 않도록 [backoff/2, backoff] 사이에서 흩어준다.
+        long jittered = backoff / 2 + ThreadLocalRandom.current().nextLong(backoff / 2 + 1);
+        Thread.sleep(jittered);
+    }
+
+}
@@ -0,0 +1,25 @@
+package study.springdatajpa.retry;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 낙관적 락 충돌(OptimisticLockException)이 나면 메서드 전체를 새 트랜잭션으로 다시 실행한다.
+ * 재시도 간격은 backoffMillis 부터 multiplier 배씩 늘어나며 maxBackoffMillis 를 넘지 않는다.
+ * 바깥에서 이미 트랜잭션이 열려 있으면 재시도하지 않는다.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface RetryOnConflict {
+
+    int maxAttempts() default 5;
+
+    long backoffMillis() default 10;
+
+    double multiplier() default 2.0;
+
+    long maxBackoffMillis() default 500;
+
+}
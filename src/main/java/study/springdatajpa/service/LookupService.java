@@ -0,0 +1,85 @@
+package study.springdatajpa.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import study.springdatajpa.repository.MemberRepository;
+import study.springdatajpa.repository.TeamRepository;
+import study.springdatajpa.repository.query.MemberQueryDto;
+import study.springdatajpa.repository.query.TeamQueryDto;
+import study.springdatajpa.snapshot.MemberSnapshot;
+import study.springdatajpa.support.SingleFlight;
+import study.springdatajpa.tenant.TenantKey;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+/**
+ * 자주 조회되는 member / team 단건 조회 앞단의 single-flight.
+ * 같은 key 의 동시 조회는 한 번의 SELECT 와 커넥션 하나로 처리하고, 기다리는 쪽은 커넥션을 잡지 않는다.
+ * 그래서 이 클래스는 트랜잭션을 열지 않고, leader 의 repository 호출이 자기 읽기 전용 트랜잭션으로 실행된다.
+ * 쓰기 트랜잭션 안에서 호출되면 아직 커밋되지 않은 자기 변경을 봐야 하므로 합치지 않고 바로 조회한다.
+ * key 에 tenant 를 넣어 다른 tenant 의 조회와는 합치지 않는다.
+ */
+@Service
+public class LookupService {
+
+    private final MemberRepository memberRepository;
+    private final TeamRepository teamRepository;
+    private final MemberSnapshot memberSnapshot;
+
+    private final SingleFlight<TenantKey<Long>, Optional<MemberQueryDto>> memberById;
+    private final SingleFlight<TenantKey<String>, List<MemberQueryDto>> membersByName;
+    private final SingleFlight<TenantKey<Long>, Optional<TeamQueryDto>> teamById;
+
+    public LookupService(MemberRepository memberRepository, TeamRepository teamRepository, MemberSnapshot memberSnapshot,
+                         MeterRegistry meterRegistry) {
+        this.memberRepository = memberRepository;
+        this.teamRepository = teamRepository;
+        this.memberSnapshot = memberSnapshot;
+        this.memberById = new SingleFlight<>("member.byId", member -> member.map(LookupService::copy), meterRegistry);
+        this.membersByName = new SingleFlight<>("member.byName",
+                members -> members.stream().map(LookupService::copy).toList(), meterRegistry);
+        this.teamById = new SingleFlight<>("team.byId", team -> team.map(LookupService::copy), meterRegistry);
+    }
+
+    /**
+     * member.snapshot.enabled 이면 DB 대신 in-process snapshot 에서 읽는다.
+     */
+    public Optional<MemberQueryDto> findMember(Long memberId) {
+        if (memberSnapshot.isAvailable() && !inReadWriteTransaction()) {
+            return memberSnapshot.findDto(memberId);
+        }
+        return coalesce(memberById, TenantKey.current(memberId), () -> memberRepository.findDtoById(memberId));
+    }
+
+    public List<MemberQueryDto> findMembersByName(String memberName) {
+        return coalesce(membersByName, TenantKey.current(memberName), () -> memberRepository.findDtosByMemberName(memberName));
+    }
+
+    public Optional<TeamQueryDto> findTeam(Long teamId) {
+        return coalesce(teamById, TenantKey.current(teamId), () -> teamRepository.findDtoById(teamId));
+    }
+
+    private <K, V> V coalesce(SingleFlight<K, V> singleFlight, K key, Supplier<V> loader) {
+        if (inReadWriteTransaction()) {
+            return loader.get();
+        }
+        return singleFlight.execute(key, loader);
+    }
+
+    private boolean inReadWriteTransaction() {
+        return TransactionSynchronizationManager.isActualTransactionActive()
+                && !TransactionSynchronizationManager.isCurrentTransactionReadOnly();
+    }
+
+    private static MemberQueryDto copy(MemberQueryDto member) {
+        return new MemberQueryDto(member.getId(), member.getMemberName(), member.getAge());
+    }
+
+    private static TeamQueryDto copy(TeamQueryDto team) {
+        return new TeamQueryDto(team.getId(), team.getName());
+    }
+
+}
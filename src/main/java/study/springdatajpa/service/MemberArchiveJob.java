@@ -0,0 +1,95 @@
+package study.springdatajpa.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.springdatajpa.auditor.AuditingClock;
+import study.springdatajpa.outbox.OutboxWriter;
+import study.springdatajpa.repository.MemberArchiveRepository;
+import study.springdatajpa.snapshot.MemberSnapshot;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * cutoff 이전부터 수정되지 않은 회원을 member_archive 로 옮겨 운영 테이블을 작게 유지한다.
+ * chunk 마다 트랜잭션을 나누므로 중간에 멈춰도 다음 실행이 이어서 옮긴다.
+ * 옮겨진 회원은 includeArchived 조회에서만 보인다.
+ */
+@Component
+@Slf4j
+public class MemberArchiveJob {
+
+    private static final int EVENT_CHUNK_SIZE = 200;
+
+    private final MemberArchiveRepository memberArchiveRepository;
+    private final MemberSnapshot memberSnapshot;
+    private final OutboxWriter outboxWriter;
+    private final TransactionTemplate transactionTemplate;
+    private final AuditingClock auditingClock;
+    private final boolean enabled;
+    private final Duration inactivePeriod;
+    private final int chunkSize;
+
+    public MemberArchiveJob(MemberArchiveRepository memberArchiveRepository,
+                            MemberSnapshot memberSnapshot,
+                            OutboxWriter outboxWriter,
+                            TransactionTemplate transactionTemplate,
+                            AuditingClock auditingClock,
+                            @Value("${member.archive.enabled:false}") boolean enabled,
+                            @Value("${member.archive.inactive-days:365}") long inactiveDays,
+                            @Value("${member.archive.chunk-size:500}") int chunkSize) {
+        this.memberArchiveRepository = memberArchiveRepository;
+        this.memberSnapshot = memberSnapshot;
+        this.outboxWriter = outboxWriter;
+        this.transactionTemplate = transactionTemplate;
+        this.auditingClock = auditingClock;
+        this.enabled = enabled;
+        this.inactivePeriod = Duration.ofDays(inactiveDays);
+        this.chunkSize = chunkSize;
+    }
+
+    @Scheduled(cron = "${member.archive.cron:0 30 3 * * *}")
+    public void archiveScheduled() {
+        if (enabled) {
+            archive(auditingClock.now().minus(inactivePeriod));
+        }
+    }
+
+    /**
+     * @param cutoff updated_date 가 이 시각보다 이전인 회원을 옮긴다.
+     * @return 옮긴 회원 수
+     */
+    public int archive(LocalDateTime cutoff) {
+        int total = 0;
+        while (true) {
+            Integer archived = transactionTemplate.execute(status -> {
+                List<Long> memberIds = memberArchiveRepository.lockColdMemberIds(cutoff, chunkSize);
+                if (memberIds.isEmpty()) {
+                    return 0;
+                }
+                int moved = memberArchiveRepository.archive(memberIds);
+                // 여러 aggregate 에 걸친 이벤트이므로 aggregate id 없이 남긴다. payload 길이 제한 때문에 나눠 쓴다.
+                for (int from = 0; from < memberIds.size(); from += EVENT_CHUNK_SIZE) {
+                    outboxWriter.append(OutboxWriter.MEMBER, null, "MembersArchived",
+                            Map.of("memberIds", memberIds.subList(from, Math.min(from + EVENT_CHUNK_SIZE, memberIds.size()))));
+                }
+                memberIds.forEach(memberSnapshot::memberRemoved);
+                return moved;
+            });
+            if (archived == null || archived == 0) {
+                break;
+            }
+            total += archived;
+        }
+        if (total > 0) {
+            log.info("archived {} members not updated since {}", total, cutoff);
+        }
+        return total;
+    }
+
+}
@@ -0,0 +1,113 @@
+package study.springdatajpa.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import study.springdatajpa.dto.MemberDashboardDto;
+import study.springdatajpa.repository.query.MemberCountsDto;
+import study.springdatajpa.repository.query.MemberQueryDto;
+import study.springdatajpa.repository.query.TeamQueryDto;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * 회원 화면용 조회를 병렬로 실행해 한 번에 돌려준다.
+ * member / teams / counts 는 동시에 시작하고, teams 가 오면 팀별 roster 를 다시 동시에 조회한다.
+ * teams / roster 는 MembershipLoader 를 거치므로 여러 팀의 roster 와 다른 요청의 조회가 IN 쿼리 하나로 묶인다.
+ * 각 조회는 MemberQueryAsyncService 에서 자기 읽기 전용 트랜잭션으로 실행되므로
+ * 여기서는 트랜잭션(커넥션)을 잡지 않고 기다리기만 한다.
+ * section 마다 timeout 이 지나면 기다리지 않고 나머지로 응답한다.
+ */
+@Service
+@Slf4j
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class MemberDashboardService {
+
+    private final MemberQueryAsyncService memberQueryAsyncService;
+    private final MembershipLoader membershipLoader;
+    private final long sectionTimeoutMillis;
+
+    public MemberDashboardService(MemberQueryAsyncService memberQueryAsyncService,
+                                  MembershipLoader membershipLoader,
+                                  @Value("${member.dashboard.section-timeout-ms:500}") long sectionTimeoutMillis) {
+        this.memberQueryAsyncService = memberQueryAsyncService;
+        this.membershipLoader = membershipLoader;
+        this.sectionTimeoutMillis = sectionTimeoutMillis;
+    }
+
+    /**
+     * @return 회원이 없으면 empty
+     */
+    public Optional<MemberDashboardDto> findDashboard(Long memberId) {
+        List<String> incomplete = new ArrayList<>();
+
+        CompletableFuture<Optional<MemberQueryDto>> memberFuture = submit(() -> memberQueryAsyncService.findById(memberId));
+        CompletableFuture<List<TeamQueryDto>> teamsFuture = submit(() -> membershipLoader.findTeamsByMemberId(memberId));
+        CompletableFuture<MemberCountsDto> countsFuture = submit(() -> memberQueryAsyncService.countMemberships(memberId));
+
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(sectionTimeoutMillis);
+        Optional<MemberQueryDto> member = await("member", memberFuture, deadline, incomplete);
+        if (member != null && member.isEmpty()) {
+            teamsFuture.cancel(false);
+            countsFuture.cancel(false);
+            return Optional.empty();
+        }
+        List<TeamQueryDto> teams = await("teams", teamsFuture, deadline, incomplete);
+
+        // roster 는 teams 에 의존하므로 teams 가 도착한 시점부터 다시 timeout 을 잰다.
+        Map<Long, CompletableFuture<List<MemberQueryDto>>> rosterFutures = new LinkedHashMap<>();
+        if (teams != null) {
+            teams.forEach(team -> rosterFutures.put(team.getId(),
+                    submit(() -> membershipLoader.findMembersByTeamId(team.getId()))));
+        }
+        long rosterDeadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(sectionTimeoutMillis);
+        Map<Long, List<MemberQueryDto>> rosters = new LinkedHashMap<>();
+        rosterFutures.forEach((teamId, future) -> {
+            List<MemberQueryDto> roster = await("rosters." + teamId, future, rosterDeadline, incomplete);
+            if (roster != null) {
+                rosters.put(teamId, roster);
+            }
+        });
+
+        MemberCountsDto counts = await("counts", countsFuture, deadline, incomplete);
+
+        return Optional.of(new MemberDashboardDto(member == null ? null : member.get(), teams, rosters, counts, incomplete));
+    }
+
+    // executor 가 포화되어 거절되면 실패한 future 로 바꿔 해당 section 만 빠지게 한다.
+    private <T> CompletableFuture<T> submit(Supplier<CompletableFuture<T>> query) {
+        try {
+            return query.get();
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    private <T> T await(String section, CompletableFuture<T> future, long deadline, List<String> incomplete) {
+        try {
+            return future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(false);
+            log.warn("dashboard section timed out : {}", section);
+        } catch (ExecutionException e) {
+            log.warn("dashboard section failed : {}", section, e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            future.cancel(false);
+        }
+        incomplete.add(section);
+        return null;
+    }
+
+}
@@ -0,0 +1,64 @@
+package study.springdatajpa.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import study.springdatajpa.config.AsyncConfig;
+import study.springdatajpa.repository.MemberRepository;
+import study.springdatajpa.repository.TeamMemberRepository;
+import study.springdatajpa.repository.TeamRepository;
+import study.springdatajpa.repository.query.MemberCountsDto;
+import study.springdatajpa.repository.query.MemberQueryDto;
+import study.springdatajpa.repository.query.TeamQueryDto;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 조회 메서드의 비동기 버전. 서로 독립적인 조회를 병렬로 실행할 때 사용한다.
+ * {@code @Async} 가 트랜잭션 프록시보다 먼저 적용되므로, 각 작업은 executor 스레드에서 자기만의 읽기 전용 트랜잭션으로 실행된다.
+ * 트랜잭션이 끝난 뒤 다른 스레드에서 쓰이므로 엔티티 대신 DTO 를 돌려준다.
+ * executor 가 포화되면 호출 시점에 TaskRejectedException 이 발생한다.
+ */
+@Service
+@RequiredArgsConstructor
+@Async(AsyncConfig.MEMBER_QUERY_EXECUTOR)
+@Transactional(readOnly = true)
+public class MemberQueryAsyncService {
+
+    private final MemberRepository memberRepository;
+    private final TeamRepository teamRepository;
+    private final TeamMemberRepository teamMemberRepository;
+
+    public CompletableFuture<Optional<MemberQueryDto>> findById(Long memberId) {
+        return CompletableFuture.completedFuture(memberRepository.findById(memberId)
+                .map(member -> new MemberQueryDto(member.getId(), member.getMemberName(), member.getAge())));
+    }
+
+    public CompletableFuture<List<MemberQueryDto>> findAllByAge(Integer age) {
+        List<MemberQueryDto> members = memberRepository.findAllByAge(age).stream()
+                .map(member -> new MemberQueryDto(member.getId(), member.getMemberName(), member.getAge()))
+                .toList();
+        return CompletableFuture.completedFuture(members);
+    }
+
+    public CompletableFuture<List<MemberQueryDto>> findMembersByTeamId(Long teamId) {
+        return CompletableFuture.completedFuture(memberRepository.findMembersByTeamId(teamId));
+    }
+
+    public CompletableFuture<List<TeamQueryDto>> findTeamsByMemberId(Long memberId) {
+        return CompletableFuture.completedFuture(teamRepository.findTeamDtosByMemberId(memberId));
+    }
+
+    public CompletableFuture<MemberCountsDto> countMemberships(Long memberId) {
+        return CompletableFuture.completedFuture(new MemberCountsDto(
+                teamMemberRepository.countByMemberId(memberId), teamMemberRepository.countTeammates(memberId)));
+    }
+
+    public CompletableFuture<Long> countByAge(Integer age) {
+        return CompletableFuture.completedFuture(memberRepository.countByAge(age));
+    }
+
+}
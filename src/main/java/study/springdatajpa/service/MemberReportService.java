@@ -0,0 +1,48 @@
+package study.springdatajpa.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import study.springdatajpa.repository.MemberParallelScanner;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * 전체 회원 대상 보고서. 엔티티를 불러오지 않고 MemberParallelScanner 로 필요한 컬럼만 병렬로 훑어 Collector 로 집계한다.
+ * partition 은 각자 읽기 전용 트랜잭션으로 실행되므로 여기서는 트랜잭션(커넥션)을 잡지 않는다.
+ */
+@Service
+@RequiredArgsConstructor
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class MemberReportService {
+
+    private final MemberParallelScanner memberParallelScanner;
+
+    /**
+     * @return 나이 구간 시작값 -> 회원 수 (구간 순). 예: bucketWidth 10 이면 {0=3, 10=5, 20=2}
+     */
+    public Map<Integer, Long> ageHistogram(int bucketWidth) {
+        if (bucketWidth < 1) {
+            throw new IllegalArgumentException("bucketWidth must be positive: " + bucketWidth);
+        }
+        return memberParallelScanner.scanAges(Collectors.groupingBy(
+                age -> Math.floorDiv(age, bucketWidth) * bucketWidth, TreeMap::new, Collectors.counting()));
+    }
+
+    /**
+     * @return 팀원 수 -> 그 인원인 팀 수 (인원 순). 팀원이 없는 팀은 들어가지 않는다.
+     */
+    public Map<Long, Long> teamSizeDistribution() {
+        // partition 마다 팀별 인원을 세고 합친 뒤, 마지막에 한 번만 인원별로 다시 센다. 컨테이너 크기는 팀 수까지다.
+        return memberParallelScanner.scanMembershipTeamIds(Collectors.collectingAndThen(
+                Collectors.groupingBy(Function.identity(), HashMap::new, Collectors.counting()),
+                teamSizes -> teamSizes.values().stream()
+                        .collect(Collectors.groupingBy(Function.identity(), TreeMap::new, Collectors.counting()))));
+    }
+
+}
@@ -3,58 +3,196 @@ package study.springdatajpa.service;
 
 import jakarta.persistence.EntityManager;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import study.springdatajpa.auditor.AuditingClock;
 import study.springdatajpa.entity.Member;
 import study.springdatajpa.entity.Team;
+import study.springdatajpa.entity.Tombstone;
+import study.springdatajpa.outbox.OutboxWriter;
 import study.springdatajpa.repository.MemberRepository;
+import study.springdatajpa.repository.MemberTeamViewWriter;
+import study.springdatajpa.repository.MembershipRemover;
 import study.springdatajpa.repository.TeamMemberRepository;
 import study.springdatajpa.repository.TeamRepository;
-
+import study.springdatajpa.repository.TombstoneWriter;
+import study.springdatajpa.repository.query.MemberBulkDeleteResult;
+import study.springdatajpa.repository.query.MemberQueryDto;
+import study.springdatajpa.retry.RetryOnConflict;
+import study.springdatajpa.shard.ShardedMemberRepository;
+import study.springdatajpa.snapshot.MemberSnapshot;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
+/**
+ * member.shard.enabled=true 이면 가입(signUpMember), 단건 조회(findDtoById), 목록(findMemberDtos / searchByMemberName)은
+ * ShardedMemberRepository 로 샤드에 나눠 읽고 쓴다.
+ * 나머지(팀 / 팀원 변경, 삭제와 purge, outbox, 변경분 동기화, member_team_view, snapshot, team_member_count)는 기본 DB 하나만 본다.
+ * 그래서 샤드 모드에서 가입한 회원은 엔티티 조회(findById)나 팀 변경 흐름에서 보이지 않는다.
+ */
 @Service
 @RequiredArgsConstructor
 @Transactional(readOnly = true)
 public class MemberService {
 
+    // outbox payload 길이 제한 안에 들어가도록 이벤트 하나에 담는 id 수
+    private static final int EVENT_CHUNK_SIZE = 200;
+
     private final MemberRepository memberRepository;
     private final TeamRepository teamRepository;
+    private final TeamMemberRepository teamMemberRepository;
+    private final MemberTeamViewWriter memberTeamViewWriter;
+    private final MembershipRemover membershipRemover;
+    private final AuditingClock auditingClock;
+    private final MemberSnapshot memberSnapshot;
+    private final OutboxWriter outboxWriter;
+    private final TombstoneWriter tombstoneWriter;
     private final EntityManager em;
+    private final ObjectProvider<ShardedMemberRepository> shardedMemberRepository;
 
+    /**
+     * 샤드 모드에서는 샤드에 insert 한 뒤 id 만 채워서 돌려준다. 돌려준 Member 는 영속 상태가 아니다.
+     * 샤드 insert 는 바로 커밋되므로, 뒤이은 outbox 기록(기본 DB 트랜잭션)이 실패하면 이벤트 없는 회원이 샤드에 남을 수 있다.
+     */
     @Transactional
     public Member signUpMember(Member member) {
-        memberRepository.save(member);
+        ShardedMemberRepository sharded = shardedMemberRepository.getIfAvailable();
+        if (sharded != null) {
+            member.setId(sharded.save(member.getMemberName(), member.getAge()).getId());
+        } else {
+            memberRepository.save(member);
+        }
+        outboxWriter.append(OutboxWriter.MEMBER, member.getId(), "MemberCreated",
+                new MemberQueryDto(member.getId(), member.getMemberName(), member.getAge()));
         return member;
     }
 
+    /**
+     * soft delete. 팀원 row 는 건마다가 아니라 벌크로 지우고, member row 는 SoftDeletePurgeJob 이 나중에 지운다.
+     * @return 삭제할 회원이 없었으면 false
+     */
+    @Transactional
+    public boolean deleteMember(Long memberId) {
+        Optional<Member> member = memberRepository.findById(memberId);
+        if (member.isEmpty()) {
+            return false;
+        }
+        membershipRemover.removeByMemberId(memberId);
+        member.get().softDelete(auditingClock.now());
+        outboxWriter.append(OutboxWriter.MEMBER, memberId, "MemberDeleted", Map.of("memberId", memberId));
+        return true;
+    }
 
+    /**
+     * 여러 회원을 엔티티 로딩 없이 한 번에 삭제한다. 없는 id 는 건너뛴다.
+     * 벌크 update 는 entity listener 를 거치지 않으므로 tombstone / snapshot 을 직접 반영하고, outbox 는 deleteMember 처럼 여기서 남긴다.
+     */
+    @Transactional
+    public MemberBulkDeleteResult deleteMembers(Collection<Long> memberIds) {
+        MemberBulkDeleteResult result = memberRepository.deleteAllInBulk(memberIds);
+        List<Long> deletedIds = result.getDeletedIds();
+        if (deletedIds.isEmpty()) {
+            return result;
+        }
+        tombstoneWriter.deletedAll(Tombstone.MEMBER, deletedIds);
+        for (int from = 0; from < deletedIds.size(); from += EVENT_CHUNK_SIZE) {
+            // 여러 aggregate 에 걸친 이벤트이므로 aggregate id 없이 남긴다.
+            outboxWriter.append(OutboxWriter.MEMBER, null, "MembersDeleted",
+                    Map.of("memberIds", deletedIds.subList(from, Math.min(from + EVENT_CHUNK_SIZE, deletedIds.size()))));
+        }
+        deletedIds.forEach(memberSnapshot::memberRemoved);
+        return result;
+    }
+
+
+    // 엔티티 조회는 기본 DB 만 본다. 샤드 모드의 회원은 findDtoById 로 찾는다.
     public Optional<Member> findById(Long id) {
         return memberRepository.findById(id);
     }
 
+    public Optional<MemberQueryDto> findDtoById(Long id) {
+        ShardedMemberRepository sharded = shardedMemberRepository.getIfAvailable();
+        return sharded != null ? sharded.findById(id) : memberRepository.findDtoById(id);
+    }
+
+    public Page<MemberQueryDto> findMemberDtos(Pageable pageable) {
+        ShardedMemberRepository sharded = shardedMemberRepository.getIfAvailable();
+        return sharded != null ? sharded.findAll(pageable) : memberRepository.findMemberDtos(pageable);
+    }
+
+    public Page<MemberQueryDto> searchByMemberName(String memberName, Pageable pageable) {
+        ShardedMemberRepository sharded = shardedMemberRepository.getIfAvailable();
+        return sharded != null
+                ? sharded.findByMemberNameContaining(memberName, pageable)
+                : memberRepository.findDtosByMemberNameContaining(memberName, pageable);
+    }
+
+    public boolean isSharded() {
+        return shardedMemberRepository.getIfAvailable() != null;
+    }
+
     @Transactional
     public Optional<Member> findByIdWithTeams(Long memberId) {
         return memberRepository.findByIdWithTeams(memberId);
     }
 
+    @RetryOnConflict
     @Transactional
     public Member addMemberToTeam(Long teamId, Long memberId) {
 
-        Team team = teamRepository.findById(teamId)
+        Team team = teamRepository.findForMembershipChangeById(teamId)
                 .orElseThrow(() -> new IllegalArgumentException("Team does not exist"));
 
         Member member = memberRepository.findById(memberId)
                 .orElseThrow(() -> new IllegalStateException("Member with id " + memberId + " not found"));
 
         member.addTeam(team);
+        appendJoinedTeam(member, team);
 
         return memberRepository.save(member);
     }
 
+    /**
+     * 비관적 락 버전. team -> member 순서로 항상 같은 순서로 잠가서 데드락을 피한다.
+     */
+    @Transactional
+    public Member addMemberToTeamWithLock(Long teamId, Long memberId) {
+
+        Team team = teamRepository.findWithLockById(teamId)
+                .orElseThrow(() -> new IllegalArgumentException("Team does not exist"));
+
+        Member member = memberRepository.findWithLockById(memberId)
+                .orElseThrow(() -> new IllegalStateException("Member with id " + memberId + " not found"));
+
+        member.addTeam(team);
+        appendJoinedTeam(member, team);
+
+        return memberRepository.save(member);
+    }
+
+
+    /**
+     * 이미 팀원이면 아무것도 하지 않는다. member/team 을 조회하지 않고 upsert 한 번으로 끝낸다.
+     * @return 새로 팀원이 되었으면 true
+     */
+    @Transactional
+    public boolean ensureMembership(Long memberId, Long teamId) {
+        boolean inserted = teamMemberRepository.ensureMembership(memberId, teamId);
+        if (inserted) {
+            outboxWriter.append(OutboxWriter.MEMBER, memberId, "MemberJoinedTeam", Map.of("memberId", memberId, "teamId", teamId));
+        }
+        return inserted;
+    }
+
 
     @Transactional
     public Member addMemberToTeamV2(Team team, Member member) {
@@ -62,6 +200,11 @@ public class MemberService {
         return memberRepository.save(member);
     }
 
+    private void appendJoinedTeam(Member member, Team team) {
+        outboxWriter.append(OutboxWriter.MEMBER, member.getId(), "MemberJoinedTeam",
+                Map.of("memberId", member.getId(), "teamId", team.getId()));
+    }
+
 
     public Page<Member> findAllByPaging(int currentPage, int limit) {
         PageRequest pageRequest = PageRequest.of(currentPage, limit, Sort.by(Sort.Direction.ASC, "id"));
@@ -75,7 +218,13 @@ public class MemberService {
 
     @Transactional
     public void memberBulkUpdate(int age){
-        memberRepository.bulkUpdateAgePlus(age);
+        LocalDateTime now = auditingClock.now();
+        memberRepository.bulkUpdateAgePlus(age, now);
+        // 여러 member 에 걸친 변경이므로 aggregate id 없이 조건만 남긴다.
+        outboxWriter.append(OutboxWriter.MEMBER, null, "MemberAgesIncremented", Map.of("fromAge", age, "updatedDate", now.toString()));
+        // 벌크 연산은 entity listener 를 거치지 않으므로 read model 도 같은 조건으로 갱신한다.
+        memberTeamViewWriter.memberAgesIncremented(age);
+        memberSnapshot.reloadAfterCommit();
 
         em.flush();
         em.clear();
@@ -0,0 +1,43 @@
+package study.springdatajpa.service;
+
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import study.springdatajpa.repository.MemberProjection;
+import study.springdatajpa.repository.MemberRepository;
+import study.springdatajpa.repository.MemberTeamViewRepository;
+import study.springdatajpa.repository.MemberTeamViewWriter;
+import study.springdatajpa.repository.query.MemberTeamViewConsistency;
+
+@Service
+@RequiredArgsConstructor
+@Transactional(readOnly = true)
+public class MemberTeamViewService {
+
+    private final MemberTeamViewRepository memberTeamViewRepository;
+    private final MemberTeamViewWriter memberTeamViewWriter;
+    private final MemberRepository memberRepository;
+
+    /**
+     * read model 이 켜져 있으면 member_team_view 단일 테이블에서, 아니면 기존 3-way 조인으로 조회한다.
+     */
+    public Page<MemberProjection> findMemberTeamPage(Pageable pageable) {
+        if (memberTeamViewWriter.isEnabled()) {
+            return memberTeamViewRepository.findMemberTeamPage(pageable);
+        }
+        return memberRepository.findByPagingNativeProjection(pageable);
+    }
+
+    public MemberTeamViewConsistency check() {
+        return memberTeamViewWriter.check();
+    }
+
+    @Transactional
+    public int rebuild() {
+        return memberTeamViewWriter.rebuild();
+    }
+
+}
@@ -0,0 +1,83 @@
+package study.springdatajpa.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import study.springdatajpa.config.AsyncConfig;
+import study.springdatajpa.repository.TeamMemberRepository;
+import study.springdatajpa.repository.query.MemberQueryDto;
+import study.springdatajpa.repository.query.MembershipRowDto;
+import study.springdatajpa.repository.query.TeamQueryDto;
+import study.springdatajpa.support.MicroBatchLoader;
+import study.springdatajpa.tenant.TenantContext;
+import study.springdatajpa.tenant.TenantKey;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * 회원 -> 소속 팀, 팀 -> 팀원 조회를 요청 사이에서 묶는다.
+ * 서로 다른 요청이 window 안에 요청한 id 들을 where ... in (...) 한 번으로 조회한다.
+ * batch 쿼리는 memberQueryExecutor 에서 자기 읽기 전용 트랜잭션으로 실행된다.
+ * 한 batch 에 여러 tenant 의 key 가 섞이면 tenant 마다 따로 조회한다.
+ */
+@Service
+public class MembershipLoader {
+
+    private final MicroBatchLoader<TenantKey<Long>, List<TeamQueryDto>> teamsByMember;
+    private final MicroBatchLoader<TenantKey<Long>, List<MemberQueryDto>> membersByTeam;
+
+    public MembershipLoader(TeamMemberRepository teamMemberRepository,
+                            @Qualifier(AsyncConfig.MEMBER_QUERY_EXECUTOR) Executor executor,
+                            MeterRegistry meterRegistry,
+                            @Value("${member.membership-loader.window-ms:2}") long windowMillis,
+                            @Value("${member.membership-loader.max-batch-size:100}") int maxBatchSize) {
+        Duration window = Duration.ofMillis(windowMillis);
+        this.teamsByMember = new MicroBatchLoader<>("teams.byMember",
+                perTenant(memberIds -> teamMemberRepository.findMembershipsByMemberIds(memberIds).stream()
+                        .collect(Collectors.groupingBy(MembershipRowDto::getMemberId,
+                                Collectors.mapping(row -> new TeamQueryDto(row.getTeamId(), row.getTeamName()), Collectors.toList())))),
+                List.of(), executor, window, maxBatchSize, meterRegistry);
+        this.membersByTeam = new MicroBatchLoader<>("members.byTeam",
+                perTenant(teamIds -> teamMemberRepository.findMembershipsByTeamIds(teamIds).stream()
+                        .collect(Collectors.groupingBy(MembershipRowDto::getTeamId,
+                                Collectors.mapping(row -> new MemberQueryDto(row.getMemberId(), row.getMemberName(), row.getAge()), Collectors.toList())))),
+                List.of(), executor, window, maxBatchSize, meterRegistry);
+    }
+
+    public CompletableFuture<List<TeamQueryDto>> findTeamsByMemberId(Long memberId) {
+        return teamsByMember.load(TenantKey.current(memberId));
+    }
+
+    public CompletableFuture<List<MemberQueryDto>> findMembersByTeamId(Long teamId) {
+        return membersByTeam.load(TenantKey.current(teamId));
+    }
+
+    // key 를 tenant 별로 나눠 그 tenant 로 조회한다. repository 호출이 트랜잭션을 열기 전에 tenant 가 정해져야 한다.
+    private static <V> Function<Set<TenantKey<Long>>, Map<TenantKey<Long>, V>> perTenant(Function<Set<Long>, Map<Long, V>> batch) {
+        return keys -> {
+            Map<String, Set<Long>> idsByTenant = keys.stream().collect(Collectors.groupingBy(TenantKey::tenantId,
+                    Collectors.mapping(TenantKey::key, Collectors.toSet())));
+            Map<TenantKey<Long>, V> result = new HashMap<>();
+            idsByTenant.forEach((tenantId, ids) -> TenantContext.callAs(tenantId, () -> batch.apply(ids))
+                    .forEach((id, value) -> result.put(new TenantKey<>(tenantId, id), value)));
+            return result;
+        };
+    }
+
+    @PreDestroy
+    public void close() {
+        teamsByMember.close();
+        membersByTeam.close();
+    }
+
+}
@@ -0,0 +1,83 @@
+package study.springdatajpa.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.springdatajpa.auditor.AuditingClock;
+import study.springdatajpa.repository.SoftDeletePurgeRepository;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * soft delete 후 보관 기간이 지난 member / team row 를 한산한 시간에 chunk 단위로 실제 삭제한다.
+ * chunk 마다 트랜잭션을 나눠 락과 undo 가 한 번에 커지지 않게 한다.
+ */
+@Component
+@Slf4j
+public class SoftDeletePurgeJob {
+
+    private final SoftDeletePurgeRepository softDeletePurgeRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final AuditingClock auditingClock;
+    private final boolean enabled;
+    private final Duration retention;
+    private final int chunkSize;
+
+    public SoftDeletePurgeJob(SoftDeletePurgeRepository softDeletePurgeRepository,
+                              TransactionTemplate transactionTemplate,
+                              AuditingClock auditingClock,
+                              @Value("${soft-delete.purge.enabled:true}") boolean enabled,
+                              @Value("${soft-delete.purge.retention-hours:24}") long retentionHours,
+                              @Value("${soft-delete.purge.chunk-size:500}") int chunkSize) {
+        this.softDeletePurgeRepository = softDeletePurgeRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.auditingClock = auditingClock;
+        this.enabled = enabled;
+        this.retention = Duration.ofHours(retentionHours);
+        this.chunkSize = chunkSize;
+    }
+
+    @Scheduled(cron = "${soft-delete.purge.cron:0 0 4 * * *}")
+    public void purgeScheduled() {
+        if (enabled) {
+            purge(auditingClock.now().minus(retention));
+        }
+    }
+
+    /**
+     * @param before deleted_at 이 이 시각보다 이전인 row 를 지운다.
+     * @return 지운 member + team row 수
+     */
+    public int purge(LocalDateTime before) {
+        // 팀원 row 가 member 쪽에서 먼저 정리되도록 member 부터 지운다.
+        int members = purgeInChunks(before, softDeletePurgeRepository::findDeletedMemberIds, softDeletePurgeRepository::purgeMembers);
+        int teams = purgeInChunks(before, softDeletePurgeRepository::findDeletedTeamIds, softDeletePurgeRepository::purgeTeams);
+        if (members + teams > 0) {
+            log.info("purged soft deleted rows : {} members, {} teams (deleted before {})", members, teams, before);
+        }
+        return members + teams;
+    }
+
+    private int purgeInChunks(LocalDateTime before,
+                              BiFunction<LocalDateTime, Integer, List<Long>> findIds,
+                              Function<List<Long>, Integer> purge) {
+        int total = 0;
+        while (true) {
+            Integer purged = transactionTemplate.execute(status -> {
+                List<Long> ids = findIds.apply(before, chunkSize);
+                return ids.isEmpty() ? 0 : purge.apply(ids);
+            });
+            if (purged == null || purged == 0) {
+                return total;
+            }
+            total += purged;
+        }
+    }
+
+}
@@ -0,0 +1,33 @@
+package study.springdatajpa.service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+/**
+ * 변경분 동기화 위치. 변경 row 와 tombstone 은 각자의 (시각, id) keyset 으로 읽으므로 위치를 따로 가진다.
+ * 클라이언트에게는 해석할 필요 없는 문자열로 내보낸다.
+ */
+record SyncCursor(LocalDateTime changedAt, long changeId, LocalDateTime deletedAt, long tombstoneId) {
+
+    private static final String SEPARATOR = "|";
+
+    static SyncCursor parse(String value) {
+        try {
+            String[] parts = new String(Base64.getUrlDecoder().decode(value), StandardCharsets.UTF_8).split("\\|");
+            if (parts.length == 4) {
+                return new SyncCursor(LocalDateTime.parse(parts[0]), Long.parseLong(parts[1]),
+                        LocalDateTime.parse(parts[2]), Long.parseLong(parts[3]));
+            }
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("invalid sync cursor: " + value, e);
+        }
+        throw new IllegalArgumentException("invalid sync cursor: " + value);
+    }
+
+    String encode() {
+        String value = changedAt + SEPARATOR + changeId + SEPARATOR + deletedAt + SEPARATOR + tombstoneId;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+}
@@ -0,0 +1,154 @@
+package study.springdatajpa.service;
+
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import study.springdatajpa.auditor.AuditingClock;
+import study.springdatajpa.dto.SyncResponse;
+import study.springdatajpa.entity.Tombstone;
+import study.springdatajpa.repository.MemberRepository;
+import study.springdatajpa.repository.TeamRepository;
+import study.springdatajpa.repository.TombstoneRepository;
+import study.springdatajpa.repository.query.MemberChangeDto;
+import study.springdatajpa.repository.query.TeamChangeDto;
+import study.springdatajpa.repository.query.TombstoneDto;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * updated_date 기준 변경분 동기화.
+ * 클라이언트는 받은 cursor 이후에 바뀐 row 와 삭제된 id 만 받으므로, 전체 목록 대신 변경된 만큼만 전송된다.
+ *
+ * updated_date 는 트랜잭션 시작 시각(AuditingClock)이라 커밋은 그보다 늦다.
+ * 그래서 now - safetyLag 까지만 내보내 아직 커밋되지 않은 row 를 cursor 가 앞질러 가지 않게 한다.
+ * safetyLag 보다 오래 걸리는 쓰기 트랜잭션의 변경은 놓칠 수 있다.
+ */
+@Service
+@Transactional(readOnly = true)
+@Slf4j
+public class SyncService {
+
+    // 첫 동기화의 변경 위치. updated_date 는 not null 이므로 모든 row 가 이 뒤에 있다.
+    private static final LocalDateTime BEGINNING = LocalDateTime.of(1970, 1, 1, 0, 0);
+
+    private final MemberRepository memberRepository;
+    private final TeamRepository teamRepository;
+    private final TombstoneRepository tombstoneRepository;
+    private final AuditingClock auditingClock;
+    private final Duration safetyLag;
+    private final Duration tombstoneRetention;
+    private final int maxPageSize;
+
+    public SyncService(MemberRepository memberRepository,
+                       TeamRepository teamRepository,
+                       TombstoneRepository tombstoneRepository,
+                       AuditingClock auditingClock,
+                       @Value("${sync.safety-lag-ms:5000}") long safetyLagMillis,
+                       @Value("${sync.tombstone.retention-days:7}") long tombstoneRetentionDays,
+                       @Value("${sync.max-page-size:1000}") int maxPageSize) {
+        this.memberRepository = memberRepository;
+        this.teamRepository = teamRepository;
+        this.tombstoneRepository = tombstoneRepository;
+        this.auditingClock = auditingClock;
+        this.safetyLag = Duration.ofMillis(safetyLagMillis);
+        this.tombstoneRetention = Duration.ofDays(tombstoneRetentionDays);
+        this.maxPageSize = maxPageSize;
+    }
+
+    /**
+     * @param cursor 이전 응답의 cursor. 없으면 현재 회원 전체를 변경분으로 받는다.
+     */
+    public SyncResponse<MemberChangeDto> memberChanges(String cursor, int size) {
+        return sync(Tombstone.MEMBER, cursor, size,
+                (position, until, limit) -> memberRepository.findChangedAfter(position.changedAt(), position.changeId(), until, limit),
+                MemberChangeDto::getId, MemberChangeDto::getUpdatedDate);
+    }
+
+    public SyncResponse<TeamChangeDto> teamChanges(String cursor, int size) {
+        return sync(Tombstone.TEAM, cursor, size,
+                (position, until, limit) -> teamRepository.findChangedAfter(position.changedAt(), position.changeId(), until, limit),
+                TeamChangeDto::getId, TeamChangeDto::getUpdatedDate);
+    }
+
+    @Scheduled(fixedDelayString = "${sync.tombstone.purge-interval-ms:3600000}")
+    @Transactional
+    public int purgeTombstones() {
+        int purged = tombstoneRepository.deleteAllDeletedBefore(auditingClock.now().minus(tombstoneRetention));
+        if (purged > 0) {
+            log.info("purged {} tombstones older than {}", purged, tombstoneRetention);
+        }
+        return purged;
+    }
+
+    private <T> SyncResponse<T> sync(String entityType, String cursor, int size, ChangeQuery<T> changeQuery,
+                                     Function<T, Long> idOf, Function<T, LocalDateTime> updatedDateOf) {
+        int pageSize = Math.max(1, Math.min(size, maxPageSize));
+        LocalDateTime now = auditingClock.now();
+        LocalDateTime until = now.minus(safetyLag);
+
+        SyncCursor position;
+        if (cursor == null || cursor.isBlank()) {
+            // 처음 받는 클라이언트는 지금까지의 삭제를 알 필요가 없다.
+            position = new SyncCursor(BEGINNING, 0L, until, 0L);
+        } else {
+            position = SyncCursor.parse(cursor);
+            // 보관 기간이 지나 지워졌을 수 있는 tombstone 이후부터는 삭제를 빠짐없이 줄 수 없다.
+            if (position.deletedAt().isBefore(now.minus(tombstoneRetention))) {
+                return SyncResponse.reset();
+            }
+        }
+
+        // 한 건 더 읽어 다음 페이지가 있는지 판단한다.
+        List<T> changes = changeQuery.find(position, until, Limit.of(pageSize + 1));
+        List<TombstoneDto> tombstones = tombstoneRepository.findDeletedAfter(
+                entityType, position.deletedAt(), position.tombstoneId(), until, Limit.of(pageSize + 1));
+        boolean moreChanges = changes.size() > pageSize;
+        boolean moreTombstones = tombstones.size() > pageSize;
+        if (moreChanges) {
+            changes = changes.subList(0, pageSize);
+        }
+        if (moreTombstones) {
+            tombstones = tombstones.subList(0, pageSize);
+        }
+
+        // 다 읽었으면 until 까지 받은 것이므로 그 위치로 옮긴다. 변경이 없는 동안에도 tombstone 위치가 보관 기간 밖으로 밀려나지 않는다.
+        LocalDateTime changedAt = position.changedAt();
+        long changeId = position.changeId();
+        if (moreChanges) {
+            T last = changes.get(changes.size() - 1);
+            changedAt = updatedDateOf.apply(last);
+            changeId = idOf.apply(last);
+        } else if (until.isAfter(changedAt)) {
+            changedAt = until;
+            changeId = Long.MAX_VALUE;
+        }
+
+        LocalDateTime deletedAt = position.deletedAt();
+        long tombstoneId = position.tombstoneId();
+        if (moreTombstones) {
+            TombstoneDto last = tombstones.get(tombstones.size() - 1);
+            deletedAt = last.getDeletedAt();
+            tombstoneId = last.getId();
+        } else if (until.isAfter(deletedAt)) {
+            deletedAt = until;
+            tombstoneId = Long.MAX_VALUE;
+        }
+
+        List<Long> deletedIds = tombstones.stream().map(TombstoneDto::getEntityId).toList();
+        String next = new SyncCursor(changedAt, changeId, deletedAt, tombstoneId).encode();
+        return new SyncResponse<>(changes, deletedIds, next, moreChanges || moreTombstones, false);
+    }
+
+    @FunctionalInterface
+    private interface ChangeQuery<T> {
+        List<T> find(SyncCursor position, LocalDateTime until, Limit limit);
+    }
+
+}
@@ -3,15 +3,30 @@ package study.springdatajpa.service;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import study.springdatajpa.auditor.AuditingClock;
 import study.springdatajpa.entity.Member;
 import study.springdatajpa.entity.Team;
 import study.springdatajpa.entity.TeamMember;
+import study.springdatajpa.outbox.OutboxWriter;
 import study.springdatajpa.repository.MemberRepository;
+import study.springdatajpa.repository.MembershipRemover;
+import study.springdatajpa.repository.TeamMemberCounter;
 import study.springdatajpa.repository.TeamMemberRepository;
 import study.springdatajpa.repository.TeamRepository;
+import study.springdatajpa.repository.query.MemberQueryDto;
+import study.springdatajpa.repository.query.PageVersionDto;
+import study.springdatajpa.repository.query.TeamAgeStatsDto;
+import study.springdatajpa.repository.query.TeamQueryDto;
+import study.springdatajpa.repository.query.TeamSummaryDto;
+import study.springdatajpa.repository.query.VersionDto;
+import study.springdatajpa.retry.RetryOnConflict;
 
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 @Service
@@ -22,31 +37,115 @@ public class TeamService {
 
     public final TeamRepository teamRepository;
     public final MemberRepository memberRepository;
+    public final TeamMemberRepository teamMemberRepository;
+    public final TeamMemberCounter teamMemberCounter;
+    public final OutboxWriter outboxWriter;
+    public final MembershipRemover membershipRemover;
+    public final AuditingClock auditingClock;
 
     @Transactional
     public Team createTeam(Team team) {
         teamRepository.save(team);
+        outboxWriter.append(OutboxWriter.TEAM, team.getId(), "TeamCreated", new TeamQueryDto(team.getId(), team.getName()));
         return team;
     }
 
+    /**
+     * soft delete. 팀원 row 는 벌크로 지우고, team row 는 SoftDeletePurgeJob 이 나중에 지운다.
+     * @return 삭제할 팀이 없었으면 false
+     */
+    @Transactional
+    public boolean deleteTeam(Long teamId) {
+        Optional<Team> team = teamRepository.findById(teamId);
+        if (team.isEmpty()) {
+            return false;
+        }
+        membershipRemover.removeByTeamId(teamId);
+        team.get().softDelete(auditingClock.now());
+        outboxWriter.append(OutboxWriter.TEAM, teamId, "TeamDeleted", Map.of("teamId", teamId));
+        return true;
+    }
+
     public Optional<Team> findById(Long id) {
         return teamRepository.findById(id);
     }
 
+    public Optional<VersionDto> findVersion(Long teamId) {
+        return teamRepository.findVersionById(teamId);
+    }
+
+    // 팀 목록 ETag 재료. 팀 자체의 변경과 팀원 수 변경을 모두 본다.
+    public List<PageVersionDto> findDirectoryVersion() {
+        return List.of(teamRepository.findPageVersion(), teamRepository.findMembershipVersion());
+    }
+
+    /**
+     * 팀 목록 + 팀원 수.
+     * 집계 테이블이 켜져 있으면 O(팀 수), 아니면 team_member group by 로 계산한다.
+     */
+    public Page<TeamSummaryDto> findTeamDirectory(Pageable pageable) {
+        if (teamMemberCounter.isEnabled()) {
+            return teamRepository.findTeamSummariesFromCounter(pageable);
+        }
+        return teamRepository.findTeamSummaries(pageable);
+    }
+
+    /**
+     * 팀원 수. Team.teamMembers.size() 는 팀원 전체를 로딩하므로 count 쿼리로 센다.
+     */
+    public long countMembers(Long teamId) {
+        return teamMemberRepository.countByTeamId(teamId);
+    }
+
+    // Team.teamMembers.contains() 대신. (member, team) unique 인덱스로 row 하나만 확인한다.
+    public boolean hasMember(Long teamId, Long memberId) {
+        return teamMemberRepository.existsByTeamIdAndMemberId(teamId, memberId);
+    }
 
+    public Page<MemberQueryDto> findRoster(Long teamId, Pageable pageable) {
+        return memberRepository.findMembersByTeamId(teamId, pageable);
+    }
+
+    public List<TeamAgeStatsDto> findAgeStats() {
+        return teamRepository.findAgeStatsPerTeam();
+    }
+
+    public Optional<TeamAgeStatsDto> findAgeStats(Long teamId) {
+        return teamRepository.findAgeStatsByTeamId(teamId);
+    }
+
+
+    @RetryOnConflict
     @Transactional
     public Team addMemberToTeam(Long teamId, Long memberId) {
 
-        Team team = teamRepository.findById(teamId)
+        Team team = teamRepository.findForMembershipChangeById(teamId)
                 .orElseThrow(() -> new IllegalArgumentException("Team does not exist"));
 
         Member member = memberRepository.findById(memberId)
                 .orElseThrow(() -> new IllegalStateException("Member with id " + memberId + " not found"));
 
         team.addMember(member);
+        outboxWriter.append(OutboxWriter.MEMBER, memberId, "MemberJoinedTeam", Map.of("memberId", memberId, "teamId", teamId));
 
         return teamRepository.save(team);
     }
 
 
+    /**
+     * 여러 member 를 한 팀에 한 번에 추가한다. 이미 팀원인 member 는 건너뛴다.
+     * @return 새로 추가된 팀원 수
+     */
+    @Transactional
+    public int ensureMembers(Long teamId, List<Long> memberIds) {
+        int inserted = teamMemberRepository.ensureMemberships(teamId, memberIds);
+        if (inserted > 0) {
+            // 어떤 member 가 새로 들어왔는지는 알 수 없으므로 요청한 목록을 팀 이벤트로 남긴다.
+            outboxWriter.append(OutboxWriter.TEAM, teamId, "TeamMembersEnsured",
+                    Map.of("teamId", teamId, "memberIds", memberIds, "inserted", inserted));
+        }
+        return inserted;
+    }
+
+
 }
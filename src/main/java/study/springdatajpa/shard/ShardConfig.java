@@ -0,0 +1,43 @@
+package study.springdatajpa.shard;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * member.shard.enabled=true 일 때 샤드 DataSource 를 url-template 의 %d 에 0..count-1 을 넣어 만든다.
+ * 로컬에서는 in-memory H2 여러 개로 띄운다. 각 샤드는 자기 커넥션 풀을 가진다.
+ */
+@Configuration
+@ConditionalOnProperty(name = "member.shard.enabled", havingValue = "true")
+public class ShardConfig {
+
+    @Bean(destroyMethod = "close")
+    public ShardRouter shardRouter(@Value("${member.shard.count:4}") int count,
+                                   @Value("${member.shard.url-template:jdbc:h2:mem:member_shard_%d;DB_CLOSE_DELAY=-1}") String urlTemplate,
+                                   @Value("${member.shard.username:sa}") String username,
+                                   @Value("${member.shard.password:}") String password,
+                                   @Value("${member.shard.pool-size:5}") int poolSize) {
+        ResourceDatabasePopulator schema = new ResourceDatabasePopulator(new ClassPathResource("shard-schema.sql"));
+        List<HikariDataSource> dataSources = new ArrayList<>(count);
+        for (int shard = 0; shard < count; shard++) {
+            HikariDataSource dataSource = new HikariDataSource();
+            dataSource.setPoolName("member-shard-" + shard);
+            dataSource.setJdbcUrl(urlTemplate.formatted(shard));
+            dataSource.setUsername(username);
+            dataSource.setPassword(password);
+            dataSource.setMaximumPoolSize(poolSize);
+            schema.execute(dataSource);
+            dataSources.add(dataSource);
+        }
+        return new ShardRouter(dataSources);
+    }
+
+}
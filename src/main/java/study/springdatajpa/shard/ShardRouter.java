@@ -0,0 +1,106 @@
+package study.springdatajpa.shard;
+
+import com.google.common.hash.Hashing;
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.springdatajpa.tenant.TenantContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * member id 로 샤드를 고르고, 샤드별 JdbcTemplate / 로컬 트랜잭션 / 전체 샤드 동시 조회(scatter)를 제공한다.
+ * 샤드 번호는 murmur3(member_id) 의 consistent hash 다. snowflake id 는 하위 비트가 sequence 라 그대로 나누면 한쪽으로 몰린다.
+ * consistent hash 라서 샤드를 N -> N+1 로 늘릴 때 옮겨야 하는 row 가 약 1/(N+1) 이다.
+ * 샤드 DataSource 는 bean 으로 등록하지 않는다. (등록하면 기본 DataSource / JPA 자동 설정이 빠진다.)
+ */
+public class ShardRouter implements AutoCloseable {
+
+    private final List<HikariDataSource> dataSources;
+    private final List<JdbcTemplate> jdbcTemplates = new ArrayList<>();
+    private final List<TransactionTemplate> transactionTemplates = new ArrayList<>();
+    private final ExecutorService scatterExecutor;
+    private final Executor tenantAwareExecutor;
+
+    public ShardRouter(List<HikariDataSource> dataSources) {
+        if (dataSources.isEmpty()) {
+            throw new IllegalArgumentException("at least one shard is required");
+        }
+        this.dataSources = List.copyOf(dataSources);
+        for (HikariDataSource dataSource : this.dataSources) {
+            jdbcTemplates.add(new JdbcTemplate(dataSource));
+            transactionTemplates.add(new TransactionTemplate(new DataSourceTransactionManager(dataSource)));
+        }
+        AtomicInteger threads = new AtomicInteger();
+        this.scatterExecutor = Executors.newFixedThreadPool(dataSources.size(), runnable -> {
+            Thread thread = new Thread(runnable, "member-shard-scatter-" + threads.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+        // 샤드 쿼리에도 요청의 tenant 조건이 들어가야 한다.
+        this.tenantAwareExecutor = task -> scatterExecutor.execute(TenantContext.wrap(task));
+    }
+
+    public int shardCount() {
+        return dataSources.size();
+    }
+
+    public int shardOf(long memberId) {
+        return Hashing.consistentHash(Hashing.murmur3_128().hashLong(memberId), dataSources.size());
+    }
+
+    public JdbcTemplate jdbc(int shard) {
+        return jdbcTemplates.get(shard);
+    }
+
+    public JdbcTemplate jdbcFor(long memberId) {
+        return jdbc(shardOf(memberId));
+    }
+
+    /**
+     * member 와 그 team_member 는 같은 샤드에 있으므로 한 샤드의 로컬 트랜잭션으로 충분하다.
+     */
+    public <T> T inTransaction(long memberId, Function<JdbcTemplate, T> work) {
+        int shard = shardOf(memberId);
+        return transactionTemplates.get(shard).execute(status -> work.apply(jdbc(shard)));
+    }
+
+    /**
+     * 모든 샤드에 같은 쿼리를 동시에 보내고 샤드 순서대로 결과를 모은다. 가장 느린 샤드만큼 걸린다.
+     */
+    public <T> List<T> scatter(Function<JdbcTemplate, T> query) {
+        List<CompletableFuture<T>> futures = new ArrayList<>(jdbcTemplates.size());
+        for (JdbcTemplate jdbcTemplate : jdbcTemplates) {
+            futures.add(CompletableFuture.supplyAsync(() -> query.apply(jdbcTemplate), tenantAwareExecutor));
+        }
+        List<T> results = new ArrayList<>(futures.size());
+        try {
+            for (CompletableFuture<T> future : futures) {
+                results.add(future.join());
+            }
+        } catch (CompletionException e) {
+            futures.forEach(future -> future.cancel(false));
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+        return results;
+    }
+
+    @Override
+    public void close() {
+        scatterExecutor.shutdown();
+        dataSources.forEach(HikariDataSource::close);
+    }
+
+}
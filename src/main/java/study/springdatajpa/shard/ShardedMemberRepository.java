@@ -0,0 +1,173 @@
+package study.springdatajpa.shard;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+import study.springdatajpa.auditor.AuditingClock;
+import study.springdatajpa.entity.id.ConfigurableIdGenerator;
+import study.springdatajpa.entity.id.SnowflakeIdGenerator;
+import study.springdatajpa.repository.query.MemberQueryDto;
+import study.springdatajpa.tenant.TenantContext;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * member / team_member 를 member_id 기준으로 샤드에 나눠 저장한다. (member.shard.enabled=true 일 때만)
+ * team_member 는 member 와 같은 샤드에 두므로 회원 단위 쓰기/조회는 샤드 하나, 로컬 트랜잭션 하나로 끝난다.
+ * 목록 조회는 모든 샤드에 같은 정렬로 offset + size 개씩 요청하고 k-way merge 로 한 페이지를 만든다.
+ * 그래서 뒤쪽 페이지일수록 샤드마다 읽는 row 가 늘어난다. 깊은 페이지는 keyset 으로 바꾸는 편이 낫다.
+ * id 는 DB 왕복 없이 snowflake 로 먼저 정해야 샤드를 고를 수 있다.
+ * team 은 샤드하지 않고 기본 DB 에 있으므로, team 존재 확인은 호출하는 쪽에서 한다.
+ */
+@Repository
+@ConditionalOnProperty(name = "member.shard.enabled", havingValue = "true")
+public class ShardedMemberRepository {
+
+    private static final String SELECT_MEMBER = "SELECT member_id, member_name, member_age FROM member WHERE tenant_id = ?";
+
+    // (member, team) 이 없을 때만 insert 한다. 같은 샤드의 member 가 현재 tenant 일 때만 source 가 있다.
+    private static final String MERGE_MEMBERSHIP =
+            "MERGE INTO team_member t " +
+            "USING (SELECT m.member_id, CAST(? AS BIGINT) AS team_id, m.tenant_id FROM member m " +
+            "WHERE m.member_id = ? AND m.tenant_id = ?) s " +
+            "ON t.member_id = s.member_id AND t.team_id = s.team_id " +
+            "WHEN NOT MATCHED THEN INSERT (id, member_id, team_id, tenant_id) VALUES (?, s.member_id, s.team_id, s.tenant_id)";
+
+    // 정렬 가능한 속성 -> (SQL 컬럼, 같은 순서의 comparator). DB 와 comparator 의 null 순서를 맞추기 위해 NULLS FIRST/LAST 를 명시한다.
+    private static final Map<String, SortKey> SORTABLE = Map.of(
+            "id", new SortKey("member_id", Comparator.comparing(MemberQueryDto::getId)),
+            "memberName", new SortKey("member_name", Comparator.comparing(MemberQueryDto::getMemberName,
+                    Comparator.nullsFirst(Comparator.naturalOrder()))),
+            "age", new SortKey("member_age", Comparator.comparingInt(MemberQueryDto::getAge)));
+
+    private static final RowMapper<MemberQueryDto> MEMBER_QUERY_DTO =
+            (rs, rowNum) -> new MemberQueryDto(rs.getLong(1), rs.getString(2), rs.getInt(3));
+
+    private final ShardRouter shardRouter;
+    private final AuditingClock auditingClock;
+    private final SnowflakeIdGenerator idGenerator;
+
+    public ShardedMemberRepository(ShardRouter shardRouter, AuditingClock auditingClock,
+                                   @Value("${spring.jpa.properties.app.id.node-id:0}") long nodeId) {
+        this.shardRouter = shardRouter;
+        this.auditingClock = auditingClock;
+        this.idGenerator = ConfigurableIdGenerator.snowflake(nodeId);
+    }
+
+    public MemberQueryDto save(String memberName, int age) {
+        long memberId = idGenerator.nextId();
+        LocalDateTime now = auditingClock.now();
+        shardRouter.jdbcFor(memberId).update("INSERT INTO member (member_id, tenant_id, member_name, member_age, created_date, updated_date) " +
+                "VALUES (?, ?, ?, ?, ?, ?)", memberId, TenantContext.currentTenant(), memberName, age, now, now);
+        return new MemberQueryDto(memberId, memberName, age);
+    }
+
+    public Optional<MemberQueryDto> findById(long memberId) {
+        return shardRouter.jdbcFor(memberId).query(SELECT_MEMBER + " AND member_id = ?", MEMBER_QUERY_DTO,
+                TenantContext.currentTenant(), memberId).stream().findFirst();
+    }
+
+    public boolean update(long memberId, String memberName, int age) {
+        return shardRouter.jdbcFor(memberId).update("UPDATE member SET member_name = ?, member_age = ?, updated_date = ? " +
+                "WHERE member_id = ? AND tenant_id = ?", memberName, age, auditingClock.now(), memberId, TenantContext.currentTenant()) > 0;
+    }
+
+    /**
+     * @return 새로 추가되었으면 true. 이미 팀원이거나 현재 tenant 의 member 가 아니면 false
+     */
+    public boolean addTeam(long memberId, long teamId) {
+        return shardRouter.jdbcFor(memberId).update(MERGE_MEMBERSHIP,
+                teamId, memberId, TenantContext.currentTenant(), idGenerator.nextId()) > 0;
+    }
+
+    public List<Long> findTeamIds(long memberId) {
+        return shardRouter.jdbcFor(memberId).queryForList("SELECT team_id FROM team_member " +
+                "WHERE member_id = ? AND tenant_id = ? ORDER BY team_id", Long.class, memberId, TenantContext.currentTenant());
+    }
+
+    // 팀원 row 와 member 를 같은 샤드의 한 트랜잭션으로 지운다.
+    public boolean deleteById(long memberId) {
+        String tenantId = TenantContext.currentTenant();
+        return shardRouter.inTransaction(memberId, jdbc -> {
+            jdbc.update("DELETE FROM team_member WHERE member_id = ? AND tenant_id = ?", memberId, tenantId);
+            return jdbc.update("DELETE FROM member WHERE member_id = ? AND tenant_id = ?", memberId, tenantId) > 0;
+        });
+    }
+
+    public Page<MemberQueryDto> findAll(Pageable pageable) {
+        return scatterPage("", List.of(), pageable);
+    }
+
+    public Page<MemberQueryDto> findByMemberNameContaining(String memberName, Pageable pageable) {
+        return scatterPage(" AND member_name LIKE ? ESCAPE '\\'", List.of("%" + escapeLike(memberName) + "%"), pageable);
+    }
+
+    private Page<MemberQueryDto> scatterPage(String condition, List<Object> conditionArgs, Pageable pageable) {
+        List<Object> args = new ArrayList<>();
+        args.add(TenantContext.currentTenant());
+        args.addAll(conditionArgs);
+        Object[] countArgs = args.toArray();
+
+        String sql = SELECT_MEMBER + condition + " ORDER BY " + orderBy(pageable.getSort());
+        long offset = pageable.isPaged() ? pageable.getOffset() : 0;
+        int limit = pageable.isPaged() ? pageable.getPageSize() : Integer.MAX_VALUE;
+        if (pageable.isPaged()) {
+            // 어느 샤드에서 몇 개가 이 페이지에 들어올지 모르므로 샤드마다 offset + size 개를 가져온다.
+            sql += " FETCH FIRST ? ROWS ONLY";
+            args.add(offset + limit);
+        }
+        String query = sql;
+        Object[] queryArgs = args.toArray();
+
+        List<List<MemberQueryDto>> perShard = shardRouter.scatter(jdbc -> jdbc.query(query, MEMBER_QUERY_DTO, queryArgs));
+        List<MemberQueryDto> content = SortedMerge.merge(perShard, comparator(pageable.getSort()), offset, limit);
+        return PageableExecutionUtils.getPage(content, pageable,
+                () -> shardRouter.scatter(jdbc -> jdbc.queryForObject("SELECT COUNT(*) FROM member WHERE tenant_id = ?" + condition,
+                        Long.class, countArgs)).stream().mapToLong(Long::longValue).sum());
+    }
+
+    // 정렬 속성은 SQL 에 그대로 들어가므로 허용 목록만 받는다. id 를 마지막에 붙여 샤드 사이의 순서도 하나로 고정한다.
+    private String orderBy(Sort sort) {
+        List<String> orders = new ArrayList<>();
+        for (Sort.Order order : sort) {
+            orders.add(sortKey(order).column() + (order.isAscending() ? " ASC NULLS FIRST" : " DESC NULLS LAST"));
+        }
+        orders.add("member_id ASC");
+        return String.join(", ", orders);
+    }
+
+    private Comparator<MemberQueryDto> comparator(Sort sort) {
+        Comparator<MemberQueryDto> comparator = (a, b) -> 0;
+        for (Sort.Order order : sort) {
+            Comparator<MemberQueryDto> ascending = sortKey(order).ascending();
+            comparator = comparator.thenComparing(order.isAscending() ? ascending : ascending.reversed());
+        }
+        return comparator.thenComparing(MemberQueryDto::getId);
+    }
+
+    private SortKey sortKey(Sort.Order order) {
+        SortKey sortKey = SORTABLE.get(order.getProperty());
+        if (sortKey == null) {
+            throw new IllegalArgumentException("unsupported sort property: " + order.getProperty());
+        }
+        return sortKey;
+    }
+
+    private static String escapeLike(String value) {
+        return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+
+    private record SortKey(String column, Comparator<MemberQueryDto> ascending) {
+    }
+
+}
@@ -0,0 +1,61 @@
+package study.springdatajpa.shard;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * 각자 정렬된 샤드 결과를 하나의 정렬 순서로 합친다 (k-way merge).
+ * 샤드마다 맨 앞 원소 하나씩만 heap 에 두므로 전체를 모아 다시 정렬하지 않고, offset + limit 개만 꺼내면 멈춘다.
+ * 각 목록은 comparator 와 같은 순서로 정렬되어 있어야 한다.
+ */
+public final class SortedMerge {
+
+    private SortedMerge() {
+    }
+
+    public static <T> List<T> merge(List<? extends List<T>> sortedLists, Comparator<? super T> comparator, long offset, int limit) {
+        PriorityQueue<Cursor<T>> heap = new PriorityQueue<>(Math.max(1, sortedLists.size()),
+                (a, b) -> comparator.compare(a.current(), b.current()));
+        for (List<T> list : sortedLists) {
+            if (!list.isEmpty()) {
+                heap.add(new Cursor<>(list));
+            }
+        }
+
+        List<T> merged = new ArrayList<>(Math.min(limit, 1024));
+        long skipped = 0;
+        while (!heap.isEmpty() && merged.size() < limit) {
+            Cursor<T> cursor = heap.poll();
+            if (skipped < offset) {
+                skipped++;
+            } else {
+                merged.add(cursor.current());
+            }
+            if (cursor.advance()) {
+                heap.add(cursor);
+            }
+        }
+        return merged;
+    }
+
+    private static final class Cursor<T> {
+
+        private final List<T> list;
+        private int position;
+
+        private Cursor(List<T> list) {
+            this.list = list;
+        }
+
+        T current() {
+            return list.get(position);
+        }
+
+        boolean advance() {
+            return ++position < list.size();
+        }
+    }
+
+}
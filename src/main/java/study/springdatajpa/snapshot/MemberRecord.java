@@ -0,0 +1,58 @@
+package study.springdatajpa.snapshot;
+
+import study.springdatajpa.repository.query.MemberQueryDto;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * MemberSnapshotStore 에서 읽은 한 건을 담는 재사용 객체.
+ * 호출자가 하나 만들어 두고 계속 넘기면 조회 자체는 할당 없이 끝난다. (이름 버퍼가 모자랄 때만 늘린다.)
+ * 문자열/DTO 가 필요할 때만 {@link #memberName()}, {@link #toDto()} 로 만든다.
+ */
+public final class MemberRecord {
+
+    private long id;
+    private int age;
+    private byte[] name = new byte[64];
+    // -1 이면 이름이 null
+    private int nameLength;
+
+    public long getId() {
+        return id;
+    }
+
+    public int getAge() {
+        return age;
+    }
+
+    public int getNameLength() {
+        return nameLength;
+    }
+
+    // UTF-8 바이트. 앞의 nameLength 개만 유효하다.
+    public byte[] getNameBytes() {
+        return name;
+    }
+
+    public String memberName() {
+        return nameLength < 0 ? null : new String(name, 0, nameLength, StandardCharsets.UTF_8);
+    }
+
+    public MemberQueryDto toDto() {
+        return new MemberQueryDto(id, memberName(), age);
+    }
+
+    void set(long id, int age, int nameLength) {
+        this.id = id;
+        this.age = age;
+        this.nameLength = nameLength;
+    }
+
+    byte[] nameBuffer(int length) {
+        if (name.length < length) {
+            name = new byte[Math.max(length, name.length * 2)];
+        }
+        return name;
+    }
+
+}
@@ -0,0 +1,222 @@
+package study.springdatajpa.snapshot;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import study.springdatajpa.repository.query.MemberQueryDto;
+import study.springdatajpa.tenant.TenantContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * member 테이블의 in-process 읽기 복제본 (member.snapshot.enabled=true 일 때만).
+ * 시작 시 테이블을 한 번 스트리밍해서 채우고, 이후에는 Member entity 이벤트를 커밋된 뒤에 반영한다.
+ * 벌크 update 처럼 entity 이벤트가 없는 변경은 reloadAfterCommit() 으로 다시 읽는다.
+ * reload 는 전용 스레드 하나에서 차례로 실행하고, 실행 전에 쌓인 요청은 한 번으로 합친다.
+ * 복제본이므로 커밋 직후 아주 짧은 시간 동안은 이전 값을 돌려줄 수 있다.
+ * store 는 tenant 별로 따로 두고, 조회는 현재 tenant 의 store 에서만 한다.
+ */
+@Component
+@Slf4j
+public class MemberSnapshot {
+
+    private static final ThreadLocal<MemberRecord> RECORDS = ThreadLocal.withInitial(MemberRecord::new);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final boolean enabled;
+
+    private volatile Map<String, MemberSnapshotStore> stores = new ConcurrentHashMap<>();
+    private volatile boolean loaded;
+
+    // reload 중에 커밋된 변경. 새 store 로 바꾸기 직전에 다시 적용한다. reload 는 한 번에 하나만 실행되므로 하나면 된다.
+    private List<Change> replay;
+
+    // 시작 시 load 와 요청된 reload 가 겹치지 않게 한다.
+    private final Object reloadLock = new Object();
+    // 아직 시작하지 않은 reload 가 있으면 true. 그 사이의 요청은 그 reload 에 합쳐진다.
+    private final AtomicBoolean reloadPending = new AtomicBoolean();
+    private final ExecutorService reloadExecutor;
+
+    public MemberSnapshot(JdbcTemplate jdbcTemplate, @Value("${member.snapshot.enabled:false}") boolean enabled) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.enabled = enabled;
+        this.reloadExecutor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "member-snapshot-reload");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public boolean isAvailable() {
+        return enabled && loaded;
+    }
+
+    /**
+     * 할당 없는 조회. target 을 재사용하면 된다.
+     */
+    public boolean read(long memberId, MemberRecord target) {
+        if (!isAvailable()) {
+            return false;
+        }
+        MemberSnapshotStore store = stores.get(TenantContext.currentTenant());
+        return store != null && store.read(memberId, target);
+    }
+
+    // DTO 로 바꿀 때 쓰는 스레드별 버퍼. DTO 와 이름 String 외에는 할당하지 않는다.
+    public Optional<MemberQueryDto> findDto(long memberId) {
+        MemberRecord record = RECORDS.get();
+        return read(memberId, record) ? Optional.of(record.toDto()) : Optional.empty();
+    }
+
+    public void memberSaved(String tenantId, Long memberId, String memberName, int age) {
+        afterCommit(new Change(tenantId, memberId, memberName, age, false));
+    }
+
+    // member id 는 tenant 를 넘어 겹치지 않으므로 tenant 를 몰라도(보관 작업) 지울 수 있다.
+    public void memberRemoved(Long memberId) {
+        afterCommit(new Change(null, memberId, null, 0, true));
+    }
+
+    /**
+     * 커밋된 뒤 reload 를 요청한다. 테이블 전체를 읽으므로 요청 스레드에서 기다리지 않고 reload 스레드에 넘긴다.
+     */
+    public void reloadAfterCommit() {
+        if (!enabled) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    requestReload();
+                }
+            });
+        } else {
+            requestReload();
+        }
+    }
+
+    // 실행 중인 reload 가 시작된 뒤에 온 요청은 다음 reload 로 한 번 더 읽는다.
+    private void requestReload() {
+        if (reloadPending.compareAndSet(false, true)) {
+            reloadExecutor.execute(() -> {
+                reloadPending.set(false);
+                try {
+                    reload();
+                } catch (RuntimeException e) {
+                    log.warn("member snapshot reload failed, keeping previous snapshot", e);
+                }
+            });
+        }
+    }
+
+    /**
+     * 새 store 를 만들어 테이블 전체를 스트리밍으로 채운 뒤 교체한다. 그동안 읽기는 이전 store 로 계속된다.
+     */
+    public void reload() {
+        synchronized (reloadLock) {
+            load();
+        }
+    }
+
+    private void load() {
+        synchronized (this) {
+            replay = new ArrayList<>();
+        }
+        Map<String, MemberSnapshotStore> loading = new ConcurrentHashMap<>();
+        try {
+            jdbcTemplate.query("SELECT tenant_id, COUNT(*) FROM member WHERE deleted_at IS NULL GROUP BY tenant_id",
+                    rs -> {
+                        loading.put(rs.getString(1), new MemberSnapshotStore(rs.getInt(2)));
+                    });
+            // 결과를 List 로 모으지 않고 row 단위로 store 에 넣는다.
+            jdbcTemplate.query(connection -> {
+                var statement = connection.prepareStatement("SELECT tenant_id, member_id, member_name, member_age FROM member WHERE deleted_at IS NULL");
+                statement.setFetchSize(1000);
+                return statement;
+            }, rs -> {
+                storeOf(loading, rs.getString(1)).put(rs.getLong(2), rs.getString(3), rs.getInt(4));
+            });
+        } catch (RuntimeException e) {
+            // 실패하면 이전 store 를 그대로 쓴다.
+            synchronized (this) {
+                replay = null;
+            }
+            throw e;
+        }
+
+        synchronized (this) {
+            replay.forEach(change -> change.applyTo(loading));
+            replay = null;
+            stores = loading;
+            loaded = true;
+        }
+        log.info("member snapshot loaded : {} tenants, {} rows, {} bytes off-heap", loading.size(),
+                loading.values().stream().mapToInt(MemberSnapshotStore::size).sum(),
+                loading.values().stream().mapToLong(MemberSnapshotStore::offHeapBytes).sum());
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadOnStartup() {
+        if (enabled) {
+            reload();
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        reloadExecutor.shutdownNow();
+    }
+
+    private void afterCommit(Change change) {
+        if (!enabled) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    apply(change);
+                }
+            });
+        } else {
+            apply(change);
+        }
+    }
+
+    private synchronized void apply(Change change) {
+        change.applyTo(stores);
+        if (replay != null) {
+            replay.add(change);
+        }
+    }
+
+    private static MemberSnapshotStore storeOf(Map<String, MemberSnapshotStore> stores, String tenantId) {
+        return stores.computeIfAbsent(tenantId, key -> new MemberSnapshotStore(0));
+    }
+
+    private record Change(String tenantId, long memberId, String memberName, int age, boolean removed) {
+
+        void applyTo(Map<String, MemberSnapshotStore> target) {
+            if (removed) {
+                target.values().forEach(store -> store.remove(memberId));
+            } else {
+                storeOf(target, tenantId).put(memberId, memberName, age);
+            }
+        }
+    }
+
+}
@@ -0,0 +1,227 @@
+package study.springdatajpa.snapshot;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * member (id -> name, age) 의 압축 저장소.
+ * <ul>
+ *     <li>index : long[] key / int[] offset 의 open addressing (linear probing) 해시. 박싱된 Long 이나 Entry 객체가 없다.</li>
+ *     <li>arena : direct ByteBuffer (heap 밖). record = [int age][short nameLength][UTF-8 name]</li>
+ * </ul>
+ * 수정은 새 record 를 arena 끝에 붙이고 offset 만 바꾼다. 버려진 공간이 절반을 넘으면 살아있는 record 만 새 arena 로 옮긴다.
+ * 쓰기는 한 번에 하나(write lock)이고, 읽기는 StampedLock optimistic read 로 lock 없이 읽은 뒤 검증한다.
+ */
+public class MemberSnapshotStore {
+
+    private static final long EMPTY_KEY = 0L;            // member id 는 0 이 아니라고 가정 (0 은 별도 슬롯)
+    private static final int REMOVED = -1;               // 삭제된 슬롯. key 는 남겨 probing 이 끊기지 않게 한다.
+    private static final int HEADER_BYTES = Integer.BYTES + Short.BYTES;
+    private static final int NULL_NAME = -1;
+    private static final float MAX_LOAD = 0.6f;
+
+    private final StampedLock lock = new StampedLock();
+
+    private long[] keys;
+    private int[] offsets;
+    private int mask;
+    private int used;       // 사용 중이거나 REMOVED 인 슬롯 수
+    private int size;       // 살아있는 record 수
+
+    private ByteBuffer arena;
+    private int writePosition;
+    private long garbageBytes;
+
+    public MemberSnapshotStore(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(16, (int) (expectedSize / MAX_LOAD)) - 1) << 1;
+        this.keys = new long[capacity];
+        this.offsets = new int[capacity];
+        this.mask = capacity - 1;
+        this.arena = ByteBuffer.allocateDirect(Math.max(4096, expectedSize * 32));
+    }
+
+    /**
+     * @return 있으면 target 에 채우고 true
+     */
+    public boolean read(long id, MemberRecord target) {
+        long stamp = lock.tryOptimisticRead();
+        if (stamp != 0L) {
+            try {
+                boolean found = readUnlocked(id, target);
+                if (lock.validate(stamp)) {
+                    return found;
+                }
+            } catch (RuntimeException ignored) {
+                // 읽는 도중 배열/arena 가 교체되었다. 아래에서 read lock 으로 다시 읽는다.
+            }
+        }
+        stamp = lock.readLock();
+        try {
+            return readUnlocked(id, target);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    private boolean readUnlocked(long id, MemberRecord target) {
+        long[] keys = this.keys;
+        int[] offsets = this.offsets;
+        ByteBuffer arena = this.arena;
+        int mask = keys.length - 1;
+
+        // optimistic read 중에는 교체 중인 배열을 볼 수 있으므로 probing 횟수를 제한한다.
+        for (int slot = slot(id, mask), probes = 0; probes < keys.length; slot = (slot + 1) & mask, probes++) {
+            long key = keys[slot];
+            int offset = offsets[slot];
+            if (key == EMPTY_KEY && offset == 0) {
+                return false;
+            }
+            if (key == id) {
+                if (offset == REMOVED) {
+                    return false;
+                }
+                int age = arena.getInt(offset - 1);
+                int nameLength = arena.getShort(offset - 1 + Integer.BYTES);
+                if (nameLength > 0) {
+                    arena.get(offset - 1 + HEADER_BYTES, target.nameBuffer(nameLength), 0, nameLength);
+                }
+                target.set(id, age, nameLength);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public void put(long id, String memberName, int age) {
+        byte[] name = memberName == null ? null : memberName.getBytes(StandardCharsets.UTF_8);
+        if (name != null && name.length > Short.MAX_VALUE) {
+            throw new IllegalArgumentException("member name too long : " + name.length + " bytes");
+        }
+        int recordBytes = HEADER_BYTES + (name == null ? 0 : name.length);
+
+        long stamp = lock.writeLock();
+        try {
+            ensureArena(recordBytes);
+            ensureIndex();
+
+            // offset 0 은 빈 슬롯 표시로 쓰므로 실제 위치 + 1 을 저장한다.
+            int offset = writePosition + 1;
+            arena.putInt(writePosition, age);
+            arena.putShort(writePosition + Integer.BYTES, (short) (name == null ? NULL_NAME : name.length));
+            if (name != null) {
+                arena.put(writePosition + HEADER_BYTES, name);
+            }
+            writePosition += recordBytes;
+
+            int slot = findSlot(id);
+            if (keys[slot] == id && offsets[slot] > 0) {
+                garbageBytes += recordBytes(offsets[slot]);
+            } else {
+                if (keys[slot] != id || offsets[slot] == 0) {
+                    used++;
+                }
+                size++;
+            }
+            keys[slot] = id;
+            offsets[slot] = offset;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    public void remove(long id) {
+        long stamp = lock.writeLock();
+        try {
+            int slot = findSlot(id);
+            if (keys[slot] == id && offsets[slot] > 0) {
+                garbageBytes += recordBytes(offsets[slot]);
+                offsets[slot] = REMOVED;
+                size--;
+            }
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public long offHeapBytes() {
+        return arena.capacity();
+    }
+
+    // id 가 있는 슬롯, 없으면 처음 만나는 빈 슬롯 (REMOVED 인 같은 id 슬롯 포함)
+    private int findSlot(long id) {
+        for (int slot = slot(id, mask); ; slot = (slot + 1) & mask) {
+            if (keys[slot] == id && (id != EMPTY_KEY || offsets[slot] != 0)) {
+                return slot;
+            }
+            if (keys[slot] == EMPTY_KEY && offsets[slot] == 0) {
+                return slot;
+            }
+        }
+    }
+
+    private int recordBytes(int offset) {
+        int nameLength = arena.getShort(offset - 1 + Integer.BYTES);
+        return HEADER_BYTES + Math.max(nameLength, 0);
+    }
+
+    private void ensureIndex() {
+        if (used + 1 <= keys.length * MAX_LOAD) {
+            return;
+        }
+        long[] oldKeys = keys;
+        int[] oldOffsets = offsets;
+        int capacity = size + 1 > oldKeys.length * MAX_LOAD / 2 ? oldKeys.length * 2 : oldKeys.length;
+        keys = new long[capacity];
+        offsets = new int[capacity];
+        mask = capacity - 1;
+        used = 0;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldOffsets[i] > 0) {
+                int slot = findSlot(oldKeys[i]);
+                keys[slot] = oldKeys[i];
+                offsets[slot] = oldOffsets[i];
+                used++;
+            }
+        }
+    }
+
+    private void ensureArena(int recordBytes) {
+        if (writePosition + recordBytes <= arena.capacity()) {
+            return;
+        }
+        long liveBytes = writePosition - garbageBytes;
+        int capacity = arena.capacity();
+        if (garbageBytes < capacity / 2 || liveBytes + recordBytes > capacity) {
+            capacity = (int) Math.min(Integer.MAX_VALUE - 8, Math.max((long) capacity * 2, liveBytes + recordBytes));
+        }
+        compactInto(ByteBuffer.allocateDirect(capacity));
+    }
+
+    // 살아있는 record 만 새 arena 로 옮긴다.
+    private void compactInto(ByteBuffer target) {
+        int position = 0;
+        for (int i = 0; i < keys.length; i++) {
+            int offset = offsets[i];
+            if (offset > 0) {
+                int bytes = recordBytes(offset);
+                target.put(position, arena, offset - 1, bytes);
+                offsets[i] = position + 1;
+                position += bytes;
+            }
+        }
+        arena = target;
+        writePosition = position;
+        garbageBytes = 0;
+    }
+
+    private static int slot(long id, int mask) {
+        long hash = id * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32)) & mask;
+    }
+
+}
@@ -0,0 +1,148 @@
+package study.springdatajpa.support;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * DataLoader 방식의 key 묶음 조회.
+ * 여러 호출자가 짧은 시간(window) 안에 요청한 key 를 모아서 batchFunction 을 한 번(IN 쿼리 한 번) 실행하고,
+ * 결과를 key 별로 기다리던 호출자에게 나눠준다. window 가 지나거나 key 가 maxBatchSize 개 모이면 바로 실행한다.
+ * 같은 key 를 여러 호출자가 요청하면 같은 값을 받으므로 결과를 수정하지 않아야 한다.
+ */
+public class MicroBatchLoader<K, V> implements AutoCloseable {
+
+    private final Function<Set<K>, Map<K, V>> batchFunction;
+    private final V missingValue;
+    private final Executor executor;
+    private final long windowNanos;
+    private final int maxBatchSize;
+    private final ScheduledExecutorService scheduler;
+
+    private final Timer latency;
+    private final DistributionSummary batchSize;
+
+    private final Object lock = new Object();
+    private Map<K, List<CompletableFuture<V>>> pending = new LinkedHashMap<>();
+    private ScheduledFuture<?> scheduledDispatch;
+
+    /**
+     * @param batchFunction key 묶음을 한 번에 조회한다. 결과에 없는 key 는 missingValue 를 받는다.
+     * @param executor      batchFunction 을 실행할 스레드. 호출자 스레드나 타이머 스레드에서 쿼리를 실행하지 않는다.
+     */
+    public MicroBatchLoader(String name, Function<Set<K>, Map<K, V>> batchFunction, V missingValue, Executor executor,
+                            Duration window, int maxBatchSize, MeterRegistry meterRegistry) {
+        this.batchFunction = batchFunction;
+        this.missingValue = missingValue;
+        this.executor = executor;
+        this.windowNanos = window.toNanos();
+        this.maxBatchSize = maxBatchSize;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, name + "-batch-timer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.latency = Timer.builder("microbatch.latency")
+                .description("load() 부터 값을 받을 때까지 걸린 시간 (window 대기 포함)")
+                .tag("name", name)
+                .register(meterRegistry);
+        this.batchSize = DistributionSummary.builder("microbatch.size")
+                .description("한 번의 batch 조회에 담긴 key 수")
+                .tag("name", name)
+                .register(meterRegistry);
+    }
+
+    public CompletableFuture<V> load(K key) {
+        CompletableFuture<V> future = new CompletableFuture<>();
+        long started = System.nanoTime();
+        future.whenComplete((value, e) -> latency.record(System.nanoTime() - started, TimeUnit.NANOSECONDS));
+
+        Map<K, List<CompletableFuture<V>>> fullBatch = null;
+        synchronized (lock) {
+            pending.computeIfAbsent(key, k -> new ArrayList<>(1)).add(future);
+            if (pending.size() >= maxBatchSize) {
+                fullBatch = takePending();
+            } else if (scheduledDispatch == null) {
+                scheduledDispatch = scheduler.schedule(this::dispatchPending, windowNanos, TimeUnit.NANOSECONDS);
+            }
+        }
+        if (fullBatch != null) {
+            dispatch(fullBatch);
+        }
+        return future;
+    }
+
+    // lock 안에서 호출한다.
+    private Map<K, List<CompletableFuture<V>>> takePending() {
+        Map<K, List<CompletableFuture<V>>> batch = pending;
+        pending = new LinkedHashMap<>();
+        if (scheduledDispatch != null) {
+            scheduledDispatch.cancel(false);
+            scheduledDispatch = null;
+        }
+        return batch;
+    }
+
+    private void dispatchPending() {
+        Map<K, List<CompletableFuture<V>>> batch;
+        synchronized (lock) {
+            if (pending.isEmpty()) {
+                scheduledDispatch = null;
+                return;
+            }
+            batch = takePending();
+        }
+        dispatch(batch);
+    }
+
+    private void dispatch(Map<K, List<CompletableFuture<V>>> batch) {
+        batchSize.record(batch.size());
+        try {
+            executor.execute(() -> {
+                try {
+                    Map<K, V> values = batchFunction.apply(batch.keySet());
+                    batch.forEach((key, futures) -> {
+                        V value = values.getOrDefault(key, missingValue);
+                        futures.forEach(future -> future.complete(value));
+                    });
+                } catch (RuntimeException | Error e) {
+                    fail(batch, e);
+                }
+            });
+        } catch (RuntimeException e) {
+            // executor 포화(TaskRejectedException) 등
+            fail(batch, e);
+        }
+    }
+
+    private void fail(Map<K, List<CompletableFuture<V>>> batch, Throwable e) {
+        batch.values().forEach(futures -> futures.forEach(future -> future.completeExceptionally(e)));
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdown();
+        Map<K, List<CompletableFuture<V>>> batch;
+        synchronized (lock) {
+            batch = takePending();
+        }
+        if (!batch.isEmpty()) {
+            dispatch(batch);
+        }
+    }
+
+}
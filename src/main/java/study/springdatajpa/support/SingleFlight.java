@@ -0,0 +1,82 @@
+package study.springdatajpa.support;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+
+/**
+ * 같은 key 로 동시에 들어온 조회를 하나로 합친다. 먼저 온 호출(leader)만 loader 를 실행하고,
+ * 그동안 들어온 호출(follower)은 그 결과를 기다려 받는다. 결과는 호출자마다 copier 로 복사해서 돌려주므로
+ * 한 호출자가 값을 바꿔도 다른 호출자에게 보이지 않는다.
+ * 결과를 보관하지 않으므로(조회가 끝나면 key 를 지운다) 캐시와 달리 오래된 값이 남지 않는다.
+ * 단, 이미 진행 중인 조회에 합류하므로 합류 직전에 커밋된 변경은 보이지 않을 수 있다.
+ */
+public class SingleFlight<K, V> {
+
+    private final ConcurrentHashMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+    private final UnaryOperator<V> copier;
+    private final Counter leaders;
+    private final Counter followers;
+
+    public SingleFlight(String name, UnaryOperator<V> copier, MeterRegistry meterRegistry) {
+        this.copier = copier;
+        this.leaders = Counter.builder("singleflight.calls").tag("name", name).tag("role", "leader").register(meterRegistry);
+        this.followers = Counter.builder("singleflight.calls").tag("name", name).tag("role", "follower").register(meterRegistry);
+        // 합쳐진 호출 비율. 1 에 가까울수록 DB 조회를 많이 아낀 것이다.
+        Gauge.builder("singleflight.coalescing.ratio", this, SingleFlight::coalescingRatio)
+                .tag("name", name)
+                .register(meterRegistry);
+    }
+
+    public V execute(K key, Supplier<V> loader) {
+        CompletableFuture<V> flight = new CompletableFuture<>();
+        CompletableFuture<V> existing = inFlight.putIfAbsent(key, flight);
+        if (existing != null) {
+            followers.increment();
+            return copier.apply(await(existing));
+        }
+
+        leaders.increment();
+        try {
+            V value = loader.get();
+            flight.complete(value);
+            return copier.apply(value);
+        } catch (RuntimeException | Error e) {
+            flight.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, flight);
+        }
+    }
+
+    public int inFlightCount() {
+        return inFlight.size();
+    }
+
+    private double coalescingRatio() {
+        double total = leaders.count() + followers.count();
+        return total == 0 ? 0 : followers.count() / total;
+    }
+
+    private V await(CompletableFuture<V> flight) {
+        try {
+            return flight.join();
+        } catch (CompletionException e) {
+            // leader 가 던진 예외를 그대로 전달한다.
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+}
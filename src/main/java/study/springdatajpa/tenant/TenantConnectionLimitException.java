@@ -0,0 +1,20 @@
+package study.springdatajpa.tenant;
+
+import lombok.Getter;
+
+import java.sql.SQLTransientConnectionException;
+
+/**
+ * tenant 몫의 커넥션을 다 쓰고 있어 새 커넥션을 받지 못했다. 잠시 뒤 재시도하면 된다.
+ */
+@Getter
+public class TenantConnectionLimitException extends SQLTransientConnectionException {
+
+    private final String tenantId;
+
+    public TenantConnectionLimitException(String tenantId) {
+        super("connection limit reached for tenant " + tenantId);
+        this.tenantId = tenantId;
+    }
+
+}
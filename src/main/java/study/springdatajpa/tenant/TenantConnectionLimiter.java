@@ -0,0 +1,166 @@
+package study.springdatajpa.tenant;
+
+import com.google.common.util.concurrent.Striped;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * 하나의 커넥션 풀을 tenant 별 몫으로 나눈다.
+ * tenant 하나가 동시에 잡을 수 있는 커넥션을 max-connections 개로 제한해서, 요청이 몰린 tenant 가 풀을 다 쓰더라도
+ * 나머지 tenant 는 커넥션을 받을 수 있다. 자리가 나지 않으면 acquire-timeout 뒤에 {@link TenantConnectionLimitException} 으로 실패한다.
+ * tenant 가 명시되지 않은 스레드(배치 작업)와 header 없는 요청(default tenant)은 제한하지 않는다.
+ * 풀을 tenant 마다 따로 만들면 tenant 수만큼 DB 커넥션이 늘어나므로, 풀은 하나로 두고 몫만 나눈다.
+ * tenant id 는 요청 header 값이므로 tenant 마다 상태를 만들지 않는다. known-tenants 만 자기 몫과 tenant tag 가 붙은 meter 를 갖고,
+ * 나머지는 tenant id hash 로 고정 개수(unknown-stripes)의 몫을 나눠 쓰며 meter 도 tenant=unknown 하나로 센다.
+ */
+@Component
+@Slf4j
+public class TenantConnectionLimiter implements BeanPostProcessor {
+
+    private static final String UNKNOWN_TENANT = "unknown";
+
+    private final ObjectProvider<MeterRegistry> meterRegistry;
+    private final int maxConnections;
+    private final long acquireTimeoutMillis;
+    private final String defaultTenant;
+
+    private final Map<String, Semaphore> knownPermits;
+    private final Striped<Semaphore> unknownPermits;
+    private final ConcurrentHashMap<String, Counter> rejected = new ConcurrentHashMap<>();
+
+    public TenantConnectionLimiter(ObjectProvider<MeterRegistry> meterRegistry,
+                                   @Value("${tenant.connection.max-connections:6}") int maxConnections,
+                                   @Value("${tenant.connection.acquire-timeout-ms:1000}") long acquireTimeoutMillis,
+                                   @Value("${tenant.connection.known-tenants:}") List<String> knownTenants,
+                                   @Value("${tenant.connection.unknown-stripes:64}") int unknownStripes,
+                                   @Value("${tenant.default-tenant:" + TenantContext.DEFAULT_TENANT + "}") String defaultTenant) {
+        this.meterRegistry = meterRegistry;
+        this.maxConnections = maxConnections;
+        this.acquireTimeoutMillis = acquireTimeoutMillis;
+        this.defaultTenant = defaultTenant;
+        this.knownPermits = knownTenants.stream()
+                .filter(tenantId -> !tenantId.isBlank())
+                .distinct()
+                .collect(Collectors.toUnmodifiableMap(Function.identity(), tenantId -> new Semaphore(maxConnections)));
+        this.unknownPermits = Striped.semaphore(unknownStripes, maxConnections);
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (bean instanceof DataSource dataSource && !(bean instanceof TenantLimitedDataSource)) {
+            return new TenantLimitedDataSource(dataSource);
+        }
+        return bean;
+    }
+
+    // 제한받지 않는 tenant 는 풀 크기까지 쓸 수 있으므로 몫으로 줄이지 않는다.
+    public int availableConnections(String tenantId) {
+        if (!isLimited(tenantId)) {
+            return Integer.MAX_VALUE;
+        }
+        return permitsOf(tenantId).availablePermits();
+    }
+
+    // default tenant 는 header 없는 요청 전체이므로 tenant 하나의 몫(풀보다 작다)으로 묶지 않는다.
+    private boolean isLimited(String tenantId) {
+        return !defaultTenant.equals(tenantId);
+    }
+
+    private Semaphore permitsOf(String tenantId) {
+        Semaphore known = knownPermits.get(tenantId);
+        return known != null ? known : unknownPermits.get(tenantId);
+    }
+
+    private Connection acquire(ConnectionSupplier supplier) throws SQLException {
+        if (!TenantContext.isSet() || !isLimited(TenantContext.currentTenant())) {
+            return supplier.get();
+        }
+        String tenantId = TenantContext.currentTenant();
+        Semaphore semaphore = permitsOf(tenantId);
+        try {
+            if (!semaphore.tryAcquire(acquireTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                rejectedCounter(tenantId).increment();
+                log.warn("tenant connection limit reached : tenant={}, max={}", tenantId, maxConnections);
+                throw new TenantConnectionLimitException(tenantId);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLTransientConnectionException("interrupted while waiting for tenant connection", e);
+        }
+        try {
+            return releasing(supplier.get(), semaphore);
+        } catch (SQLException | RuntimeException e) {
+            semaphore.release();
+            throw e;
+        }
+    }
+
+    // close() 에서 한 번만 몫을 돌려준다. 나머지 호출은 그대로 풀의 커넥션으로 넘긴다.
+    private Connection releasing(Connection connection, Semaphore semaphore) {
+        AtomicBoolean released = new AtomicBoolean();
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class},
+                (proxy, method, args) -> {
+                    if (method.getName().equals("close") && released.compareAndSet(false, true)) {
+                        semaphore.release();
+                    }
+                    try {
+                        return method.invoke(connection, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getTargetException();
+                    }
+                });
+    }
+
+    // 모르는 tenant 는 tag 값으로 쓰지 않는다. meter 수가 known-tenants + 1 을 넘지 않는다.
+    private Counter rejectedCounter(String tenantId) {
+        String tag = knownPermits.containsKey(tenantId) ? tenantId : UNKNOWN_TENANT;
+        return rejected.computeIfAbsent(tag, key -> Counter.builder("tenant.connection.rejected")
+                .description("tenant 몫의 커넥션이 모자라 거절된 요청 수")
+                .tag("tenant", key)
+                .register(meterRegistry.getObject()));
+    }
+
+    @FunctionalInterface
+    private interface ConnectionSupplier {
+        Connection get() throws SQLException;
+    }
+
+    private class TenantLimitedDataSource extends DelegatingDataSource {
+
+        TenantLimitedDataSource(DataSource target) {
+            super(target);
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            return acquire(() -> obtainTargetDataSource().getConnection());
+        }
+
+        @Override
+        public Connection getConnection(String username, String password) throws SQLException {
+            return acquire(() -> obtainTargetDataSource().getConnection(username, password));
+        }
+    }
+
+}
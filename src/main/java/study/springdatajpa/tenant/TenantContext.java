@@ -0,0 +1,74 @@
+package study.springdatajpa.tenant;
+
+import java.util.function.Supplier;
+
+/**
+ * 현재 스레드의 tenant id.
+ * 요청 스레드는 TenantFilter 가, memberQueryExecutor 스레드는 TaskDecorator({@link #wrap}) 가 채운다.
+ * 설정되지 않은 스레드(배치 작업, 테스트)는 DEFAULT_TENANT 로 동작한다.
+ * Hibernate session 은 열릴 때 tenant 를 정하므로, 트랜잭션이 시작되기 전에 설정되어 있어야 한다.
+ */
+public final class TenantContext {
+
+    public static final String DEFAULT_TENANT = "default";
+
+    private static final ThreadLocal<String> CURRENT = new ThreadLocal<>();
+
+    private TenantContext() {
+    }
+
+    public static String currentTenant() {
+        String tenantId = CURRENT.get();
+        return tenantId == null ? DEFAULT_TENANT : tenantId;
+    }
+
+    // 요청/작업에 tenant 가 명시되어 있는지. 없으면 전체 tenant 를 다루는 시스템 작업이다.
+    public static boolean isSet() {
+        return CURRENT.get() != null;
+    }
+
+    public static <T> T callAs(String tenantId, Supplier<T> task) {
+        String previous = CURRENT.get();
+        CURRENT.set(tenantId);
+        try {
+            return task.get();
+        } finally {
+            restore(previous);
+        }
+    }
+
+    public static void runAs(String tenantId, Runnable task) {
+        callAs(tenantId, () -> {
+            task.run();
+            return null;
+        });
+    }
+
+    /**
+     * 호출한 스레드의 tenant 를 다른 스레드에서 실행될 작업에 옮긴다.
+     */
+    public static Runnable wrap(Runnable task) {
+        String tenantId = CURRENT.get();
+        if (tenantId == null) {
+            return task;
+        }
+        return () -> runAs(tenantId, task);
+    }
+
+    static void set(String tenantId) {
+        CURRENT.set(tenantId);
+    }
+
+    static void clear() {
+        CURRENT.remove();
+    }
+
+    private static void restore(String previous) {
+        if (previous == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(previous);
+        }
+    }
+
+}
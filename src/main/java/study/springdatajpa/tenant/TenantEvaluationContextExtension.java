@@ -0,0 +1,37 @@
+package study.springdatajpa.tenant;
+
+import org.springframework.data.spel.spi.EvaluationContextExtension;
+import org.springframework.stereotype.Component;
+
+/**
+ * {@code @Query} 의 SpEL 에서 현재 tenant 를 {@code :#{tenantId}} 로 쓸 수 있게 한다.
+ * native query 와 벌크 JPQL 에 tenant 조건을 넣을 때 사용한다.
+ */
+@Component
+public class TenantEvaluationContextExtension implements EvaluationContextExtension {
+
+    @Override
+    public String getExtensionId() {
+        return "tenant";
+    }
+
+    // 쿼리 실행마다 새로 만들어지므로 실행 시점의 tenant 를 본다.
+    @Override
+    public Object getRootObject() {
+        return new TenantRoot(TenantContext.currentTenant());
+    }
+
+    public static class TenantRoot {
+
+        private final String tenantId;
+
+        TenantRoot(String tenantId) {
+            this.tenantId = tenantId;
+        }
+
+        public String getTenantId() {
+            return tenantId;
+        }
+    }
+
+}
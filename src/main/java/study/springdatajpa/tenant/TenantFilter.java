@@ -0,0 +1,70 @@
+package study.springdatajpa.tenant;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.regex.Pattern;
+
+/**
+ * 요청 header 에서 tenant id 를 읽어 TenantContext 에 둔다. header 가 없으면 tenant.default-tenant 를 쓴다.
+ * 응답은 tenant 마다 다르므로 Vary 에 header 를 넣어 공유 캐시가 다른 tenant 의 응답(ETag 포함)을 재사용하지 않게 한다.
+ * tenant 몫의 커넥션이 모자라 실패한 요청은 500 대신 429 로 돌려준다.
+ */
+@Component
+public class TenantFilter extends OncePerRequestFilter {
+
+    private static final Pattern TENANT_ID = Pattern.compile("[A-Za-z0-9_-]{1,50}");
+
+    private final String header;
+    private final String defaultTenant;
+
+    public TenantFilter(@Value("${tenant.header:X-Tenant-Id}") String header,
+                        @Value("${tenant.default-tenant:" + TenantContext.DEFAULT_TENANT + "}") String defaultTenant) {
+        this.header = header;
+        this.defaultTenant = defaultTenant;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        String tenantId = request.getHeader(header);
+        if (tenantId == null || tenantId.isBlank()) {
+            tenantId = defaultTenant;
+        } else if (!TENANT_ID.matcher(tenantId).matches()) {
+            response.sendError(HttpStatus.BAD_REQUEST.value(), "invalid " + header);
+            return;
+        }
+
+        response.addHeader(HttpHeaders.VARY, header);
+        TenantContext.set(tenantId);
+        try {
+            filterChain.doFilter(request, response);
+        } catch (ServletException | RuntimeException e) {
+            if (!isConnectionLimit(e) || response.isCommitted()) {
+                throw e;
+            }
+            response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+            response.sendError(HttpStatus.TOO_MANY_REQUESTS.value(), "too many concurrent requests for tenant " + tenantId);
+        } finally {
+            TenantContext.clear();
+        }
+    }
+
+    private boolean isConnectionLimit(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof TenantConnectionLimitException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+}
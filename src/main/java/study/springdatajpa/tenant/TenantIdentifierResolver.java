@@ -0,0 +1,34 @@
+package study.springdatajpa.tenant;
+
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.context.spi.CurrentTenantIdentifierResolver;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * session 을 열 때 TenantContext 의 tenant 를 Hibernate 에 넘긴다.
+ * {@code @TenantId} 가 붙은 엔티티는 이 값으로 insert 되고, JPQL / derived query / find 에 tenant_id 조건이 자동으로 붙는다.
+ * native SQL 에는 붙지 않으므로 직접 조건을 넣는다.
+ */
+@Component
+public class TenantIdentifierResolver implements CurrentTenantIdentifierResolver<String>, HibernatePropertiesCustomizer {
+
+    @Override
+    public String resolveCurrentTenantIdentifier() {
+        return TenantContext.currentTenant();
+    }
+
+    // 열려 있는 session 의 tenant 와 현재 tenant 가 달라도 예외를 내지 않는다. (callAs 는 새 트랜잭션에서 쓴다)
+    @Override
+    public boolean validateExistingCurrentSessions() {
+        return false;
+    }
+
+    @Override
+    public void customize(Map<String, Object> hibernateProperties) {
+        hibernateProperties.put(AvailableSettings.MULTI_TENANT_IDENTIFIER_RESOLVER, this);
+    }
+
+}
@@ -0,0 +1,13 @@
+package study.springdatajpa.tenant;
+
+/**
+ * 요청 사이에서 공유되는 조회 묶음(SingleFlight, MicroBatchLoader)의 key.
+ * tenant 가 다르면 같은 id 라도 다른 조회이므로 합치지 않는다.
+ */
+public record TenantKey<K>(String tenantId, K key) {
+
+    public static <K> TenantKey<K> current(K key) {
+        return new TenantKey<>(TenantContext.currentTenant(), key);
+    }
+
+}
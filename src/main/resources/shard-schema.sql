@@ -0,0 +1,22 @@
+-- member 샤드 하나의 스키마. ShardConfig 가 시작할 때 샤드마다 실행한다.
+-- team 은 샤드하지 않으므로 team_member.team_id 에 FK 가 없다.
+CREATE TABLE IF NOT EXISTS member (
+    member_id    BIGINT       NOT NULL PRIMARY KEY,
+    tenant_id    VARCHAR(50)  NOT NULL,
+    member_name  VARCHAR(255),
+    member_age   INTEGER      NOT NULL,
+    created_date TIMESTAMP    NOT NULL,
+    updated_date TIMESTAMP    NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS idx_member_tenant_name ON member (tenant_id, member_name, member_id);
+CREATE INDEX IF NOT EXISTS idx_member_tenant_age ON member (tenant_id, member_age, member_id);
+
+CREATE TABLE IF NOT EXISTS team_member (
+    id        BIGINT      NOT NULL PRIMARY KEY,
+    member_id BIGINT      NOT NULL,
+    team_id   BIGINT      NOT NULL,
+    tenant_id VARCHAR(50) NOT NULL,
+    CONSTRAINT uk_team_member_member_team UNIQUE (member_id, team_id),
+    CONSTRAINT fk_team_member_member FOREIGN KEY (member_id) REFERENCES member (member_id)
+);
@@ -0,0 +1,81 @@
+package study.springdatajpa.auditor;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.AuditorAware;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.springdatajpa.entity.Member;
+import study.springdatajpa.repository.MemberJpaRepository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * auditing 이 걸린 insert 처리량과, 엔티티 한 건당 시각/auditor 계산 비용 비교.
+ */
+@SpringBootTest
+@Slf4j
+@Tag("benchmark")
+class AuditedInsertBenchmarkTest {
+
+    private static final int INSERTS = 20_000;
+    private static final int CALLS = 1_000_000;
+
+    @Autowired
+    private MemberJpaRepository memberJpaRepository;
+    @Autowired
+    private AuditingClock auditingClock;
+    @Autowired
+    private AuditorAware<String> auditorProvider;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Test
+    void auditedInsertsPerSecond() {
+        // warm up
+        insert(1_000);
+
+        long started = System.nanoTime();
+        insert(INSERTS);
+        long elapsed = System.nanoTime() - started;
+
+        log.info("[audited insert] {} rows, {} ms, {} inserts/s",
+                INSERTS, TimeUnit.NANOSECONDS.toMillis(elapsed), INSERTS * 1_000_000_000L / Math.max(elapsed, 1));
+    }
+
+    @Test
+    void clockAndAuditorResolution() {
+        measure("LocalDateTime.now()", LocalDateTime::now);
+        measure("UUID.randomUUID()", () -> UUID.randomUUID().toString());
+        transactionTemplate.executeWithoutResult(status -> {
+            measure("auditingClock.now() in transaction", auditingClock::now);
+            measure("auditorProvider in transaction", () -> auditorProvider.getCurrentAuditor().get());
+        });
+    }
+
+    private void insert(int count) {
+        List<Member> members = IntStream.range(0, count)
+                .mapToObj(i -> new Member("audited" + i, i % 100))
+                .collect(Collectors.toList());
+        memberJpaRepository.saveAll(members);
+    }
+
+    private void measure(String name, Supplier<?> supplier) {
+        Object sink = null;
+        long started = System.nanoTime();
+        for (int i = 0; i < CALLS; i++) {
+            sink = supplier.get();
+        }
+        long elapsed = System.nanoTime() - started;
+        log.info("[{}] {} ns/call (last : {})", name, elapsed / CALLS, sink);
+    }
+
+}
@@ -0,0 +1,58 @@
+package study.springdatajpa.controller;
+
+import lombok.extern.slf4j.Slf4j;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.springdatajpa.entity.Member;
+import study.springdatajpa.repository.MemberRepository;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@Slf4j
+class MemberControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private MemberRepository memberRepository;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Test
+    void memberDetailConditionalGet() throws Exception {
+        // given...
+        Member member = memberRepository.save(new Member("etag member", 20));
+        String etag = mockMvc.perform(get("/member/{id}", member.getId()))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "no-cache, public"))
+                .andExpect(jsonPath("$.data.memberName").value("etag member"))
+                .andExpect(jsonPath("$.data.teamMembers").doesNotExist())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        // when... then... 바뀌지 않았으면 304
+        mockMvc.perform(get("/member/{id}", member.getId()).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified());
+
+        // when... then... 수정되면 새 ETag 로 200
+        transactionTemplate.executeWithoutResult(status ->
+                memberRepository.findById(member.getId()).orElseThrow().setMemberName("etag member changed"));
+        String changedEtag = mockMvc.perform(get("/member/{id}", member.getId()).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        Assertions.assertThat(changedEtag).isNotEqualTo(etag);
+
+        mockMvc.perform(get("/member/{id}", -1L)).andExpect(status().isNotFound());
+    }
+
+}
@@ -0,0 +1,109 @@
+package study.springdatajpa.controller;
+
+import lombok.extern.slf4j.Slf4j;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import reactor.test.StepVerifier;
+import study.springdatajpa.entity.Member;
+import study.springdatajpa.entity.Team;
+import study.springdatajpa.repository.MemberReactiveReader;
+import study.springdatajpa.repository.MemberRepository;
+import study.springdatajpa.repository.query.MemberQueryDto;
+import study.springdatajpa.service.MemberService;
+import study.springdatajpa.service.TeamService;
+
+import java.util.List;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * JPA 로 쓴 데이터를 R2DBC 경로로 읽는다. 다른 테스트의 회원이 섞이지 않도록 jdbc / r2dbc 모두 별도 DB 를 쓴다.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:reactive",
+        "spring.r2dbc.url=r2dbc:h2:mem:///reactive"})
+@AutoConfigureMockMvc
+@Slf4j
+class MemberStreamRoutesTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private MemberReactiveReader memberReactiveReader;
+    @Autowired
+    private MemberRepository memberRepository;
+    @Autowired
+    private MemberService memberService;
+    @Autowired
+    private TeamService teamService;
+
+    @Test
+    void reactiveReadMatchesJpa() {
+        // given...
+        Team team = teamService.createTeam(new Team("reactive team"));
+        List<Member> members = memberRepository.saveAll(List.of(
+                new Member("reactive member1", 30), new Member("reactive member2", 10), new Member("reactive member3", 20)));
+        members.forEach(member -> memberService.addMemberToTeam(team.getId(), member.getId()));
+        PageRequest pageable = PageRequest.of(0, 2, Sort.by("age").descending());
+
+        // when...
+        List<MemberQueryDto> jpa = memberRepository.findMembersByTeamId(team.getId(), pageable).getContent();
+        List<MemberQueryDto> reactive = memberReactiveReader.findMembersByTeamId(team.getId(), pageable).collectList().block();
+
+        // then...
+        Assertions.assertThat(reactive).extracting(MemberQueryDto::getId)
+                .containsExactlyElementsOf(jpa.stream().map(MemberQueryDto::getId).toList());
+        Assertions.assertThat(reactive).extracting(MemberQueryDto::getMemberName)
+                .containsExactly("reactive member1", "reactive member3");
+    }
+
+    @Test
+    void rowsFollowDemand() {
+        // given...
+        memberRepository.saveAll(List.of(new Member("demand member1", 1), new Member("demand member2", 2),
+                new Member("demand member3", 3)));
+
+        // when... then... 요청한 만큼만 받는다.
+        StepVerifier.create(memberReactiveReader.findMemberDtos(PageRequest.of(0, 3, Sort.by("id"))), 1)
+                .expectNextCount(1)
+                .thenRequest(2)
+                .expectNextCount(2)
+                .verifyComplete();
+    }
+
+    @Test
+    void sameEndpointStreamsNdjson() throws Exception {
+        // given...
+        memberRepository.saveAll(List.of(new Member("ndjson member1", 1), new Member("ndjson member2", 2)));
+
+        // when...
+        MvcResult started = mockMvc.perform(get("/member/memberDtoList").param("size", "2").accept(MediaType.APPLICATION_NDJSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        String body = mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON))
+                .andReturn().getResponse().getContentAsString();
+
+        // then... 한 줄에 한 건. Accept 가 JSON 이면 기존 controller 가 Page 로 응답한다.
+        Assertions.assertThat(body.split("\n")).hasSize(2).allSatisfy(line -> Assertions.assertThat(line).startsWith("{\"id\":"));
+        mockMvc.perform(get("/member/memberDtoList").accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON));
+        mockMvc.perform(get("/member/memberDtoList").param("sort", "password").accept(MediaType.APPLICATION_NDJSON))
+                .andExpect(status().isBadRequest());
+    }
+
+}
@@ -0,0 +1,90 @@
+package study.springdatajpa.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import study.springdatajpa.dto.ApiResultResponse;
+import study.springdatajpa.dto.PageResponse;
+import study.springdatajpa.repository.query.MemberQueryDto;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.List;
+import java.util.stream.IntStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 한 페이지(100 건) 응답의 크기와 직렬화 CPU 시간 비교.
+ * PageImpl / ApiResultResponse 로 감싼 경우와 PageResponse, 그리고 gzip / smile / cbor.
+ */
+@SpringBootTest
+@Slf4j
+@Tag("benchmark")
+class PagePayloadBenchmarkTest {
+
+    private static final int ITERATIONS = 20_000;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+    @Autowired
+    private Jackson2ObjectMapperBuilder objectMapperBuilder;
+
+    @Test
+    void bytesAndCpuPerPage() throws IOException {
+        List<MemberQueryDto> content = IntStream.range(0, 100)
+                .mapToObj(i -> new MemberQueryDto((long) i, "MEMBER" + i, i % 100))
+                .toList();
+        Page<MemberQueryDto> page = new PageImpl<>(content, PageRequest.of(0, 100, Sort.by("id")), 10_000);
+
+        ObjectMapper smileMapper = objectMapperBuilder.factory(new SmileFactory()).build();
+        ObjectMapper cborMapper = objectMapperBuilder.factory(new CBORFactory()).build();
+
+        measure("PageImpl json", objectMapper, page, false);
+        measure("ApiResultResponse(PageImpl) json", objectMapper, new ApiResultResponse<>((long) page.getSize(), page), false);
+        measure("PageResponse json", objectMapper, PageResponse.of(page), false);
+        measure("PageResponse json+gzip", objectMapper, PageResponse.of(page), true);
+        measure("PageResponse smile", smileMapper, PageResponse.of(page), false);
+        measure("PageResponse cbor", cborMapper, PageResponse.of(page), false);
+    }
+
+    private void measure(String name, ObjectMapper mapper, Object value, boolean gzip) throws IOException {
+        ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+        int bytes = write(mapper, value, gzip);
+
+        // warm up
+        for (int i = 0; i < ITERATIONS / 10; i++) {
+            write(mapper, value, gzip);
+        }
+
+        long cpuStarted = threadMXBean.getCurrentThreadCpuTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            write(mapper, value, gzip);
+        }
+        long cpu = threadMXBean.getCurrentThreadCpuTime() - cpuStarted;
+
+        log.info("[{}] {} bytes/page, {} us cpu/page", name, bytes, cpu / ITERATIONS / 1_000);
+    }
+
+    private int write(ObjectMapper mapper, Object value, boolean gzip) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(8 * 1024);
+        try (OutputStream out = gzip ? new GZIPOutputStream(bytes) : bytes) {
+            // converter 와 같이 tree 를 만들지 않고 generator 로 바로 쓴다.
+            mapper.writeValue(out, value);
+        }
+        return bytes.size();
+    }
+
+}
@@ -1,11 +1,15 @@
 package study.springdatajpa.entity;
 
 import jakarta.transaction.Transactional;
+import org.assertj.core.api.Assertions;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.annotation.Commit;
 import study.springdatajpa.repository.ItemRepository;
+import study.springdatajpa.repository.query.ItemBulkResult;
+
+import java.util.List;
 
 
 @SpringBootTest
@@ -24,4 +28,23 @@ class ItemTest {
 
     }
 
+    @Test
+    @Transactional
+    void bulkUpsert() {
+
+        // given...
+        itemRepository.insertAll(List.of(new Item(1001L, "item 1001"), new Item(1002L, "item 1002")));
+
+        // when...
+        ItemBulkResult result = itemRepository.upsertAll(List.of(
+                new Item(1002L, "item 1002 renamed"),
+                new Item(1003L, "item 1003")));
+
+        // then...
+        Assertions.assertThat(result.getInserted()).isEqualTo(1);
+        Assertions.assertThat(result.getUpdated()).isEqualTo(1);
+        Assertions.assertThat(itemRepository.findById(1002L).get().getName()).isEqualTo("item 1002 renamed");
+        Assertions.assertThat(itemRepository.findById(1003L).get().getCreatedAt()).isNotNull();
+    }
+
 }
\ No newline at end of file
@@ -0,0 +1,165 @@
+package study.springdatajpa.entity;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.assertj.core.api.Assertions;
+import org.hibernate.Hibernate;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.springdatajpa.repository.MemberRepository;
+import study.springdatajpa.repository.TeamMemberRepository;
+import study.springdatajpa.repository.TeamRepository;
+import study.springdatajpa.service.TeamService;
+
+import java.lang.management.ManagementFactory;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * 크기가 같은 두 inverse 컬렉션에 로딩하지 않은 채로 1 건을 add 할 때의 SQL 수 / 로딩 row 수 / 할당 메모리 비교.
+ * bag : Member.teamMembers (List, 팀 N 개에 속한 회원) / set : Team.teamMembers (Set, 회원 N 명인 팀)
+ * bag 은 add 를 flush 까지 큐에 쌓고, set 은 중복 확인을 위해 컬렉션 전체를 로딩한다.
+ * 회원 N 명인 팀의 인원 / 소속 확인도 컬렉션 size() / contains() 와 TeamService 의 count / exists 쿼리로 비교한다.
+ */
+@SpringBootTest
+@Slf4j
+@Tag("benchmark")
+class TeamMemberMappingBenchmarkTest {
+
+    private static final int SIZE = 5_000;
+
+    @Autowired
+    private EntityManager em;
+    @Autowired
+    private EntityManagerFactory emf;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    @Autowired
+    private MemberRepository memberRepository;
+    @Autowired
+    private TeamRepository teamRepository;
+    @Autowired
+    private TeamMemberRepository teamMemberRepository;
+    @Autowired
+    private TeamService teamService;
+
+    private Statistics statistics;
+    private Long bigMemberId;
+    private Long bigTeamId;
+    private Long lastMemberId;
+
+    @BeforeEach
+    void bigCollections() {
+        statistics = emf.unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+
+        // 회원 SIZE 명인 팀
+        Team bigTeam = teamRepository.save(new Team("big team"));
+        List<Member> members = memberRepository.saveAll(IntStream.range(0, SIZE)
+                .mapToObj(i -> new Member("big" + i, i % 100))
+                .collect(Collectors.toList()));
+        transactionTemplate.executeWithoutResult(status -> teamMemberRepository.ensureMemberships(
+                bigTeam.getId(), members.stream().map(Member::getId).collect(Collectors.toList())));
+        bigTeamId = bigTeam.getId();
+        lastMemberId = members.get(SIZE - 1).getId();
+
+        // 팀 SIZE 개에 속한 회원
+        Member bigMember = memberRepository.save(new Member("big member", 30));
+        List<Team> teams = teamRepository.saveAll(IntStream.range(0, SIZE)
+                .mapToObj(i -> new Team("small team" + i))
+                .collect(Collectors.toList()));
+        transactionTemplate.executeWithoutResult(status -> teams.forEach(team ->
+                teamMemberRepository.ensureMembership(bigMember.getId(), team.getId())));
+        bigMemberId = bigMember.getId();
+    }
+
+    @Test
+    void appendToBag() {
+        measure("bag (Member.teamMembers)", () -> {
+            Member member = memberRepository.findById(bigMemberId).get();
+            Team team = teamRepository.save(new Team("newcomer team"));
+            return new Append(member.getTeamMembers(), new TeamMember(member, team));
+        });
+    }
+
+    @Test
+    void appendToSet() {
+        measure("set (Team.teamMembers)", () -> {
+            Team team = teamRepository.findById(bigTeamId).get();
+            Member member = memberRepository.save(new Member("newcomer", 30));
+            return new Append(team.getTeamMembers(), new TeamMember(member, team));
+        });
+    }
+
+    @Test
+    void sizeAndContainsBySet() {
+        measureRead("set size() / contains()", () -> {
+            Team team = teamRepository.findById(bigTeamId).get();
+            Member member = memberRepository.findById(lastMemberId).get();
+            long size = team.getTeamMembers().size();
+            boolean contains = team.getTeamMembers().stream().anyMatch(teamMember -> teamMember.getMember() == member);
+            return List.of(size, contains);
+        });
+    }
+
+    @Test
+    void sizeAndContainsByQuery() {
+        measureRead("count / exists query", () ->
+                List.of(teamService.countMembers(bigTeamId), teamService.hasMember(bigTeamId, lastMemberId)));
+    }
+
+    private void measureRead(String name, Supplier<List<Object>> read) {
+        com.sun.management.ThreadMXBean threadMXBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+
+        transactionTemplate.executeWithoutResult(status -> {
+            statistics.clear();
+            long allocatedBefore = threadMXBean.getThreadAllocatedBytes(threadId);
+
+            List<Object> result = read.get();
+
+            long allocated = threadMXBean.getThreadAllocatedBytes(threadId) - allocatedBefore;
+            Assertions.assertThat(result).containsExactly((long) SIZE, true);
+            log.info("[{}] size : {}, statements : {}, loaded entities : {}, loaded collections : {}, allocated : {} KB",
+                    name, SIZE, statistics.getPrepareStatementCount(), statistics.getEntityLoadCount(),
+                    statistics.getCollectionLoadCount(), allocated / 1024);
+        });
+    }
+
+    private void measure(String name, Supplier<Append> prepare) {
+        com.sun.management.ThreadMXBean threadMXBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+
+        transactionTemplate.executeWithoutResult(status -> {
+            Append append = prepare.get();
+            em.flush();
+            Assertions.assertThat(Hibernate.isInitialized(append.collection())).isFalse();
+
+            statistics.clear();
+            long allocatedBefore = threadMXBean.getThreadAllocatedBytes(threadId);
+
+            append.collection().add(append.teamMember());
+            em.flush();
+
+            long allocated = threadMXBean.getThreadAllocatedBytes(threadId) - allocatedBefore;
+            log.info("[{}] size : {}, initialized : {}, statements : {}, loaded entities : {}, loaded collections : {}, allocated : {} KB",
+                    name, SIZE, Hibernate.isInitialized(append.collection()), statistics.getPrepareStatementCount(),
+                    statistics.getEntityLoadCount(), statistics.getCollectionLoadCount(), allocated / 1024);
+            status.setRollbackOnly();
+        });
+    }
+
+    private record Append(Collection<TeamMember> collection, TeamMember teamMember) {
+    }
+
+}
@@ -0,0 +1,47 @@
+package study.springdatajpa.entity.id;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.IntStream;
+
+class SnowflakeIdGeneratorTest {
+
+    @Test
+    void uniqueAndOrderedAcrossThreads() throws Exception {
+        // given
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(7);
+        Set<Long> ids = ConcurrentHashMap.newKeySet();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+
+        // when
+        List<Future<Boolean>> futures = IntStream.range(0, 8)
+                .mapToObj(t -> executor.submit(() -> {
+                    long previous = 0;
+                    for (int i = 0; i < 50_000; i++) {
+                        long id = generator.nextId();
+                        if (id <= previous || !ids.add(id)) {
+                            return false;
+                        }
+                        previous = id;
+                    }
+                    return true;
+                }))
+                .toList();
+
+        // then
+        for (Future<Boolean> future : futures) {
+            Assertions.assertThat(future.get()).isTrue();
+        }
+        executor.shutdown();
+        Assertions.assertThat(ids).hasSize(8 * 50_000);
+        Assertions.assertThat(SnowflakeIdGenerator.nodeIdOf(ids.iterator().next())).isEqualTo(7);
+    }
+
+}
@@ -54,4 +54,22 @@ public class memberEntityTest {
 
     }
 
+    @Test
+    @DisplayName("같은 트랜잭션의 auditing 시각은 하나로 통일된다")
+    @Transactional
+    public void auditingClockPerTransaction() {
+
+        // given...
+        Member member1 = memberRepository.save(new Member("audit1", 10));
+        Member member2 = memberRepository.save(new Member("audit2", 10));
+
+        // when...
+        memberRepository.flush();
+
+        // then...
+        Assertions.assertThat(member1.getCreatedDate()).isNotNull();
+        Assertions.assertThat(member1.getCreatedDate()).isEqualTo(member2.getCreatedDate());
+        Assertions.assertThat(member1.getUpdatedDate()).isEqualTo(member2.getUpdatedDate());
+    }
+
 }
@@ -0,0 +1,85 @@
+package study.springdatajpa.outbox;
+
+import lombok.extern.slf4j.Slf4j;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.springdatajpa.entity.Member;
+import study.springdatajpa.service.MemberService;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 낮은 id 를 받은 트랜잭션이 높은 id 보다 늦게 commit 해도 같은 aggregate 의 이벤트가 id 순서로 전달되는지 확인한다.
+ * 주기 relay 는 끄고 직접 호출한다.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:outbox_ordering",
+        "outbox.relay.enabled=false",
+        "outbox.relay.safety-lag-ms=500"})
+@Slf4j
+class OutboxRelayOrderingTest {
+
+    @Autowired
+    private OutboxRelay outboxRelay;
+    @Autowired
+    private OutboxWriter outboxWriter;
+    @Autowired
+    private MemberService memberService;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Test
+    void lateCommitIsDeliveredInIdOrder() throws Exception {
+        // given...
+        Member member = memberService.signUpMember(new Member("ordering member", 20));
+        List<String> received = new CopyOnWriteArrayList<>();
+        Runnable unsubscribe = outboxRelay.subscribe(message -> {
+            if (Objects.equals(message.aggregateId(), member.getId())) {
+                received.add(message.eventType());
+            }
+        });
+        CountDownLatch slowAppended = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            // when... 낮은 id 를 받은 트랜잭션이 commit 하기 전에 높은 id 가 commit 되고 relay 가 돈다.
+            Future<?> slow = executor.submit(() -> transactionTemplate.executeWithoutResult(status -> {
+                outboxWriter.append(OutboxWriter.MEMBER, member.getId(), "SlowEvent", Map.of());
+                slowAppended.countDown();
+                sleep(300);
+            }));
+            slowAppended.await(5, TimeUnit.SECONDS);
+            transactionTemplate.executeWithoutResult(status ->
+                    outboxWriter.append(OutboxWriter.MEMBER, member.getId(), "FastEvent", Map.of()));
+            outboxRelay.relay();
+            slow.get(5, TimeUnit.SECONDS);
+            sleep(600);
+            outboxRelay.relay();
+
+            // then... commit 순서가 아니라 id 순서
+            Assertions.assertThat(received).containsExactly("MemberCreated", "SlowEvent", "FastEvent");
+        } finally {
+            unsubscribe.run();
+            executor.shutdown();
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+}
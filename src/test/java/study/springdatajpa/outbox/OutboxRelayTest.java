@@ -0,0 +1,111 @@
+package study.springdatajpa.outbox;
+
+import lombok.extern.slf4j.Slf4j;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import study.springdatajpa.entity.Member;
+import study.springdatajpa.entity.Team;
+import study.springdatajpa.repository.OutboxEventRepository;
+import study.springdatajpa.service.MemberService;
+import study.springdatajpa.service.TeamService;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * safety-lag 없이 relay 를 바로 호출해 확인한다. 늦게 commit 되는 이벤트의 순서는 OutboxRelayOrderingTest 에서 본다.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:outbox",
+        "outbox.relay.safety-lag-ms=0"})
+@Slf4j
+class OutboxRelayTest {
+
+    @Autowired
+    private OutboxRelay outboxRelay;
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+    @Autowired
+    private MemberService memberService;
+    @Autowired
+    private TeamService teamService;
+
+    @Test
+    void changesArePublishedInOrderPerAggregate() {
+        // given...
+        List<OutboxMessage> received = new CopyOnWriteArrayList<>();
+        Runnable unsubscribe = outboxRelay.subscribe(received::add);
+        try {
+            Member member = memberService.signUpMember(new Member("outbox member", 41));
+            Team team = teamService.createTeam(new Team("outbox team"));
+            memberService.addMemberToTeam(team.getId(), member.getId());
+
+            // when...
+            outboxRelay.relay();
+
+            // then...
+            Assertions.assertThat(received)
+                    .filteredOn(message -> Objects.equals(message.aggregateId(), member.getId()) && message.aggregateType().equals(OutboxWriter.MEMBER))
+                    .extracting(OutboxMessage::eventType)
+                    .containsExactly("MemberCreated", "MemberJoinedTeam");
+            Assertions.assertThat(received)
+                    .filteredOn(message -> Objects.equals(message.aggregateId(), team.getId()) && message.aggregateType().equals(OutboxWriter.TEAM))
+                    .extracting(OutboxMessage::eventType)
+                    .containsExactly("TeamCreated");
+            Assertions.assertThat(outboxEventRepository.count()).isZero();
+        } finally {
+            unsubscribe.run();
+        }
+    }
+
+    @Test
+    void eventsStayWithoutSubscribers() {
+        // given... 구독자가 없다.
+        Team team = teamService.createTeam(new Team("outbox unsubscribed team"));
+
+        // when...
+        int delivered = outboxRelay.relay();
+
+        // then... 지우지 않고 남겨 두었다가 구독자가 생기면 전달한다.
+        Assertions.assertThat(delivered).isZero();
+        Assertions.assertThat(outboxEventRepository.count()).isPositive();
+        List<String> received = new CopyOnWriteArrayList<>();
+        Runnable unsubscribe = outboxRelay.subscribe(message -> received.add(message.eventType() + ":" + message.aggregateId()));
+        try {
+            outboxRelay.relay();
+            Assertions.assertThat(received).contains("TeamCreated:" + team.getId());
+        } finally {
+            unsubscribe.run();
+        }
+    }
+
+    @Test
+    void failedEventIsRedelivered() {
+        // given... 첫 전달은 실패시킨다.
+        AtomicBoolean failOnce = new AtomicBoolean(true);
+        List<String> received = new CopyOnWriteArrayList<>();
+        Runnable unsubscribe = outboxRelay.subscribe(message -> {
+            if (message.eventType().equals("TeamCreated") && failOnce.getAndSet(false)) {
+                throw new IllegalStateException("consumer down");
+            }
+            received.add(message.eventType() + ":" + message.aggregateId());
+        });
+        try {
+            Team team = teamService.createTeam(new Team("outbox retry team"));
+
+            // when...
+            outboxRelay.relay();
+            outboxRelay.relay();
+
+            // then...
+            Assertions.assertThat(received).containsOnlyOnce("TeamCreated:" + team.getId());
+        } finally {
+            unsubscribe.run();
+        }
+    }
+
+}
@@ -0,0 +1,82 @@
+package study.springdatajpa.repository;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.NestedTestConfiguration;
+import study.springdatajpa.entity.Member;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.springframework.test.context.NestedTestConfiguration.EnclosingConfiguration.OVERRIDE;
+
+/**
+ * id 생성 전략별 MemberJpaRepository.saveAll 처리량 비교.
+ * 전략마다 컨텍스트가 따로 뜨므로 스키마(시퀀스 increment)가 섞이지 않게 H2 DB 도 따로 쓴다.
+ */
+@Slf4j
+@Tag("benchmark")
+class IdGenerationBenchmarkTest {
+
+    private static final int INSERTS = 20_000;
+
+    abstract static class Strategy {
+
+        @Autowired
+        MemberJpaRepository memberJpaRepository;
+
+        @Test
+        void saveAllThroughput() {
+            // warm up
+            insert(1_000);
+
+            long started = System.nanoTime();
+            insert(INSERTS);
+            long elapsed = System.nanoTime() - started;
+
+            log.info("[{}] {} rows, {} ms, {} inserts/s", getClass().getSimpleName(),
+                    INSERTS, TimeUnit.NANOSECONDS.toMillis(elapsed), INSERTS * 1_000_000_000L / Math.max(elapsed, 1));
+        }
+
+        private void insert(int count) {
+            List<Member> members = IntStream.range(0, count)
+                    .mapToObj(i -> new Member("id" + i, i % 100))
+                    .collect(Collectors.toList());
+            memberJpaRepository.saveAll(members);
+        }
+    }
+
+    // 기존 @GeneratedValue 기본값에 가까운, id 하나마다 시퀀스를 호출하는 경우
+    @Nested
+    @NestedTestConfiguration(OVERRIDE)
+    @SpringBootTest(properties = {
+            "spring.datasource.url=jdbc:h2:mem:id-sequence",
+            "spring.jpa.properties.app.id.strategy=sequence",
+            "spring.jpa.properties.app.id.allocation-size.default=1"})
+    class SequencePerRow extends Strategy {
+    }
+
+    @Nested
+    @NestedTestConfiguration(OVERRIDE)
+    @SpringBootTest(properties = {
+            "spring.datasource.url=jdbc:h2:mem:id-pooled-lo",
+            "spring.jpa.properties.app.id.strategy=sequence",
+            "spring.jpa.properties.app.id.allocation-size.default=1000"})
+    class PooledLo extends Strategy {
+    }
+
+    @Nested
+    @NestedTestConfiguration(OVERRIDE)
+    @SpringBootTest(properties = {
+            "spring.datasource.url=jdbc:h2:mem:id-snowflake",
+            "spring.jpa.properties.app.id.strategy=snowflake"})
+    class Snowflake extends Strategy {
+    }
+
+}
@@ -0,0 +1,106 @@
+package study.springdatajpa.repository;
+
+import lombok.extern.slf4j.Slf4j;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import study.springdatajpa.entity.Member;
+import study.springdatajpa.entity.Team;
+import study.springdatajpa.repository.query.MemberAggregateRowDto;
+import study.springdatajpa.repository.query.MemberAggregation;
+import study.springdatajpa.repository.query.MemberAggregation.Comparison;
+import study.springdatajpa.repository.query.MemberAggregation.Dimension;
+import study.springdatajpa.repository.query.MemberAggregation.Metric;
+import study.springdatajpa.service.MemberService;
+import study.springdatajpa.service.TeamService;
+import study.springdatajpa.tenant.TenantContext;
+
+import java.util.List;
+
+/**
+ * tenant 를 나눠 다른 테스트의 회원이 집계에 섞이지 않게 한다.
+ */
+@SpringBootTest
+@Slf4j
+class MemberAggregationTest {
+
+    @Autowired
+    private MemberRepository memberRepository;
+    @Autowired
+    private MemberService memberService;
+    @Autowired
+    private TeamService teamService;
+
+    @Test
+    void groupByTeamWithHaving() {
+        TenantContext.runAs("aggregate-team", () -> {
+            // given... 팀 A : 10, 20, 30 살 / 팀 B : 40 살
+            List<Member> members = memberRepository.saveAll(List.of(new Member("agg1", 10), new Member("agg2", 20),
+                    new Member("agg3", 30), new Member("agg4", 40)));
+            Team teamA = teamService.createTeam(new Team("agg A"));
+            Team teamB = teamService.createTeam(new Team("agg B"));
+            members.subList(0, 3).forEach(member -> memberService.addMemberToTeam(teamA.getId(), member.getId()));
+            memberService.addMemberToTeam(teamB.getId(), members.get(3).getId());
+
+            // when...
+            MemberAggregation aggregation = MemberAggregation.builder()
+                    .groupBy(Dimension.TEAM)
+                    .metric(Metric.COUNT).metric(Metric.AVG_AGE).metric(Metric.MIN_AGE).metric(Metric.MAX_AGE)
+                    .build();
+            Page<MemberAggregateRowDto> all = memberRepository.aggregate(aggregation, PageRequest.of(0, 10, Sort.by("count").descending()));
+            Page<MemberAggregateRowDto> large = memberRepository.aggregate(MemberAggregation.builder()
+                    .groupBy(Dimension.TEAM).metric(Metric.COUNT)
+                    .having(Metric.COUNT, Comparison.GE, 2)
+                    .build(), PageRequest.of(0, 10));
+
+            // then...
+            Assertions.assertThat(all.getContent()).extracting(MemberAggregateRowDto::getKeys)
+                    .containsExactly(List.<Object>of(teamA.getId()), List.<Object>of(teamB.getId()));
+            Assertions.assertThat(all.getContent().get(0).getValues()).containsExactly(3L, 20.0, 10, 30);
+            Assertions.assertThat(large.getContent()).extracting(MemberAggregateRowDto::getKeys).containsExactly(List.<Object>of(teamA.getId()));
+            Assertions.assertThat(large.getTotalElements()).isEqualTo(1);
+        });
+    }
+
+    @Test
+    void pagesOverAgeBuckets() {
+        TenantContext.runAs("aggregate-age", () -> {
+            // given... 0..49 살 50 명 -> 10 살 단위 구간 5 개
+            for (int age = 0; age < 50; age++) {
+                memberRepository.save(new Member("bucket" + age, age));
+            }
+
+            // when... 구간 2 개씩, 두 번째 페이지
+            Page<MemberAggregateRowDto> page = memberRepository.aggregate(MemberAggregation.builder()
+                    .groupBy(Dimension.ageBucket(10))
+                    .metric(Metric.COUNT)
+                    .build(), PageRequest.of(1, 2));
+            Page<MemberAggregateRowDto> total = memberRepository.aggregate(MemberAggregation.builder()
+                    .metric(Metric.COUNT).metric(Metric.MAX_AGE)
+                    .build(), PageRequest.of(0, 10));
+
+            // then...
+            Assertions.assertThat(page.getContent()).extracting(MemberAggregateRowDto::getKeys)
+                    .containsExactly(List.<Object>of(20), List.<Object>of(30));
+            Assertions.assertThat(page.getContent()).extracting(row -> row.getValues().get(0)).containsOnly(10L);
+            Assertions.assertThat(page.getTotalElements()).isEqualTo(5);
+            Assertions.assertThat(total.getContent()).singleElement()
+                    .extracting(MemberAggregateRowDto::getValues).isEqualTo(List.of(50L, 49));
+        });
+    }
+
+    @Test
+    void rejectsUnknownNames() {
+        Assertions.assertThatThrownBy(() -> MemberAggregation.Dimension.parse("member_name"))
+                .isInstanceOf(IllegalArgumentException.class);
+        Assertions.assertThatThrownBy(() -> MemberAggregation.Having.parse("count:ge:1.5"))
+                .isInstanceOf(IllegalArgumentException.class);
+        Assertions.assertThatThrownBy(() -> MemberAggregation.builder().groupBy(Dimension.AGE).build())
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+}
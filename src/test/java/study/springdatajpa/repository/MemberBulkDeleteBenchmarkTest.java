@@ -0,0 +1,87 @@
+package study.springdatajpa.repository;
+
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.springdatajpa.auditor.AuditingClock;
+import study.springdatajpa.entity.Member;
+import study.springdatajpa.entity.Team;
+import study.springdatajpa.entity.TeamMember;
+import study.springdatajpa.repository.query.MemberBulkDeleteResult;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * 팀원 row 가 수천 개인 회원 삭제.
+ * 예전 cascade remove 처럼 TeamMember 를 모두 로딩해 건마다 remove 하는 경우와 deleteAllInBulk 비교.
+ */
+@SpringBootTest
+@Slf4j
+@Tag("benchmark")
+class MemberBulkDeleteBenchmarkTest {
+
+    private static final int MEMBERS = 5;
+    private static final int TEAMS = 3_000;
+
+    @Autowired
+    private MemberRepository memberRepository;
+    @Autowired
+    private TeamRepository teamRepository;
+    @Autowired
+    private TeamMemberRepository teamMemberRepository;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    @Autowired
+    private EntityManager em;
+    @Autowired
+    private AuditingClock auditingClock;
+
+    @Test
+    void deleteMembersWithManyMemberships() {
+        List<Long> teamIds = transactionTemplate.execute(status -> teamRepository.saveAll(
+                        IntStream.range(0, TEAMS).mapToObj(i -> new Team("bulk delete bench " + i)).toList())
+                .stream().map(Team::getId).collect(Collectors.toList()));
+
+        // cascade remove 방식 : TeamMember 로딩 + row 마다 delete
+        List<Long> perRowIds = createMembers("per-row", teamIds);
+        long started = System.nanoTime();
+        transactionTemplate.executeWithoutResult(status -> perRowIds.forEach(memberId -> {
+            Member member = em.find(Member.class, memberId);
+            for (TeamMember teamMember : new ArrayList<>(member.getTeamMembers())) {
+                em.remove(teamMember);
+            }
+            member.softDelete(auditingClock.now());
+        }));
+        long perRow = System.nanoTime() - started;
+
+        // set-based
+        List<Long> bulkIds = createMembers("bulk", teamIds);
+        started = System.nanoTime();
+        MemberBulkDeleteResult result = transactionTemplate.execute(status -> memberRepository.deleteAllInBulk(bulkIds));
+        long bulk = System.nanoTime() - started;
+
+        Assertions.assertThat(result.getMembers()).isEqualTo(MEMBERS);
+        Assertions.assertThat(result.getMemberships()).isEqualTo(MEMBERS * TEAMS);
+        log.info("delete {} members x {} memberships : per-row {} ms, bulk {} ms", MEMBERS, TEAMS,
+                TimeUnit.NANOSECONDS.toMillis(perRow), TimeUnit.NANOSECONDS.toMillis(bulk));
+    }
+
+    private List<Long> createMembers(String prefix, List<Long> teamIds) {
+        List<Long> memberIds = transactionTemplate.execute(status -> memberRepository.saveAll(
+                        IntStream.range(0, MEMBERS).mapToObj(i -> new Member(prefix + i, 30)).toList())
+                .stream().map(Member::getId).collect(Collectors.toList()));
+        transactionTemplate.executeWithoutResult(status ->
+                teamIds.forEach(teamId -> teamMemberRepository.ensureMemberships(teamId, memberIds)));
+        return memberIds;
+    }
+
+}
@@ -0,0 +1,108 @@
+package study.springdatajpa.repository;
+
+import lombok.extern.slf4j.Slf4j;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import study.springdatajpa.entity.Member;
+import study.springdatajpa.repository.query.MemberQueryDto;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.IntStream;
+
+/**
+ * 같은 회원 목록 페이지를 JPA(Page, count 포함) 와 R2DBC(Flux) 로 동시에 읽을 때의 처리량 비교.
+ * H2 의 R2DBC driver 는 embedded 엔진을 구독 스레드에서 호출하므로 여기서는 스레드 절약보다 매핑 / count 비용 차이가 보인다.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:read_path",
+        "spring.r2dbc.url=r2dbc:h2:mem:///read_path",
+        "tenant.connection.max-connections=16"})
+@Slf4j
+@Tag("benchmark")
+class MemberReadPathBenchmarkTest {
+
+    private static final int MEMBERS = 5_000;
+    private static final int READERS = 16;
+    private static final int READS_PER_READER = 100;
+    private static final int PAGE_SIZE = 100;
+
+    @Autowired
+    private MemberRepository memberRepository;
+    @Autowired
+    private MemberReactiveReader memberReactiveReader;
+
+    @BeforeEach
+    void setUp() {
+        if (memberRepository.count() < MEMBERS) {
+            memberRepository.saveAll(IntStream.range(0, MEMBERS).mapToObj(i -> new Member("read path " + i, i % 80)).toList());
+        }
+    }
+
+    @Test
+    void jpaPage() throws InterruptedException {
+        run("jpa", pageable -> memberRepository.findAll(pageable)
+                .map(member -> new MemberQueryDto(member.getId(), member.getMemberName(), member.getAge())).getContent());
+    }
+
+    @Test
+    void r2dbcFlux() throws InterruptedException {
+        run("r2dbc", pageable -> memberReactiveReader.findMemberDtos(pageable).collectList().block());
+    }
+
+    private void run(String name, Function<Pageable, List<MemberQueryDto>> read) throws InterruptedException {
+
+        // given...
+        int pages = MEMBERS / PAGE_SIZE;
+        read.apply(PageRequest.of(0, PAGE_SIZE)); // warm up
+        ExecutorService executor = Executors.newFixedThreadPool(READERS);
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(READERS);
+        AtomicInteger rows = new AtomicInteger();
+
+        // when...
+        for (int r = 0; r < READERS; r++) {
+            int reader = r;
+            executor.submit(() -> {
+                try {
+                    start.await();
+                    for (int i = 0; i < READS_PER_READER; i++) {
+                        Pageable pageable = PageRequest.of((reader + i) % pages, PAGE_SIZE, Sort.by("age", "id"));
+                        rows.addAndGet(read.apply(pageable).size());
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+
+        long started = System.nanoTime();
+        start.countDown();
+        done.await(5, TimeUnit.MINUTES);
+        long elapsedNanos = System.nanoTime() - started;
+        executor.shutdown();
+
+        // then...
+        int reads = READERS * READS_PER_READER;
+        log.info("[{}] readers : {}, reads : {}, rows : {}", name, READERS, reads, rows.get());
+        log.info("[{}] elapsed : {} ms, throughput : {} pages/s", name,
+                TimeUnit.NANOSECONDS.toMillis(elapsedNanos), reads * 1_000_000_000L / Math.max(elapsedNanos, 1));
+
+        Assertions.assertThat(rows.get()).isEqualTo(reads * PAGE_SIZE);
+    }
+
+}
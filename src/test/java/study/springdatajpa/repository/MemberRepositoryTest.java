@@ -12,8 +12,10 @@ import org.springframework.test.annotation.Commit;
 import org.springframework.transaction.annotation.Transactional;
 import study.springdatajpa.entity.Member;
 import study.springdatajpa.entity.Team;
+import study.springdatajpa.repository.query.MemberBulkDeleteResult;
 import study.springdatajpa.repository.query.MemberQueryDto;
 import study.springdatajpa.service.MemberService;
+import study.springdatajpa.service.MemberTeamViewService;
 
 import java.util.Arrays;
 import java.util.List;
@@ -34,6 +36,10 @@ class MemberRepositoryTest {
     private TeamRepository teamRepository;
     @Autowired
     private EntityManager em;
+    @Autowired
+    private MemberTeamViewService memberTeamViewService;
+    @Autowired
+    private MemberTeamViewRepository memberTeamViewRepository;
 
     @Test
     @Transactional
@@ -536,6 +542,58 @@ class MemberRepositoryTest {
         });
     }
 
-}
+    @Test
+    @Transactional
+    void memberTeamViewIncrementalUpdate() {
+        // given...
+        Member member = memberRepository.save(new Member("view member", 30));
+        Team team = teamRepository.save(new Team("view team"));
+
+        // when...
+        member.addTeam(team);
+        member.setMemberName("view member renamed");
+        memberService.memberBulkUpdate(5);
+        em.flush();
+        em.clear();
 
+        // then...
+        List<MemberProjection> rows = memberTeamViewRepository.findByTeamId(team.getId());
+        Assertions.assertThat(rows).hasSize(1);
+        Assertions.assertThat(rows.get(0).getMemberName()).isEqualTo("view member renamed");
+        Assertions.assertThat(memberTeamViewService.check().isConsistent()).isTrue();
+    }
+
+    @Test
+    @Transactional
+    void deleteAllInBulk() {
+        // given... 로딩된 Member / TeamMember 가 영속성 컨텍스트에 남아 있는 상태
+        Team teamA = teamRepository.save(new Team("bulk delete team A"));
+        Team teamB = teamRepository.save(new Team("bulk delete team B"));
+        Member first = new Member("bulk delete 1", 40);
+        Member second = new Member("bulk delete 2", 41);
+        Member kept = new Member("bulk delete kept", 42);
+        first.addTeam(teamA);
+        first.addTeam(teamB);
+        second.addTeam(teamA);
+        kept.addTeam(teamA);
+        memberRepository.saveAll(List.of(first, second, kept));
 
+        // when...
+        MemberBulkDeleteResult result = memberRepository.deleteAllInBulk(List.of(first.getId(), second.getId(), -1L));
+
+        // then...
+        Assertions.assertThat(result.getMembers()).isEqualTo(2);
+        Assertions.assertThat(result.getMemberships()).isEqualTo(3);
+        Assertions.assertThat(result.getDeletedIds()).containsExactly(first.getId(), second.getId());
+        Assertions.assertThat(em.contains(first)).isFalse();
+        Assertions.assertThat(memberRepository.findById(first.getId())).isEmpty();
+        Assertions.assertThat(memberRepository.findMembersByTeamId(teamA.getId()))
+                .extracting(MemberQueryDto::getId)
+                .containsExactly(kept.getId());
+        Assertions.assertThat(memberTeamViewService.check().isConsistent()).isTrue();
+
+        // 이미 삭제된 id 는 건너뛴다.
+        Assertions.assertThat(memberRepository.deleteAllInBulk(List.of(first.getId())).getMembers()).isZero();
+    }
+
+}
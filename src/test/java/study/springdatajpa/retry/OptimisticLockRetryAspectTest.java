@@ -0,0 +1,79 @@
+package study.springdatajpa.retry;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+class OptimisticLockRetryAspectTest {
+
+    @Test
+    void retriesUntilSuccess() {
+        // given : 두 번 충돌하고 세 번째에 성공한다.
+        ConflictingWriter writer = proxy(new ConflictingWriter(2));
+
+        // when
+        String result = writer.write();
+
+        // then
+        Assertions.assertThat(result).isEqualTo("written");
+        Assertions.assertThat(writer.attempts()).isEqualTo(3);
+    }
+
+    @Test
+    void rethrowsAfterMaxAttempts() {
+        // given : 계속 충돌한다.
+        ConflictingWriter writer = proxy(new ConflictingWriter(Integer.MAX_VALUE));
+
+        // when... then... maxAttempts(3) 번 시도하고 마지막 예외를 그대로 던진다.
+        Assertions.assertThatThrownBy(writer::write).isInstanceOf(OptimisticLockingFailureException.class);
+        Assertions.assertThat(writer.attempts()).isEqualTo(3);
+    }
+
+    @Test
+    void doesNotRetryInsideExistingTransaction() {
+        // given : 바깥 트랜잭션에 참여 중이다.
+        ConflictingWriter writer = proxy(new ConflictingWriter(1));
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+        try {
+            // when... then... 한 번만 실행하고 바로 던진다.
+            Assertions.assertThatThrownBy(writer::write).isInstanceOf(OptimisticLockingFailureException.class);
+            Assertions.assertThat(writer.attempts()).isEqualTo(1);
+        } finally {
+            TransactionSynchronizationManager.setActualTransactionActive(false);
+        }
+    }
+
+    private static ConflictingWriter proxy(ConflictingWriter target) {
+        AspectJProxyFactory factory = new AspectJProxyFactory(target);
+        factory.setProxyTargetClass(true);
+        factory.addAspect(new OptimisticLockRetryAspect());
+        return factory.getProxy();
+    }
+
+    static class ConflictingWriter {
+
+        private final int conflicts;
+        private final AtomicInteger attempts = new AtomicInteger();
+
+        ConflictingWriter(int conflicts) {
+            this.conflicts = conflicts;
+        }
+
+        @RetryOnConflict(maxAttempts = 3, backoffMillis = 1)
+        public String write() {
+            if (attempts.incrementAndGet() <= conflicts) {
+                throw new OptimisticLockingFailureException("conflict " + attempts.get());
+            }
+            return "written";
+        }
+
+        public int attempts() {
+            return attempts.get();
+        }
+    }
+
+}
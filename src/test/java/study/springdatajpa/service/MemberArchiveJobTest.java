@@ -0,0 +1,67 @@
+package study.springdatajpa.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import study.springdatajpa.entity.Member;
+import study.springdatajpa.entity.Team;
+import study.springdatajpa.repository.MemberRepository;
+import study.springdatajpa.repository.TeamMemberRepository;
+import study.springdatajpa.repository.query.MemberQueryDto;
+
+import java.time.LocalDateTime;
+
+@SpringBootTest
+@Slf4j
+class MemberArchiveJobTest {
+
+    @Autowired
+    private MemberArchiveJob memberArchiveJob;
+    @Autowired
+    private MemberService memberService;
+    @Autowired
+    private TeamService teamService;
+    @Autowired
+    private MemberRepository memberRepository;
+    @Autowired
+    private TeamMemberRepository teamMemberRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void archiveInactiveMembers() {
+        // given... 3년 전에 마지막으로 수정된 회원
+        LocalDateTime longAgo = LocalDateTime.now().minusYears(3);
+        Member cold = memberService.signUpMember(new Member("archive cold", 77));
+        Member hot = memberService.signUpMember(new Member("archive hot", 77));
+        Team team = teamService.createTeam(new Team("archive team"));
+        memberService.ensureMembership(cold.getId(), team.getId());
+        jdbcTemplate.update("UPDATE member SET updated_date = ? WHERE member_id = ?", longAgo, cold.getId());
+
+        // when...
+        int archived = memberArchiveJob.archive(longAgo.plusDays(1));
+
+        // then... 기본 조회에서는 빠지고, includeArchived 에서만 보인다.
+        Assertions.assertThat(archived).isEqualTo(1);
+        Assertions.assertThat(memberRepository.findById(cold.getId())).isEmpty();
+        Assertions.assertThat(teamMemberRepository.countByMemberId(cold.getId())).isZero();
+        Assertions.assertThat(memberRepository.findDtosByAge(77, false))
+                .extracting(MemberQueryDto::getId)
+                .containsExactly(hot.getId());
+        Assertions.assertThat(memberRepository.findDtosByAge(77, true))
+                .extracting(MemberQueryDto::getId)
+                .containsExactly(cold.getId(), hot.getId());
+        Assertions.assertThat(jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM team_member_archive WHERE member_id = ?", Long.class, cold.getId())).isEqualTo(1);
+
+        long hotTotal = memberRepository.findMemberDtos(PageRequest.of(0, 1, Sort.by("id")), false).getTotalElements();
+        long allTotal = memberRepository.findMemberDtos(PageRequest.of(0, 1, Sort.by("id")), true).getTotalElements();
+        Assertions.assertThat(allTotal).isGreaterThan(hotTotal);
+    }
+
+}
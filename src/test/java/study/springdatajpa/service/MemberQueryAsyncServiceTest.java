@@ -0,0 +1,79 @@
+package study.springdatajpa.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import study.springdatajpa.dto.MemberDashboardDto;
+import study.springdatajpa.entity.Member;
+import study.springdatajpa.entity.Team;
+import study.springdatajpa.repository.MemberRepository;
+import study.springdatajpa.repository.TeamRepository;
+import study.springdatajpa.repository.query.MemberQueryDto;
+import study.springdatajpa.repository.query.TeamQueryDto;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+@SpringBootTest
+@Slf4j
+class MemberQueryAsyncServiceTest {
+
+    @Autowired
+    private MemberQueryAsyncService memberQueryAsyncService;
+    @Autowired
+    private MemberDashboardService memberDashboardService;
+    @Autowired
+    private MemberService memberService;
+    @Autowired
+    private MemberRepository memberRepository;
+    @Autowired
+    private TeamRepository teamRepository;
+
+    @Test
+    void fanOutQueries() {
+        // given... (비동기 작업은 다른 트랜잭션에서 실행되므로 커밋된 데이터가 필요하다.)
+        int age = 3034;
+        Team team = teamRepository.save(new Team("async team"));
+        Member member1 = memberRepository.save(new Member("async1", age));
+        Member member2 = memberRepository.save(new Member("async2", age));
+        memberService.addMemberToTeam(team.getId(), member1.getId());
+
+        // when...
+        CompletableFuture<List<MemberQueryDto>> byAge = memberQueryAsyncService.findAllByAge(age);
+        CompletableFuture<List<MemberQueryDto>> byTeam = memberQueryAsyncService.findMembersByTeamId(team.getId());
+        CompletableFuture<Long> count = memberQueryAsyncService.countByAge(age);
+        CompletableFuture.allOf(byAge, byTeam, count).join();
+
+        // then...
+        Assertions.assertThat(byAge.join()).extracting(MemberQueryDto::getId)
+                .containsExactlyInAnyOrder(member1.getId(), member2.getId());
+        Assertions.assertThat(byTeam.join()).extracting(MemberQueryDto::getId).containsExactly(member1.getId());
+        Assertions.assertThat(count.join()).isEqualTo(2L);
+    }
+
+    @Test
+    void dashboard() {
+        // given...
+        Team team = teamRepository.save(new Team("dashboard team"));
+        Member member = memberRepository.save(new Member("dashboard1", 30));
+        Member teammate = memberRepository.save(new Member("dashboard2", 31));
+        memberService.addMemberToTeam(team.getId(), member.getId());
+        memberService.addMemberToTeam(team.getId(), teammate.getId());
+
+        // when...
+        MemberDashboardDto dashboard = memberDashboardService.findDashboard(member.getId()).orElseThrow();
+
+        // then...
+        Assertions.assertThat(dashboard.getIncompleteSections()).isEmpty();
+        Assertions.assertThat(dashboard.getMember().getMemberName()).isEqualTo("dashboard1");
+        Assertions.assertThat(dashboard.getTeams()).extracting(TeamQueryDto::getId).containsExactly(team.getId());
+        Assertions.assertThat(dashboard.getRosters().get(team.getId())).extracting(MemberQueryDto::getId)
+                .containsExactlyInAnyOrder(member.getId(), teammate.getId());
+        Assertions.assertThat(dashboard.getCounts().getTeamCount()).isEqualTo(1L);
+        Assertions.assertThat(dashboard.getCounts().getTeammateCount()).isEqualTo(1L);
+        Assertions.assertThat(memberDashboardService.findDashboard(-1L)).isEmpty();
+    }
+
+}
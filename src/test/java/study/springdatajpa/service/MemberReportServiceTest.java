@@ -0,0 +1,102 @@
+package study.springdatajpa.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import study.springdatajpa.entity.Member;
+import study.springdatajpa.entity.Team;
+import study.springdatajpa.repository.MemberRepository;
+import study.springdatajpa.tenant.TenantConnectionLimiter;
+import study.springdatajpa.tenant.TenantContext;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+/**
+ * 회원 수보다 partition 이 많아도(빈 구간) 결과가 같아야 한다. 다른 테스트의 회원과 섞이지 않도록 별도 DB 를 쓴다.
+ * tenant 몫(2)을 partition 수 / executor 스레드 수보다 작게 잡아, scan 이 몫 안에서만 커넥션을 잡는지 확인한다.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:report",
+        "member.scan.partitions=7",
+        "tenant.connection.max-connections=2",
+        "tenant.connection.acquire-timeout-ms=50",
+        "tenant.connection.known-tenants=report-limited"})
+@Slf4j
+class MemberReportServiceTest {
+
+    @Autowired
+    private MemberReportService memberReportService;
+    @Autowired
+    private MemberRepository memberRepository;
+    @Autowired
+    private MemberService memberService;
+    @Autowired
+    private TeamService teamService;
+    @Autowired
+    private DataSource dataSource;
+    @Autowired
+    private TenantConnectionLimiter tenantConnectionLimiter;
+
+    @Test
+    void ageHistogramAndTeamSizes() {
+        TenantContext.runAs("report", () -> {
+            // given... 나이 0..24 인 25 명, 팀 A 3 명 / 팀 B 3 명 / 팀 C 1 명
+            List<Member> members = memberRepository.saveAll(IntStream.range(0, 25)
+                    .mapToObj(i -> new Member("report member" + i, i)).toList());
+            Team teamA = teamService.createTeam(new Team("report A"));
+            Team teamB = teamService.createTeam(new Team("report B"));
+            Team teamC = teamService.createTeam(new Team("report C"));
+            for (int i = 0; i < 3; i++) {
+                memberService.addMemberToTeam(teamA.getId(), members.get(i).getId());
+                memberService.addMemberToTeam(teamB.getId(), members.get(10 + i).getId());
+            }
+            memberService.addMemberToTeam(teamC.getId(), members.get(24).getId());
+
+            // when...
+            Map<Integer, Long> histogram = memberReportService.ageHistogram(10);
+            Map<Long, Long> teamSizes = memberReportService.teamSizeDistribution();
+
+            // then...
+            Assertions.assertThat(histogram).containsExactly(Map.entry(0, 10L), Map.entry(10, 10L), Map.entry(20, 5L));
+            Assertions.assertThat(teamSizes).containsExactly(Map.entry(1L, 1L), Map.entry(3L, 2L));
+        });
+
+        // 다른 tenant 의 회원은 세지 않는다.
+        Assertions.assertThat(TenantContext.callAs("report-other", () -> memberReportService.ageHistogram(10))).isEmpty();
+    }
+
+    @Test
+    void scanWithinTenantConnectionLimit() throws SQLException {
+        TenantContext.runAs("report-limited", () -> memberRepository.saveAll(IntStream.range(0, 50)
+                .mapToObj(i -> new Member("limited member" + i, i)).toList()));
+
+        // given... 같은 tenant 의 다른 요청이 몫 2 중 1 을 쓰고 있다.
+        try (Connection held = TenantContext.callAs("report-limited", this::connection)) {
+            Assertions.assertThat(tenantConnectionLimiter.availableConnections("report-limited")).isEqualTo(1);
+
+            // when... partition 7 개가 남은 1 개로 차례로 실행된다. 몫을 넘기면 acquire-timeout 뒤 TenantConnectionLimitException
+            Map<Integer, Long> histogram = TenantContext.callAs("report-limited", () -> memberReportService.ageHistogram(10));
+
+            // then...
+            Assertions.assertThat(histogram).containsExactly(Map.entry(0, 10L), Map.entry(10, 10L), Map.entry(20, 10L),
+                    Map.entry(30, 10L), Map.entry(40, 10L));
+        }
+        Assertions.assertThat(tenantConnectionLimiter.availableConnections("report-limited")).isEqualTo(2);
+    }
+
+    private Connection connection() {
+        try {
+            return dataSource.getConnection();
+        } catch (SQLException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+}
@@ -0,0 +1,104 @@
+package study.springdatajpa.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import study.springdatajpa.entity.Member;
+import study.springdatajpa.entity.Team;
+import study.springdatajpa.repository.MemberRepository;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * 하나의 팀에 여러 writer 가 동시에 팀원을 추가할 때
+ * 낙관적 락 + 재시도 vs 비관적 락 처리량 비교.
+ */
+@SpringBootTest
+@Slf4j
+@Tag("benchmark")
+class MembershipContentionBenchmarkTest {
+
+    private static final int WRITERS = 8;
+    private static final int OPERATIONS_PER_WRITER = 25;
+
+    @Autowired
+    private MemberService memberService;
+    @Autowired
+    private TeamService teamService;
+    @Autowired
+    private MemberRepository memberRepository;
+
+    @Test
+    void optimisticWithRetry() throws InterruptedException {
+        run("optimistic + retry", memberService::addMemberToTeam);
+    }
+
+    @Test
+    void pessimisticWrite() throws InterruptedException {
+        run("pessimistic write", memberService::addMemberToTeamWithLock);
+    }
+
+    private void run(String name, BiConsumer<Long, Long> addMemberToTeam) throws InterruptedException {
+
+        // given...
+        Team team = teamService.createTeam(new Team(name));
+        List<Member> members = IntStream.range(0, WRITERS * OPERATIONS_PER_WRITER)
+                .mapToObj(i -> new Member(name + i, i))
+                .collect(Collectors.toList());
+        memberRepository.saveAll(members);
+
+        ExecutorService executor = Executors.newFixedThreadPool(WRITERS);
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(WRITERS);
+        AtomicInteger failures = new AtomicInteger();
+
+        // when...
+        for (int w = 0; w < WRITERS; w++) {
+            int writer = w;
+            executor.submit(() -> {
+                try {
+                    start.await();
+                    for (int i = 0; i < OPERATIONS_PER_WRITER; i++) {
+                        Member member = members.get(writer * OPERATIONS_PER_WRITER + i);
+                        try {
+                            addMemberToTeam.accept(team.getId(), member.getId());
+                        } catch (RuntimeException e) {
+                            failures.incrementAndGet();
+                        }
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+
+        long started = System.nanoTime();
+        start.countDown();
+        done.await(5, TimeUnit.MINUTES);
+        long elapsedNanos = System.nanoTime() - started;
+        executor.shutdown();
+
+        // then...
+        int operations = WRITERS * OPERATIONS_PER_WRITER;
+        log.info("[{}] writers : {}, operations : {}, failures : {}", name, WRITERS, operations, failures.get());
+        log.info("[{}] elapsed : {} ms, throughput : {} ops/s", name,
+                TimeUnit.NANOSECONDS.toMillis(elapsedNanos), operations * 1_000_000_000L / Math.max(elapsedNanos, 1));
+
+        Assertions.assertThat(memberRepository.findMembersByTeamId(team.getId()))
+                .hasSize(operations - failures.get());
+    }
+
+}
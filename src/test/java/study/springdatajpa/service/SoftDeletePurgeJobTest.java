@@ -0,0 +1,112 @@
+package study.springdatajpa.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import study.springdatajpa.entity.Member;
+import study.springdatajpa.entity.Team;
+import study.springdatajpa.repository.MemberRepository;
+import study.springdatajpa.repository.TeamMemberRepository;
+import study.springdatajpa.repository.TeamRepository;
+import study.springdatajpa.repository.query.MemberBulkDeleteResult;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@SpringBootTest
+@Slf4j
+class SoftDeletePurgeJobTest {
+
+    @Autowired
+    private MemberService memberService;
+    @Autowired
+    private TeamService teamService;
+    @Autowired
+    private SoftDeletePurgeJob softDeletePurgeJob;
+    @Autowired
+    private MemberRepository memberRepository;
+    @Autowired
+    private TeamRepository teamRepository;
+    @Autowired
+    private TeamMemberRepository teamMemberRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void deleteMemberIsSoftThenPurged() {
+        // given...
+        Member member = memberService.signUpMember(new Member("soft delete member", 30));
+        Team teamA = teamService.createTeam(new Team("soft delete team A"));
+        Team teamB = teamService.createTeam(new Team("soft delete team B"));
+        memberService.ensureMembership(member.getId(), teamA.getId());
+        memberService.ensureMembership(member.getId(), teamB.getId());
+
+        // when...
+        boolean deleted = memberService.deleteMember(member.getId());
+
+        // then... 조회에서는 사라지고 row 는 남는다. 팀원 row 는 바로 지워진다.
+        Assertions.assertThat(deleted).isTrue();
+        Assertions.assertThat(memberRepository.findById(member.getId())).isEmpty();
+        Assertions.assertThat(memberRepository.findMemberByNativeQuery("soft delete member")).isEmpty();
+        Assertions.assertThat(rows("member", "member_id", member.getId())).isEqualTo(1);
+        // deleted_at 은 DB 시계가 아니라 AuditingClock 시각이다. 같은 트랜잭션의 updated_date / tombstone 과 같다.
+        LocalDateTime deletedAt = jdbcTemplate.queryForObject("SELECT deleted_at FROM member WHERE member_id = ?", LocalDateTime.class, member.getId());
+        Assertions.assertThat(deletedAt)
+                .isEqualTo(jdbcTemplate.queryForObject("SELECT updated_date FROM member WHERE member_id = ?", LocalDateTime.class, member.getId()))
+                .isEqualTo(jdbcTemplate.queryForObject("SELECT deleted_at FROM tombstone WHERE entity_type = 'MEMBER' AND entity_id = ?", LocalDateTime.class, member.getId()));
+        Assertions.assertThat(teamMemberRepository.countByMemberId(member.getId())).isZero();
+        Assertions.assertThat(memberService.ensureMembership(member.getId(), teamA.getId())).isFalse();
+        Assertions.assertThat(memberService.deleteMember(member.getId())).isFalse();
+
+        // when... 보관 기간이 지나면 실제로 지운다.
+        softDeletePurgeJob.purge(LocalDateTime.now().plusMinutes(1));
+
+        // then...
+        Assertions.assertThat(rows("member", "member_id", member.getId())).isZero();
+        Assertions.assertThat(teamRepository.findById(teamA.getId())).isPresent();
+    }
+
+    @Test
+    void deleteTeamRemovesMemberships() {
+        // given...
+        Member member = memberService.signUpMember(new Member("soft delete teammate", 31));
+        Team team = teamService.createTeam(new Team("soft delete team"));
+        teamService.ensureMembers(team.getId(), List.of(member.getId()));
+
+        // when...
+        boolean deleted = teamService.deleteTeam(team.getId());
+
+        // then...
+        Assertions.assertThat(deleted).isTrue();
+        Assertions.assertThat(teamRepository.findById(team.getId())).isEmpty();
+        Assertions.assertThat(teamRepository.findTeamDtosByMemberId(member.getId())).isEmpty();
+        Assertions.assertThat(memberRepository.findById(member.getId())).isPresent();
+
+        softDeletePurgeJob.purge(LocalDateTime.now().plusMinutes(1));
+        Assertions.assertThat(rows("team", "team_id", team.getId())).isZero();
+    }
+
+    @Test
+    void deleteMembersRecordsTombstones() {
+        // given...
+        Member first = memberService.signUpMember(new Member("soft delete bulk 1", 32));
+        Member second = memberService.signUpMember(new Member("soft delete bulk 2", 33));
+
+        // when... 없는 id 는 건너뛴다.
+        MemberBulkDeleteResult result = memberService.deleteMembers(List.of(first.getId(), second.getId(), -1L));
+
+        // then... 벌크 삭제도 deleteMember 처럼 tombstone 을 남긴다.
+        Assertions.assertThat(result.getDeletedIds()).containsExactly(first.getId(), second.getId());
+        Assertions.assertThat(rows("tombstone", "entity_id", first.getId())).isEqualTo(1);
+        Assertions.assertThat(rows("tombstone", "entity_id", second.getId())).isEqualTo(1);
+        Assertions.assertThat(memberService.deleteMembers(List.of(first.getId())).getMembers()).isZero();
+    }
+
+    private long rows(String table, String idColumn, Long id) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + table + " WHERE " + idColumn + " = ?", Long.class, id);
+    }
+
+}
@@ -0,0 +1,94 @@
+package study.springdatajpa.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.springdatajpa.dto.SyncResponse;
+import study.springdatajpa.entity.Member;
+import study.springdatajpa.repository.MemberRepository;
+import study.springdatajpa.repository.query.MemberChangeDto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * safety lag 없이 방금 커밋한 변경도 바로 보이게 한다. 컨텍스트가 따로 뜨므로 H2 DB 도 따로 쓴다.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:sync",
+        "sync.safety-lag-ms=0"})
+@Slf4j
+class SyncServiceTest {
+
+    @Autowired
+    private SyncService syncService;
+    @Autowired
+    private MemberService memberService;
+    @Autowired
+    private MemberRepository memberRepository;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Test
+    void memberChangesSinceCursor() {
+        // given... 처음 동기화는 현재 전체를 페이지로 나눠 받는다.
+        Member kept = memberService.signUpMember(new Member("sync kept", 20));
+        Member changed = memberService.signUpMember(new Member("sync changed", 21));
+        Member deleted = memberService.signUpMember(new Member("sync deleted", 22));
+        String cursor = drain(null, new ArrayList<>());
+
+        // when... 수정, 삭제, 추가 후 cursor 이후 변경분만 받는다.
+        transactionTemplate.executeWithoutResult(status ->
+                memberRepository.findById(changed.getId()).orElseThrow().setMemberName("sync changed again"));
+        memberService.deleteMember(deleted.getId());
+        Member added = memberService.signUpMember(new Member("sync added", 23));
+        SyncResponse<MemberChangeDto> delta = syncService.memberChanges(cursor, 10);
+
+        // then...
+        Assertions.assertThat(delta.getChanges()).extracting(MemberChangeDto::getId)
+                .containsExactly(changed.getId(), added.getId())
+                .doesNotContain(kept.getId());
+        Assertions.assertThat(delta.getDeletedIds()).containsExactly(deleted.getId());
+        Assertions.assertThat(delta.isHasMore()).isFalse();
+
+        // 다시 받으면 비어 있다.
+        SyncResponse<MemberChangeDto> empty = syncService.memberChanges(delta.getCursor(), 10);
+        Assertions.assertThat(empty.getChanges()).isEmpty();
+        Assertions.assertThat(empty.getDeletedIds()).isEmpty();
+    }
+
+    @Test
+    void bulkUpdateIsSynced() {
+        // given...
+        Member member = memberService.signUpMember(new Member("sync bulk", 95));
+        String cursor = drain(null, new ArrayList<>());
+
+        // when...
+        memberService.memberBulkUpdate(95);
+        SyncResponse<MemberChangeDto> delta = syncService.memberChanges(cursor, 10);
+
+        // then...
+        Assertions.assertThat(delta.getChanges()).extracting(MemberChangeDto::getId).contains(member.getId());
+    }
+
+    @Test
+    void invalidCursor() {
+        Assertions.assertThatThrownBy(() -> syncService.memberChanges("not-a-cursor", 10))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    // hasMore 가 false 가 될 때까지 작은 페이지로 받는다.
+    private String drain(String cursor, List<MemberChangeDto> received) {
+        SyncResponse<MemberChangeDto> response;
+        do {
+            response = syncService.memberChanges(cursor, 2);
+            received.addAll(response.getChanges());
+            cursor = response.getCursor();
+        } while (response.isHasMore());
+        return cursor;
+    }
+
+}
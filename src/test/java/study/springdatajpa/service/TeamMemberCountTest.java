@@ -0,0 +1,77 @@
+package study.springdatajpa.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.springdatajpa.entity.Member;
+import study.springdatajpa.entity.Team;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * team_member_count 를 켜고, 새 팀의 첫 팀원 두 명이 동시에 들어올 때 둘 다 성공하고 수가 맞는지 확인한다.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:counter",
+        "team.member-count.enabled=true"})
+@Slf4j
+class TeamMemberCountTest {
+
+    @Autowired
+    private TeamService teamService;
+    @Autowired
+    private MemberService memberService;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void firstMembershipsConcurrently() throws Exception {
+        // given... 팀을 만들면 0 인 row 가 생긴다.
+        Team team = teamService.createTeam(new Team("counter team"));
+        Member member1 = memberService.signUpMember(new Member("counter member1", 20));
+        Member member2 = memberService.signUpMember(new Member("counter member2", 30));
+        Assertions.assertThat(memberCount(team.getId())).isZero();
+        CountDownLatch firstInserted = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+
+        // when... 첫 번째가 commit 하기 전에 두 번째가 같은 팀의 counter 를 갱신한다.
+        Future<Boolean> first = executor.submit(() -> transactionTemplate.execute(status -> {
+            boolean inserted = memberService.ensureMembership(member1.getId(), team.getId());
+            firstInserted.countDown();
+            sleep(200);
+            return inserted;
+        }));
+        firstInserted.await(5, TimeUnit.SECONDS);
+        Future<Boolean> second = executor.submit(() -> memberService.ensureMembership(member2.getId(), team.getId()));
+
+        // then... 둘 다 팀원이 되고, duplicate key 로 실패하지 않는다.
+        Assertions.assertThat(first.get(5, TimeUnit.SECONDS)).isTrue();
+        Assertions.assertThat(second.get(5, TimeUnit.SECONDS)).isTrue();
+        executor.shutdown();
+        Assertions.assertThat(memberCount(team.getId())).isEqualTo(2);
+        Assertions.assertThat(teamService.countMembers(team.getId())).isEqualTo(2);
+    }
+
+    private Long memberCount(Long teamId) {
+        return jdbcTemplate.queryForObject("SELECT member_count FROM team_member_count WHERE team_id = ?", Long.class, teamId);
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+}
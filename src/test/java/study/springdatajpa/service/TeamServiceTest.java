@@ -5,14 +5,26 @@ import org.assertj.core.api.Assertions;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.test.annotation.Commit;
 import org.springframework.test.annotation.Rollback;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import study.springdatajpa.entity.Member;
 import study.springdatajpa.entity.Team;
 import study.springdatajpa.entity.TeamMember;
 import study.springdatajpa.repository.MemberRepository;
 import study.springdatajpa.repository.TeamRepository;
+import study.springdatajpa.repository.query.MemberQueryDto;
+import study.springdatajpa.repository.query.TeamAgeStatsDto;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
 
@@ -28,6 +40,8 @@ class TeamServiceTest {
     private MemberRepository memberRepository;
     @Autowired
     private TeamRepository teamRepository;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
 
     @Test
     @Transactional
@@ -100,4 +114,86 @@ class TeamServiceTest {
             log.warn("Team members list is empty");
         }
     }
-}
\ No newline at end of file
+
+    @Test
+    @Transactional
+    void ensureMembership() {
+
+        // given...
+        Member member = memberService.signUpMember(new Member("MEMBER1", 20));
+        Member member2 = memberService.signUpMember(new Member("MEMBER2", 21));
+        Team team = teamService.createTeam(new Team("team 1"));
+
+        // when...
+        boolean first = memberService.ensureMembership(member.getId(), team.getId());
+        boolean second = memberService.ensureMembership(member.getId(), team.getId());
+        int batchInserted = teamService.ensureMembers(team.getId(), List.of(member.getId(), member2.getId(), member2.getId()));
+
+        // then...
+        assertThat(first).isTrue();
+        assertThat(second).isFalse();
+        assertThat(batchInserted).isEqualTo(1);
+        Assertions.assertThat(memberRepository.findMembersByTeamId(team.getId())).hasSize(2);
+    }
+
+    // 먼저 insert 한 트랜잭션이 commit 하기 전에 같은 팀원 upsert 가 들어오면, 늦은 쪽은 unique key 에 걸려도 false 로 끝나야 한다.
+    @Test
+    void ensureMembershipConcurrently() throws Exception {
+
+        // given...
+        Member member = memberService.signUpMember(new Member("RACE MEMBER", 20));
+        Team team = teamService.createTeam(new Team("race team"));
+        CountDownLatch firstInserted = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+
+        // when...
+        Future<Boolean> first = executor.submit(() -> transactionTemplate.execute(status -> {
+            boolean inserted = memberService.ensureMembership(member.getId(), team.getId());
+            firstInserted.countDown();
+            sleep(200); // 두 번째 요청이 MERGE 를 실행하는 동안 commit 하지 않고 잡고 있는다.
+            return inserted;
+        }));
+        firstInserted.await(5, TimeUnit.SECONDS);
+        Future<Boolean> second = executor.submit(() -> memberService.ensureMembership(member.getId(), team.getId()));
+
+        // then...
+        assertThat(first.get(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(second.get(5, TimeUnit.SECONDS)).isFalse();
+        executor.shutdown();
+        Assertions.assertThat(memberRepository.findMembersByTeamId(team.getId())).hasSize(1);
+        assertThat(teamService.ensureMembers(team.getId(), List.of(member.getId()))).isEqualTo(0);
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Test
+    @Transactional
+    void teamRosterAggregates() {
+
+        // given...
+        Team team = teamService.createTeam(new Team("roster team"));
+        List<Long> memberIds = List.of(
+                memberService.signUpMember(new Member("MEMBER1", 20)).getId(),
+                memberService.signUpMember(new Member("MEMBER2", 30)).getId(),
+                memberService.signUpMember(new Member("MEMBER3", 40)).getId());
+        teamService.ensureMembers(team.getId(), memberIds);
+
+        // when...
+        Page<MemberQueryDto> roster = teamService.findRoster(team.getId(), PageRequest.of(0, 2));
+        TeamAgeStatsDto stats = teamService.findAgeStats(team.getId()).get();
+
+        // then...
+        assertThat(roster.getTotalElements()).isEqualTo(3L);
+        Assertions.assertThat(roster.getContent()).hasSize(2);
+        assertThat(stats.getMemberCount()).isEqualTo(3L);
+        assertThat(stats.getAverageAge()).isEqualTo(30.0);
+        assertThat(stats.getMinAge()).isEqualTo(20);
+        assertThat(stats.getMaxAge()).isEqualTo(40);
+    }
+}
@@ -0,0 +1,94 @@
+package study.springdatajpa.shard;
+
+import lombok.extern.slf4j.Slf4j;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import study.springdatajpa.repository.query.MemberQueryDto;
+import study.springdatajpa.tenant.TenantContext;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * 샤드 3 개를 in-memory H2 로 띄운다. 테스트마다 tenant 를 나눠 서로의 데이터가 보이지 않게 한다.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:shard",
+        "member.shard.enabled=true",
+        "member.shard.count=3",
+        "member.shard.url-template=jdbc:h2:mem:shard_test_%d;DB_CLOSE_DELAY=-1"})
+@Slf4j
+class ShardedMemberRepositoryTest {
+
+    @Autowired
+    private ShardedMemberRepository shardedMemberRepository;
+    @Autowired
+    private ShardRouter shardRouter;
+
+    @Test
+    void scatterGatherPageKeepsGlobalOrder() {
+        TenantContext.runAs("shard-page", () -> {
+            // given... 30 명이 여러 샤드에 흩어진다.
+            List<MemberQueryDto> saved = new ArrayList<>();
+            for (int i = 0; i < 30; i++) {
+                saved.add(shardedMemberRepository.save("shard member " + i, i % 7));
+            }
+            Set<Integer> shards = saved.stream().map(member -> shardRouter.shardOf(member.getId())).collect(Collectors.toSet());
+            Assertions.assertThat(shards).hasSizeGreaterThan(1);
+
+            // when... 나이 내림차순 두 번째 페이지
+            Page<MemberQueryDto> page = shardedMemberRepository.findAll(PageRequest.of(1, 7, Sort.by("age").descending()));
+
+            // then... 한 DB 에서 정렬한 것과 같다.
+            List<Long> expected = saved.stream()
+                    .sorted(Comparator.comparingInt(MemberQueryDto::getAge).reversed().thenComparing(MemberQueryDto::getId))
+                    .skip(7).limit(7).map(MemberQueryDto::getId).toList();
+            Assertions.assertThat(page.getContent()).extracting(MemberQueryDto::getId).containsExactlyElementsOf(expected);
+            Assertions.assertThat(page.getTotalElements()).isEqualTo(30);
+
+            Page<MemberQueryDto> byName = shardedMemberRepository.findByMemberNameContaining("member 1",
+                    PageRequest.of(0, 20, Sort.by("memberName")));
+            Assertions.assertThat(byName.getContent()).extracting(MemberQueryDto::getMemberName)
+                    .containsExactly("shard member 1", "shard member 10", "shard member 11", "shard member 12", "shard member 13",
+                            "shard member 14", "shard member 15", "shard member 16", "shard member 17", "shard member 18", "shard member 19");
+        });
+    }
+
+    @Test
+    void membershipsLiveWithTheirMember() {
+        TenantContext.runAs("shard-membership", () -> {
+            // given...
+            MemberQueryDto member = shardedMemberRepository.save("shard team member", 30);
+
+            // when...
+            Assertions.assertThat(shardedMemberRepository.addTeam(member.getId(), 100L)).isTrue();
+            Assertions.assertThat(shardedMemberRepository.addTeam(member.getId(), 100L)).isFalse();
+            Assertions.assertThat(shardedMemberRepository.addTeam(member.getId(), 200L)).isTrue();
+
+            // then... team_member 는 member 와 같은 샤드에만 있다.
+            int home = shardRouter.shardOf(member.getId());
+            for (int shard = 0; shard < shardRouter.shardCount(); shard++) {
+                Long rows = shardRouter.jdbc(shard).queryForObject("SELECT COUNT(*) FROM team_member WHERE member_id = ?", Long.class, member.getId());
+                Assertions.assertThat(rows).isEqualTo(shard == home ? 2L : 0L);
+            }
+            Assertions.assertThat(shardedMemberRepository.findTeamIds(member.getId())).containsExactly(100L, 200L);
+
+            Assertions.assertThat(shardedMemberRepository.deleteById(member.getId())).isTrue();
+            Assertions.assertThat(shardedMemberRepository.findById(member.getId())).isEmpty();
+            Assertions.assertThat(shardedMemberRepository.findTeamIds(member.getId())).isEmpty();
+        });
+
+        // 다른 tenant 에서는 보이지 않는다.
+        MemberQueryDto other = TenantContext.callAs("shard-other", () -> shardedMemberRepository.save("shard other", 1));
+        Assertions.assertThat(TenantContext.callAs("shard-membership", () -> shardedMemberRepository.findById(other.getId()))).isEmpty();
+    }
+
+}
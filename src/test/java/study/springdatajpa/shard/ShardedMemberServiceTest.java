@@ -0,0 +1,64 @@
+package study.springdatajpa.shard;
+
+import lombok.extern.slf4j.Slf4j;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import study.springdatajpa.entity.Member;
+import study.springdatajpa.repository.MemberRepository;
+import study.springdatajpa.repository.query.MemberQueryDto;
+import study.springdatajpa.service.MemberService;
+import study.springdatajpa.tenant.TenantContext;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 샤드 모드에서 MemberService 의 가입 / 단건 조회 / 목록이 샤드로 가는지 확인한다. 설정은 ShardedMemberRepositoryTest 와 같다.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:shard",
+        "member.shard.enabled=true",
+        "member.shard.count=3",
+        "member.shard.url-template=jdbc:h2:mem:shard_test_%d;DB_CLOSE_DELAY=-1"})
+@Slf4j
+class ShardedMemberServiceTest {
+
+    @Autowired
+    private MemberService memberService;
+    @Autowired
+    private MemberRepository memberRepository;
+    @Autowired
+    private ShardRouter shardRouter;
+
+    @Test
+    void signUpAndReadThroughShards() {
+        TenantContext.runAs("shard-service", () -> {
+            // given...
+            List<Member> members = new ArrayList<>();
+            for (int i = 0; i < 10; i++) {
+                members.add(memberService.signUpMember(new Member("shard service member " + i, 20 + i)));
+            }
+            Member first = members.get(0);
+
+            // then... 회원은 샤드에만 있고 기본 DB 에는 없다.
+            Assertions.assertThat(memberService.isSharded()).isTrue();
+            Long rows = shardRouter.jdbcFor(first.getId()).queryForObject("SELECT COUNT(*) FROM member WHERE member_id = ?", Long.class, first.getId());
+            Assertions.assertThat(rows).isEqualTo(1);
+            Assertions.assertThat(memberRepository.findById(first.getId())).isEmpty();
+
+            // 단건 조회와 목록도 샤드에서 읽는다.
+            Assertions.assertThat(memberService.findDtoById(first.getId())).map(MemberQueryDto::getMemberName).contains("shard service member 0");
+            Page<MemberQueryDto> page = memberService.findMemberDtos(PageRequest.of(0, 4, Sort.by("age").descending()));
+            Assertions.assertThat(page.getContent()).extracting(MemberQueryDto::getAge).containsExactly(29, 28, 27, 26);
+            Assertions.assertThat(page.getTotalElements()).isEqualTo(10);
+            Page<MemberQueryDto> byName = memberService.searchByMemberName("member 1", PageRequest.of(0, 10, Sort.by("memberName")));
+            Assertions.assertThat(byName.getContent()).extracting(MemberQueryDto::getId).containsExactly(members.get(1).getId());
+        });
+    }
+
+}
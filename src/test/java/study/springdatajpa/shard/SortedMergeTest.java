@@ -0,0 +1,39 @@
+package study.springdatajpa.shard;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.Comparator;
+import java.util.List;
+
+class SortedMergeTest {
+
+    @Test
+    void mergesSortedListsKeepingOrder() {
+        // given : 샤드 세 개의 정렬된 결과 (하나는 비어 있다)
+        List<List<Integer>> shards = List.of(List.of(1, 4, 7, 10), List.of(), List.of(2, 3, 8, 9));
+
+        // when
+        List<Integer> all = SortedMerge.merge(shards, Comparator.naturalOrder(), 0, Integer.MAX_VALUE);
+        List<Integer> page = SortedMerge.merge(shards, Comparator.naturalOrder(), 3, 3);
+
+        // then
+        Assertions.assertThat(all).containsExactly(1, 2, 3, 4, 7, 8, 9, 10);
+        Assertions.assertThat(page).containsExactly(4, 7, 8);
+    }
+
+    @Test
+    void descendingOrderAndOffsetPastEnd() {
+        // given
+        List<List<Integer>> shards = List.of(List.of(9, 5, 1), List.of(8, 6));
+
+        // when
+        List<Integer> page = SortedMerge.merge(shards, Comparator.reverseOrder(), 4, 10);
+        List<Integer> empty = SortedMerge.merge(shards, Comparator.reverseOrder(), 10, 10);
+
+        // then
+        Assertions.assertThat(page).containsExactly(1);
+        Assertions.assertThat(empty).isEmpty();
+    }
+
+}
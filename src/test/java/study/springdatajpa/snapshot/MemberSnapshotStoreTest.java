@@ -0,0 +1,65 @@
+package study.springdatajpa.snapshot;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+class MemberSnapshotStoreTest {
+
+    @Test
+    void putUpdateRemove() {
+        // given
+        MemberSnapshotStore store = new MemberSnapshotStore(0);
+        MemberRecord record = new MemberRecord();
+
+        // when
+        store.put(1L, "member1", 10);
+        store.put(2L, null, 20);
+        store.put(1L, "멤버1", 11);
+        store.remove(2L);
+
+        // then
+        Assertions.assertThat(store.read(1L, record)).isTrue();
+        Assertions.assertThat(record.memberName()).isEqualTo("멤버1");
+        Assertions.assertThat(record.getAge()).isEqualTo(11);
+        Assertions.assertThat(store.read(2L, record)).isFalse();
+        Assertions.assertThat(store.read(3L, record)).isFalse();
+        Assertions.assertThat(store.size()).isEqualTo(1);
+    }
+
+    @Test
+    void matchesHashMapThroughGrowthAndCompaction() {
+        // given : 작은 크기로 시작해 index 확장과 arena compaction 이 여러 번 일어나게 한다.
+        MemberSnapshotStore store = new MemberSnapshotStore(0);
+        Map<Long, String> expected = new HashMap<>();
+        Random random = new Random(40);
+
+        // when
+        for (int i = 0; i < 200_000; i++) {
+            long id = random.nextInt(5_000);
+            if (random.nextInt(4) == 0) {
+                store.remove(id);
+                expected.remove(id);
+            } else {
+                String name = "member" + id + "-" + i;
+                store.put(id, name, i % 100);
+                expected.put(id, name);
+            }
+        }
+
+        // then
+        MemberRecord record = new MemberRecord();
+        for (long id = 0; id < 5_000; id++) {
+            boolean found = store.read(id, record);
+            Assertions.assertThat(found).isEqualTo(expected.containsKey(id));
+            if (found) {
+                Assertions.assertThat(record.memberName()).isEqualTo(expected.get(id));
+            }
+        }
+        Assertions.assertThat(store.size()).isEqualTo(expected.size());
+    }
+
+}
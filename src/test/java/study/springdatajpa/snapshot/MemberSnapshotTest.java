@@ -0,0 +1,79 @@
+package study.springdatajpa.snapshot;
+
+import lombok.extern.slf4j.Slf4j;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import study.springdatajpa.entity.Member;
+import study.springdatajpa.repository.MemberRepository;
+import study.springdatajpa.repository.query.MemberQueryDto;
+import study.springdatajpa.service.MemberService;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * snapshot 을 켜고 reload 가 겹치거나 벌크 update 직후 요청될 때를 확인한다. 다른 테스트의 회원과 섞이지 않도록 별도 DB 를 쓴다.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:snapshot",
+        "member.snapshot.enabled=true"})
+@Slf4j
+class MemberSnapshotTest {
+
+    @Autowired
+    private MemberSnapshot memberSnapshot;
+    @Autowired
+    private MemberRepository memberRepository;
+    @Autowired
+    private MemberService memberService;
+
+    @Test
+    void concurrentReloadsKeepChanges() throws Exception {
+        // given...
+        List<Member> members = memberRepository.saveAll(IntStream.range(0, 100)
+                .mapToObj(i -> new Member("snapshot member" + i, 30)).toList());
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+
+        // when... reload 여러 개와 회원 저장이 겹친다.
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            futures.add(executor.submit(memberSnapshot::reload));
+        }
+        Member saved = memberService.signUpMember(new Member("saved during reload", 40));
+        for (Future<?> future : futures) {
+            future.get(10, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        // then... reload 는 모두 끝나고, 그 사이에 저장된 회원도 남는다.
+        Assertions.assertThat(memberSnapshot.findDto(members.get(99).getId())).map(MemberQueryDto::getAge).contains(30);
+        Assertions.assertThat(memberSnapshot.findDto(saved.getId())).map(MemberQueryDto::getMemberName).contains("saved during reload");
+    }
+
+    @Test
+    void bulkUpdateReloadsInBackground() throws Exception {
+        // given...
+        Member member = memberRepository.save(new Member("bulk snapshot member", 70));
+        memberSnapshot.reload();
+
+        // when... 연달아 커밋해도 요청 스레드는 reload 를 기다리지 않는다.
+        memberService.memberBulkUpdate(70);
+        memberService.memberBulkUpdate(71);
+
+        // then... 나중에 요청된 reload 까지 반영된다.
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (memberSnapshot.findDto(member.getId()).map(MemberQueryDto::getAge).orElse(0) != 72
+                && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        Assertions.assertThat(memberSnapshot.findDto(member.getId())).map(MemberQueryDto::getAge).contains(72);
+    }
+
+}
@@ -0,0 +1,74 @@
+package study.springdatajpa.support;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+class MicroBatchLoaderTest {
+
+    private final List<Set<Long>> batches = new CopyOnWriteArrayList<>();
+    private final Function<Set<Long>, Map<Long, String>> batchFunction = keys -> {
+        batches.add(Set.copyOf(keys));
+        return keys.stream().filter(key -> key > 0).collect(Collectors.toMap(key -> key, key -> "value" + key));
+    };
+
+    @Test
+    void keysWithinWindowShareOneBatch() {
+        // given
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        try (MicroBatchLoader<Long, String> loader =
+                     new MicroBatchLoader<>("test", batchFunction, "missing", executor, Duration.ofMillis(50), 100, registry)) {
+
+            // when
+            CompletableFuture<String> first = loader.load(1L);
+            CompletableFuture<String> duplicate = loader.load(1L);
+            CompletableFuture<String> second = loader.load(2L);
+            CompletableFuture<String> unknown = loader.load(-1L);
+
+            // then
+            Assertions.assertThat(first.join()).isEqualTo("value1");
+            Assertions.assertThat(duplicate.join()).isEqualTo("value1");
+            Assertions.assertThat(second.join()).isEqualTo("value2");
+            Assertions.assertThat(unknown.join()).isEqualTo("missing");
+            Assertions.assertThat(batches).containsExactly(Set.of(1L, 2L, -1L));
+            Assertions.assertThat(registry.get("microbatch.size").summary().max()).isEqualTo(3);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void fullBatchDispatchesWithoutWaitingForWindow() {
+        // given
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try (MicroBatchLoader<Long, String> loader =
+                     new MicroBatchLoader<>("test", batchFunction, "missing", executor, Duration.ofHours(1), 10, new SimpleMeterRegistry())) {
+
+            // when
+            List<CompletableFuture<String>> futures = IntStream.rangeClosed(1, 10)
+                    .mapToObj(i -> loader.load((long) i))
+                    .toList();
+
+            // then (window 가 1 시간이어도 10 개가 모이면 바로 실행된다)
+            futures.forEach(future -> Assertions.assertThat(future.orTimeout(5, TimeUnit.SECONDS).join()).startsWith("value"));
+            Assertions.assertThat(batches).hasSize(1);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+}
@@ -0,0 +1,68 @@
+package study.springdatajpa.support;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+class SingleFlightTest {
+
+    @Test
+    void concurrentCallsShareOneLoad() throws Exception {
+        // given
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        SingleFlight<Long, StringBuilder> singleFlight = new SingleFlight<>("test", StringBuilder::new, registry);
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(9);
+
+        // when : leader 가 조회하는 동안 follower 8 개가 합류한다.
+        Future<StringBuilder> leader = executor.submit(() -> singleFlight.execute(1L, () -> {
+            loads.incrementAndGet();
+            loading.countDown();
+            await(release);
+            return new StringBuilder("member1");
+        }));
+        loading.await();
+        List<Future<StringBuilder>> followers = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            followers.add(executor.submit(() -> singleFlight.execute(1L, () -> {
+                loads.incrementAndGet();
+                return new StringBuilder("unexpected");
+            })));
+        }
+        while (registry.counter("singleflight.calls", "name", "test", "role", "follower").count() < 8) {
+            Thread.onSpinWait();
+        }
+        release.countDown();
+
+        // then : 조회는 한 번, 결과는 호출자마다 다른 복사본
+        StringBuilder leaderResult = leader.get();
+        for (Future<StringBuilder> follower : followers) {
+            StringBuilder result = follower.get();
+            Assertions.assertThat(result.toString()).isEqualTo("member1");
+            Assertions.assertThat(result).isNotSameAs(leaderResult);
+        }
+        executor.shutdown();
+        Assertions.assertThat(loads.get()).isEqualTo(1);
+        Assertions.assertThat(singleFlight.inFlightCount()).isZero();
+        Assertions.assertThat(registry.get("singleflight.coalescing.ratio").gauge().value()).isEqualTo(8.0 / 9);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+}
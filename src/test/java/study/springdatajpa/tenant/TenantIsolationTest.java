@@ -0,0 +1,168 @@
+package study.springdatajpa.tenant;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import study.springdatajpa.entity.Member;
+import study.springdatajpa.entity.Team;
+import study.springdatajpa.repository.MemberRepository;
+import study.springdatajpa.repository.TeamMemberRepository;
+import study.springdatajpa.repository.TeamRepository;
+import study.springdatajpa.service.LookupService;
+import study.springdatajpa.service.MemberService;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * tenant 별 몫을 작게 잡아 한 tenant 가 몫을 다 써도 다른 tenant 는 커넥션을 받는지 확인한다.
+ * 트랜잭션마다 session 의 tenant 가 정해지므로 테스트 자체는 트랜잭션 없이 tenant 를 바꿔가며 호출한다.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:tenant",
+        "tenant.connection.max-connections=2",
+        "tenant.connection.acquire-timeout-ms=50",
+        "tenant.connection.known-tenants=noisy,quiet"})
+@Slf4j
+class TenantIsolationTest {
+
+    @Autowired
+    private MemberRepository memberRepository;
+    @Autowired
+    private TeamRepository teamRepository;
+    @Autowired
+    private TeamMemberRepository teamMemberRepository;
+    @Autowired
+    private LookupService lookupService;
+    @Autowired
+    private MemberService memberService;
+    @Autowired
+    private DataSource dataSource;
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    void queriesSeeOnlyCurrentTenant() {
+        // given... 같은 이름의 회원이 두 tenant 에 있다.
+        Member a = TenantContext.callAs("tenant-a", () -> memberRepository.save(new Member("tenant member", 10)));
+        Member b = TenantContext.callAs("tenant-b", () -> memberRepository.save(new Member("tenant member", 10)));
+
+        // when... then... JPQL / derived / native 조회 모두 자기 tenant 의 회원만 본다.
+        TenantContext.runAs("tenant-a", () -> {
+            Assertions.assertThat(memberRepository.findDtosByMemberName("tenant member")).extracting("id").containsExactly(a.getId());
+            Assertions.assertThat(memberRepository.findMemberByNativeQuery("tenant member")).extracting(Member::getId).containsExactly(a.getId());
+            Assertions.assertThat(memberRepository.findById(b.getId())).isEmpty();
+            Assertions.assertThat(lookupService.findMember(b.getId())).isEmpty();
+            Assertions.assertThat(lookupService.findMember(a.getId())).isPresent();
+        });
+        Assertions.assertThat(a.getTenantId()).isEqualTo("tenant-a");
+        Assertions.assertThat(b.getTenantId()).isEqualTo("tenant-b");
+
+        // 벌크 update 도 다른 tenant 의 row 는 건드리지 않는다.
+        TenantContext.runAs("tenant-a", () -> memberService.memberBulkUpdate(10));
+        Assertions.assertThat(TenantContext.callAs("tenant-b", () -> memberRepository.findById(b.getId()).orElseThrow().getAge())).isEqualTo(10);
+        Assertions.assertThat(TenantContext.callAs("tenant-a", () -> memberRepository.findById(a.getId()).orElseThrow().getAge())).isEqualTo(11);
+    }
+
+    @Test
+    void nativeMembershipInsertRejectsOtherTenantTeam() {
+        // given...
+        Member member = TenantContext.callAs("tenant-a", () -> memberRepository.save(new Member("tenant a member", 20)));
+        Team otherTeam = TenantContext.callAs("tenant-b", () -> teamRepository.save(new Team("tenant b team")));
+        Team ownTeam = TenantContext.callAs("tenant-a", () -> teamRepository.save(new Team("tenant a team")));
+
+        // when... then... 다른 tenant 의 팀에는 들어가지 않는다.
+        Assertions.assertThat(TenantContext.callAs("tenant-a", () -> teamMemberRepository.ensureMembership(member.getId(), otherTeam.getId()))).isFalse();
+        Assertions.assertThat(TenantContext.callAs("tenant-a", () -> teamMemberRepository.ensureMembership(member.getId(), ownTeam.getId()))).isTrue();
+        Assertions.assertThat(TenantContext.callAs("tenant-b", () -> teamMemberRepository.countByMemberId(member.getId()))).isZero();
+        Assertions.assertThat(TenantContext.callAs("tenant-a", () -> teamMemberRepository.countByMemberId(member.getId()))).isEqualTo(1);
+    }
+
+    @Test
+    void noisyTenantCannotTakeOthersConnections() throws SQLException {
+        // given... noisy tenant 가 몫(2개)을 다 잡고 있다.
+        List<Connection> held = new ArrayList<>();
+        try {
+            held.add(connectionAs("noisy"));
+            held.add(connectionAs("noisy"));
+
+            // when... then... noisy 의 다음 요청은 거절되고, 다른 tenant 는 받는다.
+            Assertions.assertThatThrownBy(() -> connectionAs("noisy")).isInstanceOf(TenantConnectionLimitException.class);
+            try (Connection quiet = connectionAs("quiet")) {
+                Assertions.assertThat(quiet.isValid(1)).isTrue();
+            }
+        } finally {
+            for (Connection connection : held) {
+                connection.close();
+            }
+        }
+
+        // 반납하면 다시 받을 수 있다.
+        try (Connection again = connectionAs("noisy")) {
+            Assertions.assertThat(again.isValid(1)).isTrue();
+        }
+    }
+
+    @Test
+    void unknownTenantIsCountedWithoutItsOwnTag() throws SQLException {
+        // given... known-tenants 에 없는 tenant 가 몫을 다 잡고 있다.
+        List<Connection> held = new ArrayList<>();
+        try {
+            held.add(connectionAs("stranger"));
+            held.add(connectionAs("stranger"));
+
+            // when...
+            Assertions.assertThatThrownBy(() -> connectionAs("stranger")).isInstanceOf(TenantConnectionLimitException.class);
+        } finally {
+            for (Connection connection : held) {
+                connection.close();
+            }
+        }
+
+        // then... 거절은 tenant=unknown 으로 세고, header 값으로 meter 를 만들지 않는다.
+        Assertions.assertThat(meterRegistry.get("tenant.connection.rejected").tag("tenant", "unknown").counter().count()).isGreaterThanOrEqualTo(1);
+        Assertions.assertThat(meterRegistry.find("tenant.connection.rejected").tag("tenant", "stranger").counter()).isNull();
+    }
+
+    @Test
+    void defaultTenantIsNotLimited() throws SQLException {
+        // given... when... header 없는 요청(default tenant)은 몫(2개)보다 많이 잡을 수 있다.
+        List<Connection> held = new ArrayList<>();
+        try {
+            for (int i = 0; i < 3; i++) {
+                held.add(connectionAs(TenantContext.DEFAULT_TENANT));
+            }
+
+            // then...
+            Assertions.assertThat(held).allMatch(this::isValid);
+        } finally {
+            for (Connection connection : held) {
+                connection.close();
+            }
+        }
+    }
+
+    private boolean isValid(Connection connection) {
+        try {
+            return connection.isValid(1);
+        } catch (SQLException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private Connection connectionAs(String tenantId) throws SQLException {
+        TenantContext.set(tenantId);
+        try {
+            return dataSource.getConnection();
+        } finally {
+            TenantContext.clear();
+        }
+    }
+
+}